@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.messages.OxIRCMessageByteParsers;
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A server controller with no network transport, populated with clients that
+ * use {@link OxBenchmarkTransport}.
+ */
+
+public final class OxBenchmarkServer
+{
+  private final OxServerConfiguration configuration;
+  private final OxIRCMessageByteParsers parsers;
+  private final OxServerController controller;
+
+  /**
+   * Create a server.
+   */
+
+  public OxBenchmarkServer()
+  {
+    final var ids = new AtomicInteger();
+
+    this.configuration =
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .build();
+    this.parsers =
+      new OxIRCMessageByteParsers(OxServerClient.commandNames());
+    this.controller =
+      new OxServerController(
+        this.configuration,
+        Clock.systemUTC(),
+        this.parsers,
+        () -> OxServerClientID.of(ids.incrementAndGet())
+      );
+  }
+
+  /**
+   * @return The server configuration
+   */
+
+  public OxServerConfiguration configuration()
+  {
+    return this.configuration;
+  }
+
+  /**
+   * @return The message parsers
+   */
+
+  public OxIRCMessageByteParsers parsers()
+  {
+    return this.parsers;
+  }
+
+  /**
+   * @return The server controller
+   */
+
+  public OxServerController controller()
+  {
+    return this.controller;
+  }
+
+  /**
+   * Create and register a new client.
+   *
+   * @param nick The client's nick name
+   *
+   * @return A registered client
+   */
+
+  public OxServerClient client(
+    final String nick)
+  {
+    final var client =
+      this.controller.clientCreate(new OxBenchmarkTransport());
+    client.start();
+    this.input(client, "NICK " + nick);
+    this.input(client, "USER " + nick + " " + nick + " " + nick + " :Bench");
+    return client;
+  }
+
+  /**
+   * Deliver a line of input to the given client as if it had arrived from
+   * the network.
+   *
+   * @param client The client
+   * @param line   The line, without a terminator
+   */
+
+  public void input(
+    final OxServerClient client,
+    final String line)
+  {
+    try {
+      client.inputBuffer().put((line + "\r\n").getBytes(UTF_8));
+      client.onInputReceived();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientTransportType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortMetrics;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Objects;
+
+/**
+ * A transport that behaves as an infinitely fast peer: outbound messages are
+ * drained and discarded as soon as they are queued.
+ */
+
+public final class OxBenchmarkTransport implements OxServerClientTransportType
+{
+  private static final SocketAddress ADDRESS =
+    InetSocketAddress.createUnresolved("bench.example", 6667);
+
+  private static final OxServerPortMetrics PORT_METRICS =
+    new OxServerPortMetrics(
+      OxServerPortConfiguration.builder()
+        .setAddress(InetAddress.getLoopbackAddress())
+        .setPort(6667)
+        .setEnableTLS(false)
+        .build()
+    );
+
+  private OxServerClient client;
+  private long octetsWritten;
+  private boolean closed;
+
+  /**
+   * A transport that behaves as an infinitely fast peer.
+   */
+
+  public OxBenchmarkTransport()
+  {
+
+  }
+
+  /**
+   * @return The total number of octets "written" to the peer
+   */
+
+  public long octetsWritten()
+  {
+    return this.octetsWritten;
+  }
+
+  @Override
+  public SocketAddress remoteAddress()
+  {
+    return ADDRESS;
+  }
+
+  @Override
+  public OxServerPortMetrics portMetrics()
+  {
+    return PORT_METRICS;
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  @Override
+  public void start(
+    final OxServerClient inClient)
+  {
+    this.client = Objects.requireNonNull(inClient, "client");
+  }
+
+  @Override
+  public void wakeup()
+  {
+    if (this.client == null) {
+      return;
+    }
+
+    while (true) {
+      final var message = this.client.pollOutbound();
+      if (message == null) {
+        return;
+      }
+      this.octetsWritten += message.size();
+    }
+  }
+
+  @Override
+  public void onReadSuspensionChanged()
+  {
+
+  }
+
+  @Override
+  public void closeAfterFlush()
+  {
+    this.wakeup();
+    this.close();
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed = true;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.names.OxCaseMapping;
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannel;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannelMap;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannelPartResult;
+import com.io7m.oxicoco.server.vanilla.internal.OxClientException;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for channel membership operations.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxChannelMapBenchmark
+{
+  /**
+   * The number of members of the channel.
+   */
+
+  @Param({"10", "1000"})
+  public int members;
+
+  private OxChannelMap channelMap;
+  private OxServerController controller;
+  private OxServerClient client;
+  private OxChannelName channel;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxChannelMapBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final var server = new OxBenchmarkServer();
+    this.controller = server.controller();
+    this.channelMap = new OxChannelMap(OxCaseMapping.RFC1459);
+    this.channel = OxChannelName.of("#bench");
+
+    for (int index = 0; index < this.members; ++index) {
+      final var member = this.createClient(server, index);
+      this.channelMap.channelJoin(member, this.channel, this::createChannel);
+    }
+
+    this.client = this.createClient(server, this.members);
+  }
+
+  private OxServerClient createClient(
+    final OxBenchmarkServer server,
+    final int index)
+  {
+    return new OxServerClient(
+      server.configuration(),
+      server.parsers(),
+      this.controller,
+      OxServerClientID.of(index),
+      new OxBenchmarkTransport()
+    );
+  }
+
+  private OxChannel createChannel(
+    final OxChannelName name)
+  {
+    return new OxChannel(this.controller, name);
+  }
+
+  /**
+   * Join and then part a channel.
+   *
+   * @return The part result
+   *
+   * @throws OxClientException On errors
+   */
+
+  @Benchmark
+  public OxChannelPartResult joinPart()
+    throws OxClientException
+  {
+    this.channelMap.channelJoin(this.client, this.channel, this::createChannel);
+    return this.channelMap.channelPart(this.client, this.channel);
+  }
+
+  /**
+   * @return The members of a channel
+   */
+
+  @Benchmark
+  public Set<OxServerClientID> channelClients()
+  {
+    return this.channelMap.channelClients(this.channel);
+  }
+}
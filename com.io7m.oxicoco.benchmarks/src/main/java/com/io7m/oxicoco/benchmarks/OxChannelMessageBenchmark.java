@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.server.vanilla.internal.OxClientException;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for delivering a channel message to every member of a channel.
+ * Each member's transport drains its queue immediately, so the measurement
+ * covers formatting, encoding, queueing and dequeueing.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxChannelMessageBenchmark
+{
+  /**
+   * The number of members of the channel.
+   */
+
+  @Param({"1", "10", "100", "1000"})
+  public int members;
+
+  private OxServerController controller;
+  private OxServerClient sender;
+  private OxChannelName channel;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxChannelMessageBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final var server = new OxBenchmarkServer();
+    this.controller = server.controller();
+    this.channel = OxChannelName.of("#bench");
+
+    for (int index = 0; index < this.members; ++index) {
+      final var member = server.client("u" + index);
+      server.input(member, "JOIN " + this.channel.value());
+    }
+
+    this.sender = server.client("sender");
+    server.input(this.sender, "JOIN " + this.channel.value());
+  }
+
+  /**
+   * Send a message to the channel.
+   *
+   * @throws OxClientException On errors
+   */
+
+  @Benchmark
+  public void channelMessage()
+    throws OxClientException
+  {
+    this.controller.channelMessage(
+      this.sender,
+      this.channel,
+      "Hello, how is everybody doing today?"
+    );
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.names.OxCaseMapping;
+import com.io7m.oxicoco.names.OxNickName;
+import com.io7m.oxicoco.server.vanilla.internal.OxClientException;
+import com.io7m.oxicoco.server.vanilla.internal.OxClientMap;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks for client registry operations.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxClientMapBenchmark
+{
+  /**
+   * The number of clients registered in the map.
+   */
+
+  @Param({"10", "1000"})
+  public int clients;
+
+  private OxClientMap clientMap;
+  private OxServerClient client;
+  private OxNickName nickA;
+  private OxNickName nickB;
+  private OxNickName nickOther;
+  private boolean toggle;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxClientMapBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   *
+   * @throws OxClientException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws OxClientException
+  {
+    final var server = new OxBenchmarkServer();
+    final var ids = new AtomicInteger();
+    this.clientMap =
+      new OxClientMap(
+        OxCaseMapping.RFC1459,
+        () -> OxServerClientID.of(ids.incrementAndGet())
+      );
+
+    for (int index = 0; index < this.clients; ++index) {
+      final var created = this.clientMap.clientCreate(id -> {
+        return new OxServerClient(
+          server.configuration(),
+          server.parsers(),
+          server.controller(),
+          id,
+          new OxBenchmarkTransport()
+        );
+      });
+      this.clientMap.clientSetNick(created, OxNickName.of("u" + index));
+      this.client = created;
+    }
+
+    this.nickA = OxNickName.of("benchA");
+    this.nickB = OxNickName.of("benchB");
+    this.nickOther = OxNickName.of("u0");
+    this.clientMap.clientSetNick(this.client, this.nickA);
+  }
+
+  /**
+   * Change a client's nick.
+   *
+   * @return The previous nick
+   *
+   * @throws OxClientException On errors
+   */
+
+  @Benchmark
+  public Optional<OxNickName> setNick()
+    throws OxClientException
+  {
+    this.toggle = !this.toggle;
+    return this.clientMap.clientSetNick(
+      this.client,
+      this.toggle ? this.nickB : this.nickA
+    );
+  }
+
+  /**
+   * @return The client with a given nick
+   */
+
+  @Benchmark
+  public Optional<OxServerClient> lookupNick()
+  {
+    return this.clientMap.clientForNick(this.nickOther);
+  }
+
+  /**
+   * @return The nick of a given client
+   */
+
+  @Benchmark
+  public Optional<OxNickName> lookupClientNick()
+  {
+    return this.clientMap.clientNick(this.client);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannel;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerChannelCreated;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventBus;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventSubscriptionType;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.subjects.PublishSubject;
+import io.reactivex.rxjava3.subjects.Subject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Benchmarks that compare publishing server events through a serialized
+ * RxJava subject, as the server formerly did, with publishing through the
+ * server event bus. Each path has a single subscriber that counts events.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class OxEventBusBenchmark
+{
+  private Subject<OxServerEventType> subject;
+  private Disposable subjectSubscription;
+  private ExecutorService executor;
+  private OxServerEventBus bus;
+  private OxServerEventSubscriptionType busSubscription;
+  private OxServerEventBus busEmpty;
+  private LongAdder received;
+  private OxServerEventType event;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxEventBusBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   */
+
+  @Setup(Level.Trial)
+  public void setup()
+  {
+    this.received = new LongAdder();
+    this.event =
+      OxServerChannelCreated.builder()
+        .setChannel(new OxChannel(
+          new OxBenchmarkServer().controller(),
+          OxChannelName.of("#main")))
+        .build();
+
+    this.subject =
+      PublishSubject.<OxServerEventType>create()
+        .toSerialized();
+    this.subjectSubscription =
+      this.subject.subscribe(e -> this.received.increment());
+
+    this.executor = Executors.newSingleThreadExecutor();
+    this.bus = new OxServerEventBus(this.executor);
+    this.busSubscription =
+      this.bus.subscribe(
+        OxServerEventType.class,
+        65536,
+        e -> this.received.increment()
+      );
+    this.busEmpty = new OxServerEventBus(this.executor);
+  }
+
+  /**
+   * Tear down the benchmark state.
+   */
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    this.subjectSubscription.dispose();
+    this.busSubscription.close();
+    this.bus.close();
+    this.busEmpty.close();
+    this.executor.shutdown();
+  }
+
+  /**
+   * Publish an event through a serialized subject.
+   */
+
+  @Benchmark
+  public void publishSubject()
+  {
+    this.subject.onNext(this.event);
+  }
+
+  /**
+   * Publish an event through the event bus.
+   */
+
+  @Benchmark
+  public void publishBus()
+  {
+    this.bus.publish(this.event);
+  }
+
+  /**
+   * Publish an event through an event bus with no subscribers, building the
+   * event only if there are subscribers.
+   *
+   * @return The event, if one was built
+   */
+
+  @Benchmark
+  public OxServerEventType publishBusUnsubscribed()
+  {
+    if (this.busEmpty.hasSubscribers(OxServerChannelCreated.class)) {
+      final var built =
+        OxServerChannelCreated.builder()
+          .from((OxServerChannelCreated) this.event)
+          .build();
+      this.busEmpty.publish(built);
+      return built;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for message formatting and encoding.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxFormatBenchmark
+{
+  private OxIRCMessage privmsg;
+  private OxIRCMessage tagged;
+  private OxIRCMessage reply;
+  private ByteBuffer buffer;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxFormatBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   */
+
+  @Setup
+  public void setup()
+  {
+    this.privmsg =
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix(":someone!user@host")
+        .setCommand("PRIVMSG")
+        .addParameters("#channel")
+        .setTrailing(":Hello, how is everybody doing today?")
+        .build();
+
+    this.tagged =
+      OxIRCMessage.builder()
+        .from(this.privmsg)
+        .putTags("time", "2020-01-01T00:00:00Z")
+        .putTags("msgid", "abc")
+        .build();
+
+    this.reply =
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix(":com.example")
+        .setCommand("353")
+        .addParameters("someone", "=", "#channel")
+        .setTrailing(":someone other another")
+        .build();
+
+    this.buffer = ByteBuffer.allocate(512);
+  }
+
+  /**
+   * @return A formatted PRIVMSG
+   */
+
+  @Benchmark
+  public String formatPrivmsg()
+  {
+    return this.privmsg.format();
+  }
+
+  /**
+   * @return A formatted PRIVMSG with tags
+   */
+
+  @Benchmark
+  public String formatTagged()
+  {
+    return this.tagged.format();
+  }
+
+  /**
+   * @return A formatted numeric reply
+   */
+
+  @Benchmark
+  public String formatReply()
+  {
+    return this.reply.format();
+  }
+
+  /**
+   * @return A PRIVMSG encoded into a reused buffer
+   */
+
+  @Benchmark
+  public ByteBuffer encodePrivmsg()
+  {
+    this.buffer.clear();
+    OxIRCMessageEncoder.INSTANCE.encode(this.privmsg, this.buffer);
+    return this.buffer;
+  }
+
+  /**
+   * @return A PRIVMSG with tags encoded into a reused buffer
+   */
+
+  @Benchmark
+  public ByteBuffer encodeTagged()
+  {
+    this.buffer.clear();
+    OxIRCMessageEncoder.INSTANCE.encode(this.tagged, this.buffer);
+    return this.buffer;
+  }
+
+  /**
+   * @return A numeric reply encoded into a reused buffer
+   */
+
+  @Benchmark
+  public ByteBuffer encodeReply()
+  {
+    this.buffer.clear();
+    OxIRCMessageEncoder.INSTANCE.encode(this.reply, this.buffer);
+    return this.buffer;
+  }
+}
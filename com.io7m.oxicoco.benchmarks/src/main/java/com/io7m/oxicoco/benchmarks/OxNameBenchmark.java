@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
+import com.io7m.oxicoco.names.OxNickName;
+import com.io7m.oxicoco.names.OxNickNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for name validation.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxNameBenchmark
+{
+  private static final Pattern NICK_PATTERN =
+    Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,31}");
+  private static final Pattern CHANNEL_PATTERN =
+    Pattern.compile("#[A-Za-z0-9_]{1,31}");
+
+  private final String nick = "someone_12";
+  private final String channel = "#some_channel";
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxNameBenchmark()
+  {
+
+  }
+
+  /**
+   * @return A validated nick name
+   */
+
+  @Benchmark
+  public OxNickName nickName()
+  {
+    return OxNickName.of(this.nick);
+  }
+
+  /**
+   * @return A validated channel name
+   */
+
+  @Benchmark
+  public OxChannelName channelName()
+  {
+    return OxChannelName.of(this.channel);
+  }
+
+  /**
+   * @return An interned nick name
+   */
+
+  @Benchmark
+  public OxNickName nickNameInterned()
+  {
+    return OxNickNames.INSTANCE.intern(this.nick);
+  }
+
+  /**
+   * @return An interned channel name
+   */
+
+  @Benchmark
+  public OxChannelName channelNameInterned()
+  {
+    return OxChannelNames.INSTANCE.intern(this.channel);
+  }
+
+  /**
+   * @return {@code true} if the nick name matches the regular expression
+   * that previously defined valid nick names
+   */
+
+  @Benchmark
+  public boolean nickNameRegex()
+  {
+    return NICK_PATTERN.matcher(this.nick).matches();
+  }
+
+  /**
+   * @return {@code true} if the channel name matches the regular expression
+   * that previously defined valid channel names
+   */
+
+  @Benchmark
+  public boolean channelNameRegex()
+  {
+    return CHANNEL_PATTERN.matcher(this.channel).matches();
+  }
+
+  /**
+   * @return {@code true} if the nick name is valid
+   */
+
+  @Benchmark
+  public boolean nickNameCheck()
+  {
+    return OxNickNames.INSTANCE.isValid(this.nick);
+  }
+
+  /**
+   * @return {@code true} if the channel name is valid
+   */
+
+  @Benchmark
+  public boolean channelNameCheck()
+  {
+    return OxChannelNames.INSTANCE.isValid(this.channel);
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.benchmarks;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageByteParsers;
+import com.io7m.oxicoco.messages.OxIRCMessageParserFactoryType;
+import com.io7m.oxicoco.messages.OxIRCMessageParserType;
+import com.io7m.oxicoco.messages.OxIRCMessageParsers;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Benchmarks for the message parsers.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OxParserBenchmark
+{
+  /**
+   * The parser implementation.
+   */
+
+  @Param({"regex", "bytes"})
+  public String implementation;
+
+  /**
+   * The kind of line parsed.
+   */
+
+  @Param({"privmsg", "tagged", "ping"})
+  public String line;
+
+  private OxIRCMessageParserType parser;
+  private String text;
+  private byte[] bytes;
+
+  /**
+   * Create a benchmark.
+   */
+
+  public OxParserBenchmark()
+  {
+
+  }
+
+  /**
+   * Set up the benchmark state.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final OxIRCMessageParserFactoryType parsers =
+      switch (this.implementation) {
+        case "regex" -> new OxIRCMessageParsers();
+        case "bytes" -> new OxIRCMessageByteParsers(OxServerClient.commandNames());
+        default -> throw new IllegalArgumentException(this.implementation);
+      };
+
+    this.parser = parsers.create();
+    this.text = switch (this.line) {
+      case "privmsg" -> ":someone!user@host PRIVMSG #channel :Hello, how is everybody doing today?";
+      case "tagged" -> "@time=2020-01-01T00:00:00Z;msgid=abc :someone!user@host PRIVMSG #channel :Hello!";
+      case "ping" -> "PING :com.example";
+      default -> throw new IllegalArgumentException(this.line);
+    };
+    this.bytes = this.text.getBytes(UTF_8);
+  }
+
+  /**
+   * Parse a line from a string.
+   *
+   * @return The parsed message
+   */
+
+  @Benchmark
+  public Optional<OxIRCMessage> parseString()
+  {
+    return this.parser.parse(this.text);
+  }
+
+  /**
+   * Parse a line from the bytes received from a client.
+   *
+   * @return The parsed message
+   */
+
+  @Benchmark
+  public Optional<OxIRCMessage> parseBytes()
+  {
+    return this.parser.parse(this.bytes, 0, this.bytes.length);
+  }
+}
@@ -94,6 +94,12 @@ public enum OxIRCErrorCode
 
   ERR_WILDTOPLEVEL(414),
 
+  /**
+   * ERR_INPUTTOOLONG
+   */
+
+  ERR_INPUTTOOLONG(417),
+
   /**
    * ERR_UNKNOWNCOMMAND
    */
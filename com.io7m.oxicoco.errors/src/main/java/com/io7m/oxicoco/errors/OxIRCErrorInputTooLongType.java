@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.errors;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.names.OxServerName;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * An input line was too long.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OxIRCErrorInputTooLongType extends OxIRCErrorType
+{
+  @Override
+  default OxIRCErrorCode code()
+  {
+    return OxIRCErrorCode.ERR_INPUTTOOLONG;
+  }
+
+  @Override
+  default OxIRCMessage toMessage(
+    final Optional<OxServerName> prefix)
+  {
+    return OxIRCMessage.builder()
+      .setRawText("")
+      .setPrefix(prefix.map(p -> ":" + p.value()).orElse(""))
+      .setCommand(String.valueOf(this.code().code()))
+      .setTrailing(":input line too long")
+      .build();
+  }
+}
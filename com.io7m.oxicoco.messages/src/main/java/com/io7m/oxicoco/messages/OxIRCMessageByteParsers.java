@@ -0,0 +1,280 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.messages;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A factory of message parsers that parse messages directly from encoded
+ * bytes. The parsers locate each component of a message by offset and
+ * decode each component exactly once, without creating intermediate strings.
+ * Command names that appear in a given list of known commands are matched
+ * without allocation and are shared between all parsed messages, and the
+ * {@link OxIRCMessageType#commandId()} of each such message is the index of
+ * the command in the list.
+ */
+
+public final class OxIRCMessageByteParsers
+  implements OxIRCMessageParserFactoryType
+{
+  private final byte[][] commandBytes;
+  private final String[] commandNames;
+
+  /**
+   * A factory of message parsers.
+   *
+   * @param knownCommands The command names that will be interned
+   *
+   * @throws IllegalArgumentException If the list contains duplicate names
+   */
+
+  public OxIRCMessageByteParsers(
+    final List<String> knownCommands)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(knownCommands, "knownCommands");
+
+    this.commandNames =
+      knownCommands.stream()
+        .map(name -> name.toUpperCase(Locale.ROOT).intern())
+        .toArray(String[]::new);
+
+    if (Set.of(this.commandNames).size() != this.commandNames.length) {
+      throw new IllegalArgumentException(
+        String.format("Duplicate command names in %s", knownCommands)
+      );
+    }
+
+    this.commandBytes = new byte[this.commandNames.length][];
+    for (int index = 0; index < this.commandNames.length; ++index) {
+      this.commandBytes[index] = this.commandNames[index].getBytes(UTF_8);
+    }
+  }
+
+  /**
+   * A factory of message parsers that do not intern any command names.
+   */
+
+  public OxIRCMessageByteParsers()
+  {
+    this(List.of());
+  }
+
+  @Override
+  public OxIRCMessageParserType create()
+  {
+    return new Parser(this.commandBytes, this.commandNames);
+  }
+
+  private static final class Parser implements OxIRCMessageParserType
+  {
+    private final byte[][] commandBytes;
+    private final String[] commandNames;
+
+    Parser(
+      final byte[][] inCommandBytes,
+      final String[] inCommandNames)
+    {
+      this.commandBytes =
+        Objects.requireNonNull(inCommandBytes, "commandBytes");
+      this.commandNames =
+        Objects.requireNonNull(inCommandNames, "commandNames");
+    }
+
+    private static boolean isWhitespace(
+      final byte b)
+    {
+      return b >= 0 && Character.isWhitespace(b);
+    }
+
+    private static int skipWhitespace(
+      final byte[] data,
+      final int start,
+      final int end)
+    {
+      var index = start;
+      while (index < end && isWhitespace(data[index])) {
+        ++index;
+      }
+      return index;
+    }
+
+    private static int findSpace(
+      final byte[] data,
+      final int start,
+      final int end)
+    {
+      for (int index = start; index < end; ++index) {
+        if (data[index] == ' ') {
+          return index;
+        }
+      }
+      return end;
+    }
+
+    private static byte toUpperASCII(
+      final byte b)
+    {
+      if (b >= 'a' && b <= 'z') {
+        return (byte) (b - ('a' - 'A'));
+      }
+      return b;
+    }
+
+    private static String decode(
+      final byte[] data,
+      final int start,
+      final int end)
+    {
+      /*
+       * Decoding directly into a string avoids the intermediate character
+       * buffer that CharsetDecoder would allocate.
+       */
+
+      // CHECKSTYLE:OFF
+      return new String(data, start, end - start, UTF_8);
+      // CHECKSTYLE:ON
+    }
+
+    @Override
+    public Optional<OxIRCMessage> parse(
+      final String line)
+    {
+      Objects.requireNonNull(line, "line");
+
+      final var data = line.getBytes(UTF_8);
+      return this.parseTraced(data, 0, data.length, line);
+    }
+
+    @Override
+    public Optional<OxIRCMessage> parse(
+      final byte[] data,
+      final int offset,
+      final int length)
+    {
+      Objects.requireNonNull(data, "data");
+      Objects.checkFromIndexSize(offset, length, data.length);
+      return this.parseTraced(data, offset, offset + length, null);
+    }
+
+    private Optional<OxIRCMessage> parseTraced(
+      final byte[] data,
+      final int start,
+      final int end,
+      final String rawText)
+    {
+      final var event = new OxIRCMessageParseEvent();
+      event.begin();
+
+      final var result = this.parseBytes(data, start, end, rawText);
+      if (event.shouldCommit()) {
+        event.command = result.map(OxIRCMessage::command).orElse("");
+        event.octets = end - start;
+        event.commit();
+      }
+      return result;
+    }
+
+    private Optional<OxIRCMessage> parseBytes(
+      final byte[] data,
+      final int start,
+      final int end,
+      final String rawText)
+    {
+      var index = skipWhitespace(data, start, end);
+      if (index == end) {
+        return Optional.empty();
+      }
+
+      final var messageBuilder = OxIRCMessage.builder();
+      messageBuilder.setRawText(
+        rawText != null ? rawText : decode(data, start, end));
+      messageBuilder.setTrailing("");
+      messageBuilder.setPrefix("");
+
+      if (data[start] == '@') {
+        index = findSpace(data, start, end);
+      }
+
+      index = skipWhitespace(data, index, end);
+      if (index < end && data[index] == ':') {
+        final var prefixEnd = findSpace(data, index, end);
+        messageBuilder.setPrefix(decode(data, index, prefixEnd));
+        index = prefixEnd;
+      }
+
+      index = skipWhitespace(data, index, end);
+      final var commandEnd = findSpace(data, index, end);
+      final var commandId = this.commandId(data, index, commandEnd);
+      if (commandId != OxIRCMessageType.COMMAND_UNKNOWN) {
+        messageBuilder.setCommand(this.commandNames[commandId]);
+        messageBuilder.setCommandId(commandId);
+      } else {
+        messageBuilder.setCommand(
+          decode(data, index, commandEnd).toUpperCase(Locale.ROOT));
+      }
+      index = skipWhitespace(data, commandEnd, end);
+
+      while (index < end) {
+        if (data[index] == ':') {
+          messageBuilder.setTrailing(decode(data, index, end));
+          break;
+        }
+
+        final var parameterEnd = findSpace(data, index, end);
+        messageBuilder.addParameters(decode(data, index, parameterEnd));
+        index = skipWhitespace(data, parameterEnd, end);
+      }
+
+      return Optional.of(messageBuilder.build());
+    }
+
+    private int commandId(
+      final byte[] data,
+      final int start,
+      final int end)
+    {
+      final var length = end - start;
+      for (int index = 0; index < this.commandBytes.length; ++index) {
+        final var name = this.commandBytes[index];
+        if (name.length == length && matchesUpper(data, start, name)) {
+          return index;
+        }
+      }
+      return OxIRCMessageType.COMMAND_UNKNOWN;
+    }
+
+    private static boolean matchesUpper(
+      final byte[] data,
+      final int start,
+      final byte[] name)
+    {
+      for (int index = 0; index < name.length; ++index) {
+        if (toUpperASCII(data[start + index]) != name[index]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
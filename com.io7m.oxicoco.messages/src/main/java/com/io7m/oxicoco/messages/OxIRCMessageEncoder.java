@@ -0,0 +1,371 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.messages;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An encoder that serializes messages, including the terminating CRLF,
+ * directly to UTF-8 octets without constructing intermediate strings. Tag
+ * values are escaped as described by the IRCv3 message tags specification.
+ * The encoder is stateless and safe for concurrent use.
+ */
+
+public final class OxIRCMessageEncoder
+{
+  /**
+   * The encoder instance.
+   */
+
+  public static final OxIRCMessageEncoder INSTANCE = new OxIRCMessageEncoder();
+
+  private static final byte REPLACEMENT = (byte) '?';
+
+  private OxIRCMessageEncoder()
+  {
+
+  }
+
+  /**
+   * Determine the exact number of octets that {@link #encode(OxIRCMessageType, ByteBuffer)}
+   * will write for the given message.
+   *
+   * @param message The message
+   *
+   * @return The encoded size in octets, including the CRLF terminator
+   */
+
+  public int sizeOf(
+    final OxIRCMessageType message)
+  {
+    Objects.requireNonNull(message, "message");
+
+    final var prefix = message.prefix();
+    return sizeOfWithPrefix(
+      message, prefix.isEmpty() ? 0 : sizeOfText(prefix) + 1);
+  }
+
+  private static int sizeOfWithPrefix(
+    final OxIRCMessageType message,
+    final int prefixSize)
+  {
+    int size = prefixSize;
+
+    final var tags = message.tags();
+    if (!tags.isEmpty()) {
+      size += 2 + tags.size() - 1;
+      for (final var entry : tags.entrySet()) {
+        size += sizeOfText(entry.getKey());
+        final var value = entry.getValue();
+        if (!value.isEmpty()) {
+          size += 1 + sizeOfEscaped(value);
+        }
+      }
+    }
+
+    size += sizeOfText(message.command());
+
+    for (final var parameter : message.parameters()) {
+      size += 1 + sizeOfText(parameter);
+    }
+
+    final var trailing = message.trailing();
+    if (!trailing.isEmpty()) {
+      size += 1 + sizeOfText(trailing);
+    }
+    return size + 2;
+  }
+
+  /**
+   * Encode the given message into a new array.
+   *
+   * @param message The message
+   *
+   * @return The encoded message, including the CRLF terminator
+   */
+
+  public byte[] encode(
+    final OxIRCMessageType message)
+  {
+    final var data = new byte[this.sizeOf(message)];
+    this.encode(message, ByteBuffer.wrap(data));
+    return data;
+  }
+
+  /**
+   * Encode the given message into a new array, using the given octets as
+   * the encoded form of the message's prefix. This allows a prefix that is
+   * shared by many messages, such as that of a client, to be encoded once.
+   * The octets must be the UTF-8 encoding of {@link OxIRCMessageType#prefix()}.
+   *
+   * @param message The message
+   * @param prefix  The encoded prefix
+   *
+   * @return The encoded message, including the CRLF terminator
+   */
+
+  public byte[] encode(
+    final OxIRCMessageType message,
+    final byte[] prefix)
+  {
+    Objects.requireNonNull(message, "message");
+    Objects.requireNonNull(prefix, "prefix");
+
+    final var prefixSize = prefix.length == 0 ? 0 : prefix.length + 1;
+    final var data = new byte[sizeOfWithPrefix(message, prefixSize)];
+    final var target = ByteBuffer.wrap(data);
+    writeTags(message.tags(), target);
+    if (prefix.length != 0) {
+      target.put(prefix);
+      target.put((byte) ' ');
+    }
+    writeBody(message, target);
+    return data;
+  }
+
+  /**
+   * Encode the given message into the given buffer, starting at the
+   * buffer's current position. On success, the buffer's position is
+   * advanced past the CRLF terminator.
+   *
+   * @param message The message
+   * @param target  The target buffer
+   *
+   * @throws BufferOverflowException If the buffer does not have enough space
+   *                                 remaining; the buffer's position is left
+   *                                 unchanged
+   */
+
+  public void encode(
+    final OxIRCMessageType message,
+    final ByteBuffer target)
+    throws BufferOverflowException
+  {
+    Objects.requireNonNull(message, "message");
+    Objects.requireNonNull(target, "target");
+
+    final var start = target.position();
+    try {
+      writeTags(message.tags(), target);
+
+      final var prefix = message.prefix();
+      if (!prefix.isEmpty()) {
+        writeText(prefix, target);
+        target.put((byte) ' ');
+      }
+
+      writeBody(message, target);
+    } catch (final BufferOverflowException e) {
+      target.position(start);
+      throw e;
+    }
+  }
+
+  private static void writeBody(
+    final OxIRCMessageType message,
+    final ByteBuffer target)
+  {
+    writeText(message.command(), target);
+    writeParameters(message.parameters(), target);
+
+    final var trailing = message.trailing();
+    if (!trailing.isEmpty()) {
+      target.put((byte) ' ');
+      writeText(trailing, target);
+    }
+
+    target.put((byte) '\r');
+    target.put((byte) '\n');
+  }
+
+  private static void writeTags(
+    final Map<String, String> tags,
+    final ByteBuffer target)
+  {
+    if (tags.isEmpty()) {
+      return;
+    }
+
+    target.put((byte) '@');
+    boolean first = true;
+    for (final var entry : tags.entrySet()) {
+      if (!first) {
+        target.put((byte) ';');
+      }
+      first = false;
+
+      writeText(entry.getKey(), target);
+      final var value = entry.getValue();
+      if (!value.isEmpty()) {
+        target.put((byte) '=');
+        writeEscaped(value, target);
+      }
+    }
+    target.put((byte) ' ');
+  }
+
+  private static void writeParameters(
+    final List<String> parameters,
+    final ByteBuffer target)
+  {
+    for (int index = 0; index < parameters.size(); ++index) {
+      target.put((byte) ' ');
+      writeText(parameters.get(index), target);
+    }
+  }
+
+  private static int sizeOfText(
+    final String text)
+  {
+    final var length = text.length();
+    int size = 0;
+    int index = 0;
+    while (index < length) {
+      final var c = text.charAt(index);
+      if (c < 0x80) {
+        size += 1;
+      } else if (c < 0x800) {
+        size += 2;
+      } else if (isSurrogatePairAt(text, index)) {
+        size += 4;
+        ++index;
+      } else if (Character.isSurrogate(c)) {
+        size += 1;
+      } else {
+        size += 3;
+      }
+      ++index;
+    }
+    return size;
+  }
+
+  private static int sizeOfEscaped(
+    final String text)
+  {
+    int escapes = 0;
+    for (int index = 0; index < text.length(); ++index) {
+      if (escapeOf(text.charAt(index)) != 0) {
+        ++escapes;
+      }
+    }
+    return sizeOfText(text) + escapes;
+  }
+
+  private static boolean isSurrogatePairAt(
+    final String text,
+    final int index)
+  {
+    return Character.isHighSurrogate(text.charAt(index))
+      && index + 1 < text.length()
+      && Character.isLowSurrogate(text.charAt(index + 1));
+  }
+
+  /**
+   * @return The character that follows a backslash in the escaped form of
+   * {@code c}, or {@code 0} if {@code c} is not escaped
+   */
+
+  private static char escapeOf(
+    final char c)
+  {
+    return switch (c) {
+      case ';' -> ':';
+      case ' ' -> 's';
+      case '\\' -> '\\';
+      case '\r' -> 'r';
+      case '\n' -> 'n';
+      default -> 0;
+    };
+  }
+
+  private static void writeEscaped(
+    final String text,
+    final ByteBuffer target)
+  {
+    final var length = text.length();
+    int index = 0;
+    while (index < length) {
+      final var escape = escapeOf(text.charAt(index));
+      if (escape != 0) {
+        target.put((byte) '\\');
+        target.put((byte) escape);
+        ++index;
+      } else {
+        index += writeChar(text, index, target);
+      }
+    }
+  }
+
+  private static void writeText(
+    final String text,
+    final ByteBuffer target)
+  {
+    final var length = text.length();
+    int index = 0;
+    while (index < length) {
+      index += writeChar(text, index, target);
+    }
+  }
+
+  /**
+   * Write the UTF-8 encoding of the character at {@code index}. Unpaired
+   * surrogates are replaced with {@code ?}, as {@link String#getBytes} does.
+   *
+   * @return The number of characters consumed
+   */
+
+  private static int writeChar(
+    final String text,
+    final int index,
+    final ByteBuffer target)
+  {
+    final var c = text.charAt(index);
+    if (c < 0x80) {
+      target.put((byte) c);
+      return 1;
+    }
+
+    if (c < 0x800) {
+      target.put((byte) (0xc0 | (c >> 6)));
+      target.put((byte) (0x80 | (c & 0x3f)));
+      return 1;
+    }
+
+    if (isSurrogatePairAt(text, index)) {
+      final var code = Character.toCodePoint(c, text.charAt(index + 1));
+      target.put((byte) (0xf0 | (code >> 18)));
+      target.put((byte) (0x80 | ((code >> 12) & 0x3f)));
+      target.put((byte) (0x80 | ((code >> 6) & 0x3f)));
+      target.put((byte) (0x80 | (code & 0x3f)));
+      return 2;
+    }
+
+    if (Character.isSurrogate(c)) {
+      target.put(REPLACEMENT);
+      return 1;
+    }
+
+    target.put((byte) (0xe0 | (c >> 12)));
+    target.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+    target.put((byte) (0x80 | (c & 0x3f)));
+    return 1;
+  }
+}
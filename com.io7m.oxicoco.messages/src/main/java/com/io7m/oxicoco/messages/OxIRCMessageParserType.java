@@ -16,8 +16,12 @@
 
 package com.io7m.oxicoco.messages;
 
+import java.nio.ByteBuffer;
+import java.util.Objects;
 import java.util.Optional;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
  * The type of message parsers.
  */
@@ -33,4 +37,27 @@ public interface OxIRCMessageParserType
    */
 
   Optional<OxIRCMessage> parse(String line);
+
+  /**
+   * Parse a message from UTF-8 encoded bytes. The bytes must not include a
+   * line terminator.
+   *
+   * @param data   The input data
+   * @param offset The offset of the first byte of the line
+   * @param length The number of bytes in the line
+   *
+   * @return A parsed message, if one could be parsed
+   */
+
+  default Optional<OxIRCMessage> parse(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    Objects.requireNonNull(data, "data");
+    Objects.checkFromIndexSize(offset, length, data.length);
+    return this.parse(
+      UTF_8.decode(ByteBuffer.wrap(data, offset, length)).toString()
+    );
+  }
 }
@@ -20,6 +20,8 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
  * A factory of message parsers.
  */
@@ -55,6 +57,21 @@ public final class OxIRCMessageParsers implements OxIRCMessageParserFactoryType
     {
       Objects.requireNonNull(line, "line");
 
+      final var event = new OxIRCMessageParseEvent();
+      event.begin();
+
+      final var result = this.parseLine(line);
+      if (event.shouldCommit()) {
+        event.command = result.map(OxIRCMessage::command).orElse("");
+        event.octets = line.getBytes(UTF_8).length;
+        event.commit();
+      }
+      return result;
+    }
+
+    private Optional<OxIRCMessage> parseLine(
+      final String line)
+    {
       if (line.isBlank()) {
         return Optional.empty();
       }
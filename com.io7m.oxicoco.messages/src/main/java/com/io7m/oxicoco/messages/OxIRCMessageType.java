@@ -31,6 +31,12 @@ import java.util.stream.Collectors;
 @Value.Immutable
 public interface OxIRCMessageType
 {
+  /**
+   * The command identifier used for commands that were not recognized.
+   */
+
+  int COMMAND_UNKNOWN = -1;
+
   private static String formatEntry(
     final Map.Entry<String, String> entry)
   {
@@ -66,6 +72,21 @@ public interface OxIRCMessageType
 
   String command();
 
+  /**
+   * The identifier of the command, if the parser that produced the message
+   * recognized the command as one of a set of known commands. The
+   * identifier is not considered when comparing messages.
+   *
+   * @return The command identifier, or {@link #COMMAND_UNKNOWN}
+   */
+
+  @Value.Default
+  @Value.Auxiliary
+  default int commandId()
+  {
+    return COMMAND_UNKNOWN;
+  }
+
   /**
    * @return The message parameters
    */
@@ -25,5 +25,7 @@ module com.io7m.oxicoco.messages
   requires static org.osgi.annotation.bundle;
   requires static org.osgi.annotation.versioning;
 
+  requires jdk.jfr;
+
   exports com.io7m.oxicoco.messages;
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.names;
+
+import java.util.Objects;
+
+/**
+ * The case mappings used to decide whether two nick or channel names refer
+ * to the same entity. Each mapping folds a name to a canonical key; two
+ * names are equivalent if their keys are equal. The key of a name is
+ * computed once, the first time it is requested, and is cached on the name.
+ */
+
+public enum OxCaseMapping
+{
+  /**
+   * The letters {@code A-Z} are equivalent to {@code a-z}.
+   */
+
+  ASCII("ascii") {
+    @Override
+    char fold(
+      final char c)
+    {
+      if (c >= 'A' && c <= 'Z') {
+        return (char) (c + ('a' - 'A'));
+      }
+      return c;
+    }
+  },
+
+  /**
+   * The letters {@code A-Z} are equivalent to {@code a-z}, the characters
+   * {@code []\} are equivalent to {@code {}|}, and {@code ~} is equivalent
+   * to {@code ^}, as described by RFC 1459.
+   */
+
+  RFC1459("rfc1459") {
+    @Override
+    char fold(
+      final char c)
+    {
+      if (c >= 'A' && c <= ']') {
+        return (char) (c + ('a' - 'A'));
+      }
+      if (c == '~') {
+        return '^';
+      }
+      return c;
+    }
+  };
+
+  private final String tokenName;
+  private final OxNameInterner<OxNameKey> keys;
+
+  OxCaseMapping(
+    final String inTokenName)
+  {
+    this.tokenName = Objects.requireNonNull(inTokenName, "tokenName");
+    this.keys = new OxNameInterner<>(text -> new OxNameKey(this, text));
+  }
+
+  /**
+   * @return The name of the mapping as used in the ISUPPORT
+   * {@code CASEMAPPING} token
+   */
+
+  public String tokenName()
+  {
+    return this.tokenName;
+  }
+
+  abstract char fold(char c);
+
+  /**
+   * Fold the given text to its canonical key. If the text is already in
+   * canonical form, the text itself is returned and nothing is allocated.
+   *
+   * @param text The text
+   *
+   * @return The folded text
+   */
+
+  public String fold(
+    final String text)
+  {
+    Objects.requireNonNull(text, "text");
+
+    final var length = text.length();
+    int index = 0;
+    while (index < length) {
+      final var c = text.charAt(index);
+      if (this.fold(c) != c) {
+        break;
+      }
+      ++index;
+    }
+
+    if (index == length) {
+      return text;
+    }
+
+    final var folded = new char[length];
+    text.getChars(0, index, folded, 0);
+    for (; index < length; ++index) {
+      folded[index] = this.fold(text.charAt(index));
+    }
+    return String.valueOf(folded);
+  }
+
+  /**
+   * Fold the given text and return the canonical key instance for the
+   * result.
+   *
+   * @param text The text
+   *
+   * @return The key of the given text
+   */
+
+  public OxNameKey keyOf(
+    final String text)
+  {
+    return this.keys.intern(this.fold(text));
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The key of the given nick name
+   */
+
+  public OxNameKey keyOf(
+    final OxNickName name)
+  {
+    return switch (this) {
+      case ASCII -> name.keyASCII();
+      case RFC1459 -> name.keyRFC1459();
+    };
+  }
+
+  /**
+   * @param name The name
+   *
+   * @return The key of the given channel name
+   */
+
+  public OxNameKey keyOf(
+    final OxChannelName name)
+  {
+    return switch (this) {
+      case ASCII -> name.keyASCII();
+      case RFC1459 -> name.keyRFC1459();
+    };
+  }
+}
@@ -24,7 +24,7 @@ import org.immutables.value.Value;
  */
 
 @ImmutablesStyleType
-@Value.Immutable
+@Value.Immutable(prehash = true)
 public interface OxChannelNameType extends Comparable<OxChannelNameType>
 {
   /**
@@ -34,6 +34,30 @@ public interface OxChannelNameType extends Comparable<OxChannelNameType>
   @Value.Parameter
   String value();
 
+  /**
+   * @return The key of the channel name under the ASCII case mapping
+   *
+   * @see OxCaseMapping#keyOf(OxChannelName)
+   */
+
+  @Value.Lazy
+  default OxNameKey keyASCII()
+  {
+    return OxCaseMapping.ASCII.keyOf(this.value());
+  }
+
+  /**
+   * @return The key of the channel name under the RFC 1459 case mapping
+   *
+   * @see OxCaseMapping#keyOf(OxChannelName)
+   */
+
+  @Value.Lazy
+  default OxNameKey keyRFC1459()
+  {
+    return OxCaseMapping.RFC1459.keyOf(this.value());
+  }
+
   /**
    * Check preconditions for the type.
    */
@@ -28,8 +28,41 @@ public final class OxChannelNames extends OxNameChecker
 
   public static final OxChannelNames INSTANCE = new OxChannelNames();
 
+  private final OxNameInterner<OxChannelName> interner;
+
   private OxChannelNames()
   {
     super("#[A-Za-z0-9_]{1,31}");
+    this.interner = new OxNameInterner<>(OxChannelName::of);
+  }
+
+  @Override
+  protected boolean check(
+    final String text)
+  {
+    final var length = text.length();
+    if (length < 2 || length > 32 || text.charAt(0) != '#') {
+      return false;
+    }
+    return isIdentifierTail(text, 1);
+  }
+
+  /**
+   * Intern a name. If the name is live, the existing instance is returned.
+   *
+   * @param text The name text
+   *
+   * @return The canonical instance of the name
+   *
+   * @throws IllegalArgumentException If the name is not valid
+   *
+   * @see OxNameInterner
+   */
+
+  public OxChannelName intern(
+    final String text)
+    throws IllegalArgumentException
+  {
+    return this.interner.intern(text);
   }
 }
@@ -17,30 +17,91 @@
 package com.io7m.oxicoco.names;
 
 import java.util.Objects;
-import java.util.regex.Pattern;
+
+/**
+ * The base type of name checkers. Checkers validate names in a single pass
+ * over the characters of the name, using ASCII lookup tables, and do not
+ * allocate.
+ */
 
 abstract class OxNameChecker
 {
-  private final Pattern pattern;
+  private static final boolean[] LETTER_OR_UNDERSCORE =
+    asciiTable("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz_");
+  private static final boolean[] LETTER_DIGIT_OR_UNDERSCORE =
+    asciiTable(
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789_");
+
+  private final String description;
 
-  private OxNameChecker(
-    final Pattern inValid)
+  protected OxNameChecker(
+    final String inDescription)
   {
-    this.pattern = Objects.requireNonNull(inValid, "valid");
+    this.description =
+      Objects.requireNonNull(inDescription, "description");
   }
 
-  protected OxNameChecker(
-    final String inPattern)
+  protected static boolean[] asciiTable(
+    final String members)
   {
-    this(Pattern.compile(Objects.requireNonNull(inPattern, "pattern")));
+    final var table = new boolean[128];
+    for (int index = 0; index < members.length(); ++index) {
+      table[members.charAt(index)] = true;
+    }
+    return table;
   }
 
+  protected static boolean isMember(
+    final boolean[] table,
+    final char c)
+  {
+    return c < table.length && table[c];
+  }
+
+  /**
+   * Check that {@code text} consists of a letter or underscore followed by
+   * at most {@code maximum - 1} letters, digits, or underscores.
+   */
+
+  protected static boolean isIdentifier(
+    final String text,
+    final int maximum)
+  {
+    final var length = text.length();
+    if (length == 0 || length > maximum) {
+      return false;
+    }
+    if (!isMember(LETTER_OR_UNDERSCORE, text.charAt(0))) {
+      return false;
+    }
+    return isIdentifierTail(text, 1);
+  }
+
+  /**
+   * Check that {@code text} consists only of letters, digits, or underscores
+   * from {@code start} onwards.
+   */
+
+  protected static boolean isIdentifierTail(
+    final String text,
+    final int start)
+  {
+    final var length = text.length();
+    for (int index = start; index < length; ++index) {
+      if (!isMember(LETTER_DIGIT_OR_UNDERSCORE, text.charAt(index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected abstract boolean check(
+    String text);
+
   public final boolean isValid(
     final String text)
   {
-    return this.pattern.matcher(
-      Objects.requireNonNull(text, "text")
-    ).matches();
+    return this.check(Objects.requireNonNull(text, "text"));
   }
 
   public final void checkValid(
@@ -52,7 +113,7 @@ abstract class OxNameChecker
           .append("Invalid name.")
           .append('\n')
           .append("  Expected: ")
-          .append(this.pattern)
+          .append(this.description)
           .append('\n')
           .append("  Received: ")
           .append(text)
@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.names;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A registry of canonical name instances. Names are held weakly, and so a
+ * name remains in the registry for as long as something else (such as a
+ * channel or a registered nick) refers to it. Interning a name that is
+ * already live returns the existing instance without validating the name
+ * again. The registry is safe for concurrent use.
+ *
+ * @param <T> The type of names
+ */
+
+public final class OxNameInterner<T>
+{
+  private final Function<String, T> constructor;
+  private final ConcurrentHashMap<String, Entry<T>> entries;
+  private final ReferenceQueue<T> queue;
+
+  /**
+   * Create an interner.
+   *
+   * @param inConstructor A function that validates and constructs names
+   */
+
+  public OxNameInterner(
+    final Function<String, T> inConstructor)
+  {
+    this.constructor =
+      Objects.requireNonNull(inConstructor, "constructor");
+    this.entries =
+      new ConcurrentHashMap<>();
+    this.queue =
+      new ReferenceQueue<>();
+  }
+
+  /**
+   * Intern a name.
+   *
+   * @param text The name text
+   *
+   * @return The canonical instance of the name
+   *
+   * @throws IllegalArgumentException If the name is not valid
+   */
+
+  public T intern(
+    final String text)
+    throws IllegalArgumentException
+  {
+    Objects.requireNonNull(text, "text");
+
+    final var existing = this.entries.get(text);
+    if (existing != null) {
+      final var value = existing.get();
+      if (value != null) {
+        return value;
+      }
+    }
+
+    this.expunge();
+
+    final var created = this.constructor.apply(text);
+    final var entry = new Entry<>(text, created, this.queue);
+    while (true) {
+      final var previous = this.entries.putIfAbsent(text, entry);
+      if (previous == null) {
+        return created;
+      }
+      final var value = previous.get();
+      if (value != null) {
+        return value;
+      }
+      if (this.entries.replace(text, previous, entry)) {
+        return created;
+      }
+    }
+  }
+
+  /**
+   * @return The number of names in the registry, including names that are
+   * no longer live but have not yet been removed
+   */
+
+  public int size()
+  {
+    this.expunge();
+    return this.entries.size();
+  }
+
+  private void expunge()
+  {
+    while (true) {
+      final Reference<? extends T> reference = this.queue.poll();
+      if (reference == null) {
+        return;
+      }
+      final var entry = (Entry<?>) reference;
+      this.entries.remove(entry.key, entry);
+    }
+  }
+
+  private static final class Entry<T> extends WeakReference<T>
+  {
+    private final String key;
+
+    Entry(
+      final String inKey,
+      final T inValue,
+      final ReferenceQueue<? super T> inQueue)
+    {
+      super(inValue, inQueue);
+      this.key = Objects.requireNonNull(inKey, "key");
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.names;
+
+import java.util.Objects;
+
+/**
+ * The key of a name under a case mapping. Keys are interned by their case
+ * mapping, and so all of the names that are equivalent under a mapping
+ * share a single key instance while any of them is live. A key computes
+ * its hash code once, and comparing two keys obtained from live names is
+ * an identity comparison.
+ *
+ * @see OxCaseMapping#keyOf(OxNickName)
+ * @see OxCaseMapping#keyOf(OxChannelName)
+ */
+
+public final class OxNameKey
+{
+  private final OxCaseMapping caseMapping;
+  private final String value;
+  private final int hash;
+
+  OxNameKey(
+    final OxCaseMapping inCaseMapping,
+    final String inValue)
+  {
+    this.caseMapping =
+      Objects.requireNonNull(inCaseMapping, "caseMapping");
+    this.value =
+      Objects.requireNonNull(inValue, "value");
+    this.hash =
+      31 * inCaseMapping.ordinal() + inValue.hashCode();
+  }
+
+  /**
+   * @return The case mapping that produced the key
+   */
+
+  public OxCaseMapping caseMapping()
+  {
+    return this.caseMapping;
+  }
+
+  /**
+   * @return The folded name text
+   */
+
+  public String value()
+  {
+    return this.value;
+  }
+
+  @Override
+  public boolean equals(
+    final Object other)
+  {
+    if (this == other) {
+      return true;
+    }
+    if (other instanceof OxNameKey key) {
+      return this.hash == key.hash
+        && this.caseMapping == key.caseMapping
+        && this.value.equals(key.value);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return this.hash;
+  }
+
+  @Override
+  public String toString()
+  {
+    return this.value;
+  }
+}
@@ -28,8 +28,37 @@ public final class OxNickNames extends OxNameChecker
 
   public static final OxNickNames INSTANCE = new OxNickNames();
 
+  private final OxNameInterner<OxNickName> interner;
+
   private OxNickNames()
   {
     super("[A-Za-z_][A-Za-z0-9_]{0,31}");
+    this.interner = new OxNameInterner<>(OxNickName::of);
+  }
+
+  @Override
+  protected boolean check(
+    final String text)
+  {
+    return isIdentifier(text, 32);
+  }
+
+  /**
+   * Intern a name. If the name is live, the existing instance is returned.
+   *
+   * @param text The name text
+   *
+   * @return The canonical instance of the name
+   *
+   * @throws IllegalArgumentException If the name is not valid
+   *
+   * @see OxNameInterner
+   */
+
+  public OxNickName intern(
+    final String text)
+    throws IllegalArgumentException
+  {
+    return this.interner.intern(text);
   }
 }
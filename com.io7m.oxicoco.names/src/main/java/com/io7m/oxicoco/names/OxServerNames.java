@@ -22,6 +22,11 @@ package com.io7m.oxicoco.names;
 
 public final class OxServerNames extends OxNameChecker
 {
+  private static final boolean[] LOWER =
+    asciiTable("abcdefghijklmnopqrstuvwxyz");
+  private static final boolean[] LABEL =
+    asciiTable("abcdefghijklmnopqrstuvwxyz0123456789_-");
+
   /**
    * The checker instance.
    */
@@ -32,4 +37,26 @@ public final class OxServerNames extends OxNameChecker
   {
     super("[a-z][a-z0-9_-]*(\\.[a-z][a-z0-9_-]*)*");
   }
+
+  @Override
+  protected boolean check(
+    final String text)
+  {
+    final var length = text.length();
+    boolean labelStart = true;
+    for (int index = 0; index < length; ++index) {
+      final var c = text.charAt(index);
+      if (labelStart) {
+        if (!isMember(LOWER, c)) {
+          return false;
+        }
+        labelStart = false;
+      } else if (c == '.') {
+        labelStart = true;
+      } else if (!isMember(LABEL, c)) {
+        return false;
+      }
+    }
+    return !labelStart;
+  }
 }
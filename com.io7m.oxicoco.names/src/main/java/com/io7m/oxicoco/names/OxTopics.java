@@ -30,6 +30,42 @@ public final class OxTopics extends OxNameChecker
 
   private OxTopics()
   {
-    super("[^\0\r\n]{0,256}");
+    super("[^\\0\\r\\n]{0,256}");
+  }
+
+  /*
+   * The limit is expressed in code points rather than UTF-16 code units, and
+   * so a surrogate pair counts as a single character. Unpaired surrogates
+   * count as one character each.
+   */
+
+  @Override
+  protected boolean check(
+    final String text)
+  {
+    final var length = text.length();
+    if (length > 512) {
+      return false;
+    }
+
+    int count = 0;
+    int index = 0;
+    while (index < length) {
+      final var c = text.charAt(index);
+      if (c == '\0' || c == '\r' || c == '\n') {
+        return false;
+      }
+      if (Character.isHighSurrogate(c)
+        && index + 1 < length
+        && Character.isLowSurrogate(text.charAt(index + 1))) {
+        index += 2;
+      } else {
+        index += 1;
+      }
+      if (++count > 256) {
+        return false;
+      }
+    }
+    return true;
   }
 }
@@ -32,4 +32,11 @@ public final class OxUserNames extends OxNameChecker
   {
     super("[A-Za-z_][A-Za-z0-9_]{0,31}");
   }
+
+  @Override
+  protected boolean check(
+    final String text)
+  {
+    return isIdentifier(text, 32);
+  }
 }
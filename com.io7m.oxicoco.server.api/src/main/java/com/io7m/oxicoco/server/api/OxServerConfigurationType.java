@@ -17,6 +17,7 @@
 package com.io7m.oxicoco.server.api;
 
 import com.io7m.immutables.styles.ImmutablesStyleType;
+import com.io7m.oxicoco.names.OxCaseMapping;
 import com.io7m.oxicoco.names.OxServerName;
 import org.immutables.value.Value;
 
@@ -59,4 +60,196 @@ public interface OxServerConfigurationType
    */
 
   Optional<String> banner();
+
+  /**
+   * @return The kind of threads used to run client sessions and port handlers
+   */
+
+  @Value.Default
+  default OxServerThreadMode threadMode()
+  {
+    return OxServerThreadMode.PLATFORM_THREADS;
+  }
+
+  /**
+   * @return The number of event loop threads shared by all ports that use
+   * the {@link OxServerTransport#EVENT_LOOP} transport
+   */
+
+  @Value.Default
+  default int eventLoopThreads()
+  {
+    return Math.max(1, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @return The maximum number of messages that may be queued for delivery
+   * to a single client
+   */
+
+  @Value.Default
+  default int outboundQueueLimitMessages()
+  {
+    return 4096;
+  }
+
+  /**
+   * @return The maximum number of octets that may be queued for delivery to
+   * a single client
+   */
+
+  @Value.Default
+  default long outboundQueueLimitOctets()
+  {
+    return 1_048_576L;
+  }
+
+  /**
+   * @return The action taken when a client's outbound queue exceeds its
+   * limits
+   */
+
+  @Value.Default
+  default OxSlowConsumerPolicy slowConsumerPolicy()
+  {
+    return OxSlowConsumerPolicy.DISCONNECT;
+  }
+
+  /**
+   * Input lines are limited to 512 octets, plus an additional budget for an
+   * IRCv3 message tag section. A value of {@code 0} gives tag sections no
+   * budget of their own, in which case tags count towards the 512 octet
+   * limit.
+   *
+   * @return The maximum size of the tag section of an input line in octets
+   */
+
+  @Value.Default
+  default int inputTagLimitOctets()
+  {
+    return 8191;
+  }
+
+  /**
+   * @return The case mapping used to compare nick and channel names
+   */
+
+  @Value.Default
+  default OxCaseMapping caseMapping()
+  {
+    return OxCaseMapping.RFC1459;
+  }
+
+  /**
+   * @return The maximum number of concurrent connections from a single
+   * address prefix
+   */
+
+  @Value.Default
+  default int connectionLimitPerAddress()
+  {
+    return 256;
+  }
+
+  /**
+   * @return The sustained rate, in connections per second, at which a
+   * single address prefix may connect
+   */
+
+  @Value.Default
+  default double connectRatePerAddress()
+  {
+    return 16.0;
+  }
+
+  /**
+   * @return The number of connections that a single address prefix may make
+   * in a burst before it is limited to {@link #connectRatePerAddress()}
+   */
+
+  @Value.Default
+  default int connectBurstPerAddress()
+  {
+    return 64;
+  }
+
+  /**
+   * Connection limits apply to the network prefix of the connecting address
+   * rather than to the address itself. A prefix length of {@code 32} limits
+   * each IPv4 address individually, whilst shorter prefixes limit entire
+   * networks.
+   *
+   * @return The prefix length in bits used to group IPv4 addresses
+   */
+
+  @Value.Default
+  default int connectionLimitPrefixIPv4()
+  {
+    return 32;
+  }
+
+  /**
+   * Hosts are commonly assigned an entire IPv6 {@code /64}, and so the
+   * default prefix length groups addresses by network.
+   *
+   * @return The prefix length in bits used to group IPv6 addresses
+   */
+
+  @Value.Default
+  default int connectionLimitPrefixIPv6()
+  {
+    return 64;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.eventLoopThreads() <= 0) {
+      throw new IllegalArgumentException(
+        "The number of event loop threads must be positive");
+    }
+    if (this.outboundQueueLimitMessages() <= 0) {
+      throw new IllegalArgumentException(
+        "The outbound queue message limit must be positive");
+    }
+    if (this.outboundQueueLimitOctets() <= 0L) {
+      throw new IllegalArgumentException(
+        "The outbound queue octet limit must be positive");
+    }
+    if (this.inputTagLimitOctets() < 0) {
+      throw new IllegalArgumentException(
+        "The input tag limit must be non-negative");
+    }
+    this.checkConnectionLimits();
+  }
+
+  private void checkConnectionLimits()
+  {
+    if (this.connectionLimitPerAddress() <= 0) {
+      throw new IllegalArgumentException(
+        "The per-address connection limit must be positive");
+    }
+    if (!(this.connectRatePerAddress() > 0.0)) {
+      throw new IllegalArgumentException(
+        "The per-address connection rate must be positive");
+    }
+    if (this.connectBurstPerAddress() <= 0) {
+      throw new IllegalArgumentException(
+        "The per-address connection burst must be positive");
+    }
+    if (this.connectionLimitPrefixIPv4() < 0
+      || this.connectionLimitPrefixIPv4() > 32) {
+      throw new IllegalArgumentException(
+        "The IPv4 connection limit prefix must be in the range [0, 32]");
+    }
+    if (this.connectionLimitPrefixIPv6() < 0
+      || this.connectionLimitPrefixIPv6() > 128) {
+      throw new IllegalArgumentException(
+        "The IPv6 connection limit prefix must be in the range [0, 128]");
+    }
+  }
 }
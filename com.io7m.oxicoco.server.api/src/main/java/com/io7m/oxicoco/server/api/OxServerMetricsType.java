@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.api;
+
+import com.io7m.oxicoco.errors.OxIRCErrorCode;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A live view of the metrics collected by a server. Values are read from
+ * counters that are updated concurrently, and so a set of values read in
+ * succession are not guaranteed to be mutually consistent.
+ */
+
+public interface OxServerMetricsType
+{
+  /**
+   * @return The metrics for each port, in configuration order
+   */
+
+  List<OxServerPortMetricsType> ports();
+
+  /**
+   * @return The number of times each known command has been executed
+   */
+
+  Map<String, Long> commands();
+
+  /**
+   * @return The number of commands received that were not recognized
+   */
+
+  long commandsUnknown();
+
+  /**
+   * @return The number of times each error has been sent to clients; errors
+   * that have never been sent are omitted
+   */
+
+  Map<OxIRCErrorCode, Long> errors();
+
+  /**
+   * @return The number of messages currently queued across all clients
+   */
+
+  long queuedMessages();
+
+  /**
+   * @return The number of octets currently queued across all clients
+   */
+
+  long queuedOctets();
+
+  /**
+   * @return The largest number of octets ever queued for a single client
+   */
+
+  long queuedOctetsMaximum();
+}
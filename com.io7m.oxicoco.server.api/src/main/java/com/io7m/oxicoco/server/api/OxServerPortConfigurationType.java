@@ -46,4 +46,58 @@ public interface OxServerPortConfigurationType
    */
 
   boolean enableTLS();
+
+  /**
+   * @return The transport used to serve clients connected to this port
+   */
+
+  @Value.Default
+  default OxServerTransport transport()
+  {
+    return OxServerTransport.THREAD_PER_CLIENT;
+  }
+
+  /**
+   * @return The maximum number of connections that the operating system
+   * will queue for the port before they are accepted
+   */
+
+  @Value.Default
+  default int acceptBacklog()
+  {
+    return 128;
+  }
+
+  /**
+   * @return The number of threads that accept connections for the port.
+   * Ports using the {@link OxServerTransport#EVENT_LOOP} transport always
+   * use a single acceptor thread.
+   */
+
+  @Value.Default
+  default int acceptorThreads()
+  {
+    return 1;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.enableTLS() && this.transport() == OxServerTransport.EVENT_LOOP) {
+      throw new IllegalArgumentException(
+        "TLS is not supported by the EVENT_LOOP transport");
+    }
+    if (this.acceptBacklog() < 1) {
+      throw new IllegalArgumentException(
+        "Accept backlog must be positive");
+    }
+    if (this.acceptorThreads() < 1) {
+      throw new IllegalArgumentException(
+        "Acceptor thread count must be positive");
+    }
+  }
 }
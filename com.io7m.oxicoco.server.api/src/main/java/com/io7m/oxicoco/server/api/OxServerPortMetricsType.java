@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.api;
+
+/**
+ * A live view of the metrics collected for a single server port.
+ */
+
+public interface OxServerPortMetricsType
+{
+  /**
+   * @return The port configuration
+   */
+
+  OxServerPortConfiguration port();
+
+  /**
+   * @return The number of connections accepted
+   */
+
+  long accepts();
+
+  /**
+   * @return The number of clients that have disconnected
+   */
+
+  long disconnects();
+
+  /**
+   * @return The number of connections refused by admission control
+   */
+
+  long refusals();
+
+  /**
+   * @return The number of octets received from clients
+   */
+
+  long octetsReceived();
+
+  /**
+   * @return The number of octets sent to clients
+   */
+
+  long octetsSent();
+
+  /**
+   * @return The number of lines received from clients
+   */
+
+  long linesReceived();
+
+  /**
+   * @return The number of lines sent to clients
+   */
+
+  long linesSent();
+}
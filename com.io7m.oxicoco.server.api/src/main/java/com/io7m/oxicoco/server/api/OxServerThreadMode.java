@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.api;
+
+/**
+ * The kinds of threads used to run client sessions and port handlers.
+ */
+
+public enum OxServerThreadMode
+{
+  /**
+   * Client sessions and port handlers run on platform threads. Each
+   * thread-per-client connection occupies operating system threads for its
+   * entire lifetime.
+   */
+
+  PLATFORM_THREADS,
+
+  /**
+   * Client sessions and port handlers run on virtual threads. Blocked
+   * connections do not occupy operating system threads, and so the
+   * thread-per-client transport can hold very large numbers of mostly idle
+   * connections.
+   */
+
+  VIRTUAL_THREADS
+}
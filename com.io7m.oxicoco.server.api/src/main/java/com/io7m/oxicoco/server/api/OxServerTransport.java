@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.api;
+
+/**
+ * The I/O models available for serving client connections.
+ */
+
+public enum OxServerTransport
+{
+  /**
+   * Each client is served by a dedicated thread that performs blocking
+   * reads and writes on the client's socket.
+   */
+
+  THREAD_PER_CLIENT,
+
+  /**
+   * Clients are multiplexed over a small fixed set of event loop threads
+   * that perform non-blocking reads and writes. TLS is not supported by
+   * this transport.
+   */
+
+  EVENT_LOOP
+}
@@ -32,4 +32,10 @@ public interface OxServerType extends Closeable
    */
 
   CompletableFuture<Void> start();
+
+  /**
+   * @return The metrics collected by the server
+   */
+
+  OxServerMetricsType metrics();
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.api;
+
+/**
+ * The action taken when a client's outbound queue exceeds its limits.
+ */
+
+public enum OxSlowConsumerPolicy
+{
+  /**
+   * The client is sent an ERROR message and disconnected.
+   */
+
+  DISCONNECT,
+
+  /**
+   * The oldest queued messages are discarded until the queue is back within
+   * its limits.
+   */
+
+  DROP_OLDEST,
+
+  /**
+   * The server stops reading commands from the client until the queue has
+   * drained to half of its limits. This prevents a client from flooding its
+   * own queue with replies. If messages from other clients continue to fill
+   * the queue to twice its limits, the client is disconnected.
+   */
+
+  STOP_READING
+}
@@ -25,6 +25,7 @@ module com.io7m.oxicoco.server.api
   requires static org.osgi.annotation.bundle;
   requires static org.osgi.annotation.versioning;
 
+  requires transitive com.io7m.oxicoco.errors;
   requires com.io7m.oxicoco.names;
 
   exports com.io7m.oxicoco.server.api;
@@ -16,21 +16,26 @@
 
 package com.io7m.oxicoco.server.vanilla;
 
-import com.io7m.oxicoco.messages.OxIRCMessageParsers;
+import com.io7m.oxicoco.messages.OxIRCMessageByteParsers;
 import com.io7m.oxicoco.server.api.OxServerConfiguration;
 import com.io7m.oxicoco.server.api.OxServerFactoryType;
+import com.io7m.oxicoco.server.api.OxServerTransport;
 import com.io7m.oxicoco.server.api.OxServerType;
 import com.io7m.oxicoco.server.vanilla.internal.OxServer;
-import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientIDAllocator;
 import com.io7m.oxicoco.server.vanilla.internal.OxServerController;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventLoopGroup;
 
-import javax.net.ServerSocketFactory;
 import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.time.Clock;
 import java.util.Objects;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
@@ -55,7 +60,8 @@ public final class OxServers implements OxServerFactoryType
    * The default provider of servers.
    *
    * @param inClock  A clock used to track time
-   * @param inRandom A random number generator
+   * @param inRandom A random number generator used to key client ID
+   *                 allocators
    */
 
   public OxServers(
@@ -70,11 +76,46 @@ public final class OxServers implements OxServerFactoryType
 
   private static SecureRandom defaultRandom()
   {
-    try {
-      return SecureRandom.getInstanceStrong();
-    } catch (final NoSuchAlgorithmException e) {
-      throw new IllegalStateException(e);
-    }
+    /*
+     * The default SecureRandom implementation is seeded from a non-blocking
+     * source; the "strong" instance can block for long periods waiting for
+     * entropy on freshly started machines.
+     */
+
+    return new SecureRandom();
+  }
+
+  private static ExecutorService createPlatformMainExecutor()
+  {
+    return Executors.newCachedThreadPool(r -> {
+      final var th = new Thread(r);
+      th.setName("com.io7m.oxicoco.server");
+      return th;
+    });
+  }
+
+  private static ExecutorService createPlatformClientExecutor()
+  {
+    return Executors.newCachedThreadPool(r -> {
+      final var th = new Thread(r);
+      th.setName(String.format(
+        "com.io7m.oxicoco.server.client[%d]",
+        Long.valueOf(th.getId()))
+      );
+      return th;
+    });
+  }
+
+  private static ExecutorService createVirtualClientExecutor()
+  {
+    return Executors.newThreadPerTaskExecutor(r -> {
+      final var th = Thread.ofVirtual().unstarted(r);
+      th.setName(String.format(
+        "com.io7m.oxicoco.server.client[%d]",
+        Long.valueOf(th.threadId()))
+      );
+      return th;
+    });
   }
 
   @Override
@@ -83,46 +124,66 @@ public final class OxServers implements OxServerFactoryType
   {
     Objects.requireNonNull(configuration, "configuration");
 
-    final var serverMain =
-      Executors.newCachedThreadPool(r -> {
-        final var th = new Thread(r);
-        th.setName("com.io7m.oxicoco.server");
-        return th;
-      });
+    final ExecutorService serverMain;
+    final ExecutorService serverClients;
+    switch (configuration.threadMode()) {
+      case VIRTUAL_THREADS -> {
+        serverMain =
+          Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual()
+              .name("com.io7m.oxicoco.server")
+              .factory()
+          );
+        serverClients = createVirtualClientExecutor();
+      }
+      default -> {
+        serverMain = createPlatformMainExecutor();
+        serverClients = createPlatformClientExecutor();
+      }
+    }
 
-    final var serverClients =
-      Executors.newCachedThreadPool(r -> {
+    final var eventLoopCount =
+      configuration.ports()
+        .stream()
+        .anyMatch(p -> p.transport() == OxServerTransport.EVENT_LOOP)
+        ? configuration.eventLoopThreads()
+        : 0;
+
+    final OxServerEventLoopGroup eventLoops;
+    try {
+      eventLoops = OxServerEventLoopGroup.create(eventLoopCount, r -> {
         final var th = new Thread(r);
         th.setName(String.format(
-          "com.io7m.oxicoco.server.client[%d]",
+          "com.io7m.oxicoco.server.eventloop[%d]",
           Long.valueOf(th.getId()))
         );
         return th;
       });
+    } catch (final IOException e) {
+      serverMain.shutdown();
+      serverClients.shutdown();
+      throw new UncheckedIOException(e);
+    }
 
     try {
       final var controller =
         new OxServerController(
           configuration,
           this.clock,
-          new OxIRCMessageParsers(),
-          this::randomId
+          new OxIRCMessageByteParsers(OxServerClient.commandNames()),
+          OxServerClientIDAllocator.create(this.random)
         );
       return new OxServer(
         serverMain,
         serverClients,
-        ServerSocketFactory.getDefault(),
+        eventLoops,
         SSLContext.getDefault().getServerSocketFactory(),
         controller,
         configuration
       );
     } catch (final NoSuchAlgorithmException e) {
+      eventLoops.close();
       throw new UnsupportedOperationException(e);
     }
   }
-
-  private OxServerClientID randomId()
-  {
-    return OxServerClientID.of(this.random.nextInt());
-  }
 }
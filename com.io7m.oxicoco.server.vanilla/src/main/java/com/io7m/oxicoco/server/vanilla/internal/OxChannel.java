@@ -20,8 +20,11 @@ import com.io7m.oxicoco.names.OxChannelName;
 import com.io7m.oxicoco.names.OxNickName;
 import com.io7m.oxicoco.names.OxTopic;
 
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * A channel on the server.
@@ -29,8 +32,11 @@ import java.util.Objects;
 
 public final class OxChannel
 {
+  private static final OxServerClient[] NO_MEMBERS = new OxServerClient[0];
+
   private final OxServerControllerType controller;
   private final OxChannelName name;
+  private volatile OxServerClient[] members;
   private volatile OxTopic topic;
 
   /**
@@ -50,6 +56,83 @@ public final class OxChannel
       Objects.requireNonNull(inName, "name");
     this.topic =
       OxTopic.of("");
+    this.members =
+      NO_MEMBERS;
+  }
+
+  /*
+   * The member array is replaced, never modified, whenever a client joins
+   * or parts. Writers hold the lock of the channel map stripe to which the
+   * channel belongs; readers need no lock at all.
+   */
+
+  boolean memberAdd(
+    final OxServerClient client)
+  {
+    final var current = this.members;
+    if (indexOf(current, client.id()) != -1) {
+      return false;
+    }
+
+    final var next = Arrays.copyOf(current, current.length + 1);
+    next[current.length] = client;
+    this.members = next;
+    return true;
+  }
+
+  boolean memberRemove(
+    final OxServerClientID clientId)
+  {
+    final var current = this.members;
+    final var index = indexOf(current, clientId);
+    if (index == -1) {
+      return false;
+    }
+
+    if (current.length == 1) {
+      this.members = NO_MEMBERS;
+      return true;
+    }
+
+    final var next = new OxServerClient[current.length - 1];
+    System.arraycopy(current, 0, next, 0, index);
+    System.arraycopy(current, index + 1, next, index, next.length - index);
+    this.members = next;
+    return true;
+  }
+
+  private static int indexOf(
+    final OxServerClient[] clients,
+    final OxServerClientID clientId)
+  {
+    for (int index = 0; index < clients.length; ++index) {
+      if (clients[index].id().equals(clientId)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  Set<OxServerClientID> memberSnapshot()
+  {
+    final var current = this.members;
+    final var ids = new HashSet<OxServerClientID>(current.length * 2);
+    for (final var member : current) {
+      ids.add(member.id());
+    }
+    return ids;
+  }
+
+  /**
+   * The current members of the channel. The returned array is shared and
+   * must not be modified.
+   *
+   * @return The current members
+   */
+
+  OxServerClient[] members()
+  {
+    return this.members;
   }
 
   /**
@@ -18,13 +18,19 @@ package com.io7m.oxicoco.server.vanilla.internal;
 
 import com.io7m.oxicoco.errors.OxIRCErrorChannelNonexistent;
 import com.io7m.oxicoco.errors.OxIRCErrorChannelNotIn;
+import com.io7m.oxicoco.names.OxCaseMapping;
 import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxNameKey;
 import com.io7m.oxicoco.names.OxTopic;
-import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 
 import static com.io7m.oxicoco.server.vanilla.internal.OxChannelJoinResultType.JoinStatus.CHANNEL_ALREADY_JOINED;
@@ -33,27 +39,117 @@ import static com.io7m.oxicoco.server.vanilla.internal.OxChannelJoinResultType.J
 
 /**
  * A map of channels that preserves the various invariants required by an IRC
- * server.
+ * server. The map is safe for concurrent use. Channels are partitioned into
+ * lock stripes by name, and so operations on unrelated channels proceed in
+ * parallel. Operations that span several channels acquire the locks of the
+ * stripes involved in ascending stripe order, and so cannot deadlock.
+ * Channels are indexed by the key of their name under the server's case
+ * mapping, and so lookups are case-insensitive; each channel retains the
+ * name with which it was created for display. Keys are interned and cached
+ * on the names, and both the map and the stripe selection use the key's
+ * precomputed hash code.
  */
 
 public final class OxChannelMap
 {
-  private final TreeMap<OxChannelName, OxChannel> channels;
-  private final HashSetValuedHashMap<OxChannelName, OxServerClientID> channelToUsers;
-  private final HashSetValuedHashMap<OxServerClientID, OxChannelName> usersToChannel;
+  private static final int STRIPE_COUNT = 64;
+
+  private final OxCaseMapping caseMapping;
+  private final ReentrantLock[] stripes;
+  private final ConcurrentHashMap<OxNameKey, OxChannel> channels;
+  private final ConcurrentHashMap<OxServerClientID, Set<OxChannelName>> usersToChannel;
 
   /**
    * Create an empty channel map.
+   *
+   * @param inCaseMapping The case mapping used to compare channel names
    */
 
-  public OxChannelMap()
+  public OxChannelMap(
+    final OxCaseMapping inCaseMapping)
   {
+    this.caseMapping =
+      Objects.requireNonNull(inCaseMapping, "caseMapping");
+    this.stripes =
+      new ReentrantLock[STRIPE_COUNT];
+    for (int index = 0; index < STRIPE_COUNT; ++index) {
+      this.stripes[index] = new ReentrantLock();
+    }
     this.channels =
-      new TreeMap<>();
-    this.channelToUsers =
-      new HashSetValuedHashMap<>();
+      new ConcurrentHashMap<>();
     this.usersToChannel =
-      new HashSetValuedHashMap<>();
+      new ConcurrentHashMap<>();
+  }
+
+  private static int stripeIndexOf(
+    final OxNameKey key)
+  {
+    final var hash = key.hashCode();
+    return (hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1);
+  }
+
+  private OxNameKey keyOf(
+    final OxChannelName channelName)
+  {
+    return this.caseMapping.keyOf(channelName);
+  }
+
+  private int[] stripeIndicesOf(
+    final Collection<OxChannelName> channelNames)
+  {
+    return channelNames.stream()
+      .map(this::keyOf)
+      .mapToInt(OxChannelMap::stripeIndexOf)
+      .distinct()
+      .sorted()
+      .toArray();
+  }
+
+  private void lockStripes(
+    final int[] indices)
+  {
+    for (final var index : indices) {
+      this.stripes[index].lock();
+    }
+  }
+
+  private void unlockStripes(
+    final int[] indices)
+  {
+    for (int index = indices.length - 1; index >= 0; --index) {
+      this.stripes[indices[index]].unlock();
+    }
+  }
+
+  /**
+   * Lock the stripes of all channels to which the given client belongs. The
+   * set of channels is read again after locking; if it changed in the
+   * meantime, the locks are released and acquired again.
+   *
+   * @return The locked stripe indices
+   */
+
+  private int[] lockStripesFor(
+    final OxServerClientID clientId)
+  {
+    while (true) {
+      final var indices =
+        this.stripeIndicesOf(this.channelNamesFor(clientId));
+      this.lockStripes(indices);
+
+      final var indicesNow =
+        this.stripeIndicesOf(this.channelNamesFor(clientId));
+      if (Arrays.equals(indices, indicesNow)) {
+        return indices;
+      }
+      this.unlockStripes(indices);
+    }
+  }
+
+  private Set<OxChannelName> channelNamesFor(
+    final OxServerClientID clientId)
+  {
+    return Set.copyOf(this.usersToChannel.getOrDefault(clientId, Set.of()));
   }
 
   /**
@@ -74,29 +170,36 @@ public final class OxChannelMap
     final var result = OxChannelJoinResult.builder();
     result.setClient(client);
 
-    final var existing = this.channels.get(channelName);
-    if (existing == null) {
-      final var channel = channelSupplier.apply(channelName);
-      this.channels.put(channelName, channel);
+    final var clientId = client.id();
+    final var key = this.keyOf(channelName);
+    final var lock = this.stripes[stripeIndexOf(key)];
+    lock.lock();
+    try {
+      final var existing = this.channels.get(key);
+      final OxChannel channel;
+      if (existing == null) {
+        channel = channelSupplier.apply(channelName);
+        this.channels.put(key, channel);
+        result.setStatus(CHANNEL_JOINED_CREATED);
+      } else {
+        channel = existing;
+        result.setStatus(CHANNEL_JOINED_EXISTING);
+      }
       result.setChannel(channel);
-      result.setStatus(CHANNEL_JOINED_CREATED);
-    } else {
-      result.setChannel(existing);
-      result.setStatus(CHANNEL_JOINED_EXISTING);
-    }
 
-    if (this.channelToUsers.containsMapping(channelName, client.id())) {
-      result.setStatus(CHANNEL_ALREADY_JOINED);
-    } else {
-      result.setNotifyUsers(
-        Optional.ofNullable(this.channelToUsers.get(channelName))
-          .orElse(Set.of())
-      );
+      final var members = channel.memberSnapshot();
+      if (channel.memberAdd(client)) {
+        result.setNotifyUsers(members);
+      } else {
+        result.setStatus(CHANNEL_ALREADY_JOINED);
+      }
+
+      this.usersToChannel.computeIfAbsent(
+        clientId, k -> ConcurrentHashMap.newKeySet()).add(channel.name());
+      return result.build();
+    } finally {
+      lock.unlock();
     }
-
-    this.channelToUsers.put(channelName, client.id());
-    this.usersToChannel.put(client.id(), channelName);
-    return result.build();
   }
 
   /**
@@ -108,7 +211,11 @@ public final class OxChannelMap
   public Set<OxServerClientID> channelClients(
     final OxChannelName channelName)
   {
-    return this.channelToUsers.get(channelName);
+    final var channel = this.channels.get(this.keyOf(channelName));
+    if (channel == null) {
+      return Set.of();
+    }
+    return channel.memberSnapshot();
   }
 
   /**
@@ -130,24 +237,28 @@ public final class OxChannelMap
     final var result = OxChannelPartResult.builder();
     result.setClient(client);
 
-    final var existing = this.channels.get(channelName);
-    if (existing == null) {
-      throw new OxClientException(OxIRCErrorChannelNotIn.builder().build());
-    }
-
-    result.setChannel(existing);
+    final var clientId = client.id();
+    final var key = this.keyOf(channelName);
+    final var lock = this.stripes[stripeIndexOf(key)];
+    lock.lock();
+    try {
+      final var existing = this.channels.get(key);
+      if (existing == null) {
+        throw new OxClientException(OxIRCErrorChannelNotIn.builder().build());
+      }
 
-    final var joined =
-      this.channelToUsers.containsMapping(channelName, client.id());
-    final var users =
-      this.channelToUsers.get(channelName);
-
-    this.channelToUsers.removeMapping(channelName, client.id());
-    this.usersToChannel.removeMapping(client.id(), channelName);
-
-    result.setParted(joined);
-    result.setNotifyUsers(users);
-    return result.build();
+      result.setChannel(existing);
+      result.setNotifyUsers(existing.memberSnapshot());
+      result.setParted(existing.memberRemove(clientId));
+
+      this.usersToChannel.computeIfPresent(clientId, (k, names) -> {
+        names.remove(existing.name());
+        return names.isEmpty() ? null : names;
+      });
+      return result.build();
+    } finally {
+      lock.unlock();
+    }
   }
 
   /**
@@ -159,7 +270,7 @@ public final class OxChannelMap
   public OxTopic channelTopic(
     final OxChannelName channelName)
   {
-    final var existing = this.channels.get(channelName);
+    final var existing = this.channels.get(this.keyOf(channelName));
     if (existing == null) {
       return OxTopic.of("");
     }
@@ -182,7 +293,7 @@ public final class OxChannelMap
     final OxTopic newTopic)
     throws OxClientException
   {
-    final var existing = this.channels.get(channelName);
+    final var existing = this.channels.get(this.keyOf(channelName));
     if (existing == null) {
       throw new OxClientException(OxIRCErrorChannelNonexistent.builder().build());
     }
@@ -209,7 +320,72 @@ public final class OxChannelMap
   public Set<OxChannelName> channelsFor(
     final OxServerClient client)
   {
-    return this.usersToChannel.get(client.id());
+    return this.channelNamesFor(client.id());
+  }
+
+  /**
+   * Determine the set of clients that share at least one channel with the
+   * given client, including the client itself. The set is a consistent
+   * snapshot across all of the client's channels.
+   *
+   * @param client The client
+   *
+   * @return The set of clients watching the given client
+   */
+
+  public Set<OxServerClientID> clientsWatching(
+    final OxServerClient client)
+  {
+    final var clientId = client.id();
+    final var indices = this.lockStripesFor(clientId);
+    try {
+      return this.collectWatching(clientId);
+    } finally {
+      this.unlockStripes(indices);
+    }
+  }
+
+  /**
+   * Remove the given client from all channels to which it belongs.
+   *
+   * @param client The client
+   *
+   * @return The set of clients that shared at least one channel with the
+   * client, including the client itself
+   */
+
+  public Set<OxServerClientID> clientRemove(
+    final OxServerClient client)
+  {
+    final var clientId = client.id();
+    final var indices = this.lockStripesFor(clientId);
+    try {
+      final var watching = this.collectWatching(clientId);
+      for (final var name : this.channelNamesFor(clientId)) {
+        final var channel = this.channels.get(this.keyOf(name));
+        if (channel != null) {
+          channel.memberRemove(clientId);
+        }
+      }
+      this.usersToChannel.remove(clientId);
+      return watching;
+    } finally {
+      this.unlockStripes(indices);
+    }
+  }
+
+  private Set<OxServerClientID> collectWatching(
+    final OxServerClientID clientId)
+  {
+    final var watching = new HashSet<OxServerClientID>();
+    watching.add(clientId);
+    for (final var name : this.channelNamesFor(clientId)) {
+      final var channel = this.channels.get(this.keyOf(name));
+      if (channel != null) {
+        watching.addAll(channel.memberSnapshot());
+      }
+    }
+    return watching;
   }
 
   /**
@@ -221,6 +397,6 @@ public final class OxChannelMap
   public Optional<OxChannel> channelOf(
     final OxChannelName channelName)
   {
-    return Optional.ofNullable(this.channels.get(channelName));
+    return Optional.ofNullable(this.channels.get(this.keyOf(channelName)));
   }
 }
@@ -17,21 +17,29 @@
 package com.io7m.oxicoco.server.vanilla.internal;
 
 import com.io7m.oxicoco.errors.OxIRCErrorNickCollision;
+import com.io7m.oxicoco.names.OxCaseMapping;
+import com.io7m.oxicoco.names.OxNameKey;
 import com.io7m.oxicoco.names.OxNickName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
-import java.util.function.Supplier;
 
 /**
  * A map of clients that preserves the various invariants required by an IRC
- * server.
+ * server. The map is safe for concurrent use and does not use locks; nick
+ * names are claimed atomically, and so two clients can never hold the same
+ * nick. Operations that modify the nick of a given client must be performed
+ * by one thread at a time, which is the case as each client executes its
+ * commands sequentially. Nicks are indexed by their key under the server's
+ * case mapping, and so nick lookups are case-insensitive; each client
+ * retains the nick it registered for display. Keys are interned and cached
+ * on the names, and so a lookup neither folds nor hashes the name again.
  */
 
 public final class OxClientMap
@@ -39,37 +47,31 @@ public final class OxClientMap
   private static final Logger LOG =
     LoggerFactory.getLogger(OxClientMap.class);
 
-  private final HashMap<OxNickName, OxServerClientID> nickToId;
-  private final HashMap<OxServerClientID, OxNickName> idToNick;
-  private final HashMap<OxServerClientID, OxServerClient> clients;
-  private final Supplier<OxServerClientID> idSupplier;
+  private final OxCaseMapping caseMapping;
+  private final ConcurrentHashMap<OxNameKey, OxServerClientID> nickToId;
+  private final ConcurrentHashMap<OxServerClientID, OxNickName> idToNick;
+  private final ConcurrentHashMap<OxServerClientID, OxServerClient> clients;
+  private final OxServerClientIDAllocatorType idAllocator;
 
   /**
    * Construct a client map.
    *
-   * @param inIdSupplier A supplier of server client IDs
+   * @param inCaseMapping The case mapping used to compare nicks
+   * @param inIdAllocator An allocator of server client IDs
    */
 
   public OxClientMap(
-    final Supplier<OxServerClientID> inIdSupplier)
+    final OxCaseMapping inCaseMapping,
+    final OxServerClientIDAllocatorType inIdAllocator)
   {
-    this.idSupplier =
-      Objects.requireNonNull(inIdSupplier, "idSupplier");
-
-    this.clients = new HashMap<>();
-    this.nickToId = new HashMap<>();
-    this.idToNick = new HashMap<>();
-  }
-
-  private OxServerClientID freshClientID()
-  {
-    while (true) {
-      final var id = this.idSupplier.get();
-      if (this.clients.containsKey(id)) {
-        continue;
-      }
-      return id;
-    }
+    this.caseMapping =
+      Objects.requireNonNull(inCaseMapping, "caseMapping");
+    this.idAllocator =
+      Objects.requireNonNull(inIdAllocator, "idAllocator");
+
+    this.clients = new ConcurrentHashMap<>();
+    this.nickToId = new ConcurrentHashMap<>();
+    this.idToNick = new ConcurrentHashMap<>();
   }
 
   /**
@@ -94,9 +96,14 @@ public final class OxClientMap
   {
     Objects.requireNonNull(creator, "creator");
 
-    final var clientId = this.freshClientID();
+    final var clientId = this.idAllocator.allocate();
     final OxServerClient client = creator.apply(clientId);
-    this.clients.put(clientId, client);
+    final var existing = this.clients.putIfAbsent(clientId, client);
+    if (existing != null) {
+      throw new IllegalStateException(
+        String.format("Client ID %s is already in use", clientId)
+      );
+    }
     return client;
   }
 
@@ -126,7 +133,8 @@ public final class OxClientMap
   public Optional<OxServerClient> clientForNick(
     final OxNickName nickName)
   {
-    return Optional.ofNullable(this.nickToId.get(nickName))
+    final var key = this.caseMapping.keyOf(nickName);
+    return Optional.ofNullable(this.nickToId.get(key))
       .flatMap(id -> Optional.ofNullable(this.clients.get(id)));
   }
 
@@ -150,38 +158,17 @@ public final class OxClientMap
     Objects.requireNonNull(name, "name");
 
     /*
-     * Does this client have any nick at all?
+     * Claim the requested nick. If anyone else has the requested nick, the
+     * claim fails. A client may change the case of its own nick, but
+     * requesting the nick it already has is a collision.
      */
 
     final var clientId = client.id();
-    final var currentNick = this.idToNick.get(clientId);
-    if (currentNick == null) {
-
-      /*
-       * Does anyone else have the requested nick?
-       */
-
-      final var otherClient = this.nickToId.get(name);
-      if (otherClient != null) {
-        throw new OxClientException(
-          OxIRCErrorNickCollision.builder()
-            .setRequested(name)
-            .setCurrent(name)
-            .build()
-        );
-      }
-
-      this.nickToId.put(name, clientId);
-      this.idToNick.put(clientId, name);
-      return Optional.empty();
-    }
-
-    /*
-     * Does anyone else have the requested nick?
-     */
-
-    final var otherClient = this.nickToId.get(name);
-    if (otherClient != null) {
+    final var key = this.caseMapping.keyOf(name);
+    final var otherClient = this.nickToId.putIfAbsent(key, clientId);
+    if (otherClient != null
+      && (!otherClient.equals(clientId)
+      || name.equals(this.idToNick.get(clientId)))) {
       throw new OxClientException(
         OxIRCErrorNickCollision.builder()
           .setRequested(name)
@@ -190,9 +177,19 @@ public final class OxClientMap
       );
     }
 
-    this.nickToId.remove(currentNick);
-    this.nickToId.put(name, clientId);
-    this.idToNick.put(clientId, name);
+    /*
+     * Release the client's previous nick, if it had one.
+     */
+
+    final var currentNick = this.idToNick.put(clientId, name);
+    if (currentNick == null) {
+      return Optional.empty();
+    }
+
+    final var currentKey = this.caseMapping.keyOf(currentNick);
+    if (currentKey != key) {
+      this.nickToId.remove(currentKey, clientId);
+    }
     return Optional.of(currentNick);
   }
 
@@ -208,14 +205,10 @@ public final class OxClientMap
     Objects.requireNonNull(client, "client");
 
     final var clientId = client.id();
-
-    try {
-      this.nickToId.remove(client.nick());
-    } catch (final OxNameNotRegisteredException e) {
-      // Client might not be registered yet
+    final var nick = this.idToNick.remove(clientId);
+    if (nick != null) {
+      this.nickToId.remove(this.caseMapping.keyOf(nick), clientId);
     }
-
-    this.idToNick.remove(clientId);
     this.clients.remove(clientId);
   }
 
@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the execution of a single command by a
+ * client. The event is disabled by default.
+ */
+
+@Name("com.io7m.oxicoco.CommandDispatch")
+@Label("Command Dispatch")
+@Category({"Oxicoco", "Server"})
+@Description("A command was executed on behalf of a client")
+@Enabled(false)
+@StackTrace(false)
+final class OxCommandDispatchEvent extends jdk.jfr.Event
+{
+  // CHECKSTYLE:OFF
+  @Label("Client")
+  @Description("The ID of the client")
+  String clientId;
+
+  @Label("Command")
+  @Description("The command")
+  String command;
+  // CHECKSTYLE:ON
+
+  OxCommandDispatchEvent()
+  {
+
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A message that has been serialized, along with its line terminator, to
+ * the bytes that will be written to clients. Encoded messages are immutable
+ * and so a single encoded message can be shared between the outbound queues
+ * of any number of clients.
+ */
+
+public final class OxEncodedMessage
+{
+  private final Supplier<OxIRCMessage> messageSource;
+  private final byte[] data;
+  private volatile OxIRCMessage message;
+
+  private OxEncodedMessage(
+    final OxIRCMessage inMessage,
+    final Supplier<OxIRCMessage> inMessageSource,
+    final byte[] inData)
+  {
+    this.message = inMessage;
+    this.messageSource = inMessageSource;
+    this.data =
+      Objects.requireNonNull(inData, "data");
+  }
+
+  /**
+   * Encode the given message.
+   *
+   * @param message The message
+   *
+   * @return An encoded message
+   */
+
+  public static OxEncodedMessage encode(
+    final OxIRCMessage message)
+  {
+    Objects.requireNonNull(message, "message");
+    return new OxEncodedMessage(
+      message,
+      null,
+      OxIRCMessageEncoder.INSTANCE.encode(message)
+    );
+  }
+
+  /**
+   * Encode the given message, using the given octets as the encoded form of
+   * the message's prefix.
+   *
+   * @param message The message
+   * @param prefix  The UTF-8 encoding of the message's prefix
+   *
+   * @return An encoded message
+   *
+   * @see OxIRCMessageEncoder#encode(com.io7m.oxicoco.messages.OxIRCMessageType, byte[])
+   */
+
+  public static OxEncodedMessage encode(
+    final OxIRCMessage message,
+    final byte[] prefix)
+  {
+    Objects.requireNonNull(message, "message");
+    return new OxEncodedMessage(
+      message,
+      null,
+      OxIRCMessageEncoder.INSTANCE.encode(message, prefix)
+    );
+  }
+
+  /**
+   * Create a message from octets that have already been encoded. The
+   * original message is only constructed if it is requested, which is
+   * typically only the case when logging.
+   *
+   * @param messageSource A function that produces the original message
+   * @param data          The encoded message, including the line terminator
+   *
+   * @return An encoded message
+   */
+
+  public static OxEncodedMessage ofEncoded(
+    final Supplier<OxIRCMessage> messageSource,
+    final byte[] data)
+  {
+    Objects.requireNonNull(messageSource, "messageSource");
+    return new OxEncodedMessage(null, messageSource, data);
+  }
+
+  /**
+   * @return The original message
+   */
+
+  public OxIRCMessage message()
+  {
+    var result = this.message;
+    if (result == null) {
+      result = this.messageSource.get();
+      this.message = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return The size of the encoded message in octets
+   */
+
+  public int size()
+  {
+    return this.data.length;
+  }
+
+  /**
+   * @return A new read-only view of the encoded message
+   */
+
+  public ByteBuffer buffer()
+  {
+    return ByteBuffer.wrap(this.data).asReadOnlyBuffer();
+  }
+
+  /**
+   * Write the encoded message to the given stream.
+   *
+   * @param stream The output stream
+   */
+
+  public void writeTo(
+    final ByteArrayOutputStream stream)
+  {
+    stream.write(this.data, 0, this.data.length);
+  }
+}
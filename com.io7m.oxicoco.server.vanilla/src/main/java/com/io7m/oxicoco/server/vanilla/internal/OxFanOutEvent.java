@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the encoding of a single message and
+ * its delivery to the queues of a set of clients. The event is disabled by
+ * default.
+ */
+
+@Name("com.io7m.oxicoco.FanOut")
+@Label("Fan Out")
+@Category({"Oxicoco", "Server"})
+@Description("A message was delivered to a set of clients")
+@Enabled(false)
+@StackTrace(false)
+final class OxFanOutEvent extends jdk.jfr.Event
+{
+  // CHECKSTYLE:OFF
+  @Label("Client")
+  @Description("The ID of the sending client, if any")
+  String clientId;
+
+  @Label("Command")
+  @Description("The command")
+  String command;
+
+  @Label("Recipients")
+  @Description("The number of clients that received the message")
+  int recipients;
+
+  @Label("Size")
+  @Description("The size of the encoded message")
+  @DataAmount
+  int octets;
+  // CHECKSTYLE:ON
+
+  OxFanOutEvent()
+  {
+
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. Each power of two is
+ * divided into eight linear sub-buckets, and so any percentile is reported
+ * to within 12.5% of the recorded value. Durations of about seventeen
+ * minutes or longer are all counted in the last bucket.
+ */
+
+public final class OxLatencyHistogram
+{
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int EXPONENT_MAXIMUM = 39;
+  private static final int BUCKET_COUNT =
+    (EXPONENT_MAXIMUM - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+  private final LongAdder count;
+  private final LongAdder total;
+  private final LongAdder[] buckets;
+
+  /**
+   * A lock-free histogram of durations in nanoseconds.
+   */
+
+  public OxLatencyHistogram()
+  {
+    this.count = new LongAdder();
+    this.total = new LongAdder();
+    this.buckets = new LongAdder[BUCKET_COUNT];
+    for (int index = 0; index < BUCKET_COUNT; ++index) {
+      this.buckets[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * @param nanos A duration
+   *
+   * @return The index of the bucket that counts the given duration
+   */
+
+  static int bucketOf(
+    final long nanos)
+  {
+    if (nanos < SUB_BUCKETS) {
+      return (int) Math.max(0L, nanos);
+    }
+
+    final var exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    if (exponent > EXPONENT_MAXIMUM) {
+      return BUCKET_COUNT - 1;
+    }
+
+    final var sub =
+      (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * @param bucket A bucket index
+   *
+   * @return The largest duration counted by the given bucket
+   */
+
+  static long bucketUpperBound(
+    final int bucket)
+  {
+    if (bucket == BUCKET_COUNT - 1) {
+      return Long.MAX_VALUE;
+    }
+    return bucketLowerBound(bucket + 1) - 1L;
+  }
+
+  private static long bucketLowerBound(
+    final int bucket)
+  {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+
+    final var exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    final var sub = bucket % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  /**
+   * Record a duration.
+   *
+   * @param nanos The duration in nanoseconds
+   */
+
+  public void record(
+    final long nanos)
+  {
+    this.count.increment();
+    this.total.add(nanos);
+    this.buckets[bucketOf(nanos)].increment();
+  }
+
+  /**
+   * @return The number of durations recorded
+   */
+
+  public long count()
+  {
+    return this.count.sum();
+  }
+
+  /**
+   * @return The sum of all durations recorded, in nanoseconds
+   */
+
+  public long totalNanos()
+  {
+    return this.total.sum();
+  }
+
+  /**
+   * Estimate a percentile of the recorded durations. The estimate is the
+   * upper bound of the bucket in which the percentile falls, and so is never
+   * smaller than the true value. Durations recorded concurrently with this
+   * method may or may not be taken into account.
+   *
+   * @param percentile The percentile in the range {@code [0, 100]}
+   *
+   * @return The estimated duration in nanoseconds, or {@code 0} if nothing
+   * has been recorded
+   */
+
+  public long percentileNanos(
+    final double percentile)
+  {
+    if (percentile < 0.0 || percentile > 100.0) {
+      throw new IllegalArgumentException(
+        "Percentile must be in the range [0, 100]");
+    }
+
+    final var counts = new long[BUCKET_COUNT];
+    var observed = 0L;
+    for (int index = 0; index < BUCKET_COUNT; ++index) {
+      counts[index] = this.buckets[index].sum();
+      observed += counts[index];
+    }
+    if (observed == 0L) {
+      return 0L;
+    }
+
+    final var rank =
+      Math.max(1L, (long) Math.ceil((percentile / 100.0) * observed));
+
+    var seen = 0L;
+    for (int index = 0; index < BUCKET_COUNT; ++index) {
+      seen += counts[index];
+      if (seen >= rank) {
+        return bucketUpperBound(index);
+      }
+    }
+    return bucketUpperBound(BUCKET_COUNT - 1);
+  }
+}
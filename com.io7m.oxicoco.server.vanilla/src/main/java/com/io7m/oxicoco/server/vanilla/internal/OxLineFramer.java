@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A line framer that splits received bytes into lines using a fixed-size
+ * buffer. As with {@link java.io.BufferedReader#readLine()}, a line is
+ * terminated by a carriage return, a line feed, or a carriage return
+ * followed by a line feed. Lines are limited to 512 octets including the line
+ * terminator, plus an optional budget for an IRCv3 tag section. Lines that
+ * exceed the limits are discarded as soon as they are detected, without
+ * being decoded and without waiting for the line terminator, and so the
+ * memory used by a connection is bounded regardless of its input.
+ */
+
+public final class OxLineFramer
+{
+  /**
+   * The maximum length of a line, excluding any tag section, but including
+   * the line terminator.
+   */
+
+  public static final int LINE_LIMIT = 512;
+
+  private final int tagLimit;
+  private final ByteBuffer buffer;
+  private int scanned;
+  private boolean discarding;
+  private boolean skipLineFeed;
+
+  /**
+   * A line framer.
+   *
+   * @param inTagLimit The maximum size of a tag section, including the
+   *                   leading {@code @} and the trailing space, or {@code 0}
+   *                   if tags are not given a budget of their own
+   */
+
+  public OxLineFramer(
+    final int inTagLimit)
+  {
+    if (inTagLimit < 0) {
+      throw new IllegalArgumentException("Tag limit must be non-negative");
+    }
+
+    this.tagLimit = inTagLimit;
+    this.buffer = ByteBuffer.allocate(LINE_LIMIT + inTagLimit);
+  }
+
+  /**
+   * @return The buffer into which received bytes should be written
+   */
+
+  public ByteBuffer buffer()
+  {
+    return this.buffer;
+  }
+
+  /**
+   * Deliver all complete lines in the buffer to the given receiver. Delivery
+   * stops early if the receiver stops accepting lines; the remaining lines
+   * are retained and will be delivered by the next call.
+   *
+   * @param receiver The receiver
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void process(
+    final OxLineReceiverType receiver)
+    throws IOException
+  {
+    Objects.requireNonNull(receiver, "receiver");
+
+    final var data = this.buffer.array();
+    final var limit = this.buffer.position();
+    var lineStart = 0;
+    var index = this.scanned;
+    var stopped = false;
+
+    for (; index < limit; ++index) {
+      final var octet = data[index];
+
+      /*
+       * A line feed that immediately follows a carriage return belongs to
+       * the line that the carriage return terminated.
+       */
+
+      if (this.skipLineFeed) {
+        this.skipLineFeed = false;
+        if (octet == '\n') {
+          lineStart = index + 1;
+          continue;
+        }
+      }
+
+      if (octet != '\n' && octet != '\r') {
+        continue;
+      }
+
+      if (this.discarding) {
+        this.discarding = false;
+        this.skipLineFeed = octet == '\r';
+        lineStart = index + 1;
+        continue;
+      }
+
+      if (!receiver.isReceivingLines()) {
+        stopped = true;
+        break;
+      }
+
+      this.skipLineFeed = octet == '\r';
+      this.deliver(receiver, data, lineStart, index);
+      lineStart = index + 1;
+    }
+
+    if (!stopped) {
+      lineStart = this.processPartialLine(receiver, data, lineStart, limit);
+    }
+
+    this.scanned = index - lineStart;
+    if (lineStart > 0) {
+      this.buffer.flip();
+      this.buffer.position(lineStart);
+      this.buffer.compact();
+    }
+  }
+
+  private void deliver(
+    final OxLineReceiverType receiver,
+    final byte[] data,
+    final int lineStart,
+    final int lineEnd)
+    throws IOException
+  {
+    if (this.exceedsLimits(data, lineStart, lineEnd)) {
+      receiver.onReceiveLineTooLong();
+    } else {
+      receiver.onReceiveLine(data, lineStart, lineEnd - lineStart);
+    }
+  }
+
+  /**
+   * Check the incomplete line at the end of the buffer. If the line is
+   * already too long, discard it and everything up to the next line
+   * terminator.
+   *
+   * @return The new start of the incomplete line
+   */
+
+  private int processPartialLine(
+    final OxLineReceiverType receiver,
+    final byte[] data,
+    final int lineStart,
+    final int limit)
+    throws IOException
+  {
+    if (this.discarding) {
+      return limit;
+    }
+
+    if (this.exceedsLimits(data, lineStart, limit)) {
+      this.discarding = true;
+      receiver.onReceiveLineTooLong();
+      return limit;
+    }
+    return lineStart;
+  }
+
+  private boolean exceedsLimits(
+    final byte[] data,
+    final int start,
+    final int end)
+  {
+    var bodyStart = start;
+    if (this.tagLimit > 0 && end > start && data[start] == '@') {
+      var tagEnd = start;
+      while (tagEnd < end && data[tagEnd] != ' ') {
+        ++tagEnd;
+      }
+      if (tagEnd == end) {
+        return end - start > this.tagLimit;
+      }
+      if (tagEnd + 1 - start > this.tagLimit) {
+        return true;
+      }
+      bodyStart = tagEnd + 1;
+    }
+    return end - bodyStart > LINE_LIMIT - 2;
+  }
+}
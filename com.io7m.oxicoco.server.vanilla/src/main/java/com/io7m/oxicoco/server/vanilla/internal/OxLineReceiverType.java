@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.io.IOException;
+
+/**
+ * The type of receivers of lines framed by an {@link OxLineFramer}.
+ */
+
+public interface OxLineReceiverType
+{
+  /**
+   * @return {@code true} if the receiver is willing to accept more lines
+   */
+
+  boolean isReceivingLines();
+
+  /**
+   * A line was received.
+   *
+   * @param data   The buffer containing the line
+   * @param offset The offset of the start of the line
+   * @param length The length of the line, excluding any line terminator
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void onReceiveLine(
+    byte[] data,
+    int offset,
+    int length)
+    throws IOException;
+
+  /**
+   * A line was received that exceeded the protocol's length limits. The
+   * content of the line has been discarded.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void onReceiveLineTooLong()
+    throws IOException;
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics describing the outbound queues of all clients.
+ */
+
+public final class OxOutboundQueueStatistics
+{
+  private final LongAdder queuedMessages;
+  private final LongAdder queuedOctets;
+  private final AtomicLong queuedOctetsMaximum;
+  private final LongAdder messagesDropped;
+  private final LongAdder slowConsumerDisconnects;
+  private final LongAdder readSuspensions;
+
+  /**
+   * Statistics describing the outbound queues of all clients.
+   */
+
+  public OxOutboundQueueStatistics()
+  {
+    this.queuedMessages = new LongAdder();
+    this.queuedOctets = new LongAdder();
+    this.queuedOctetsMaximum = new AtomicLong();
+    this.messagesDropped = new LongAdder();
+    this.slowConsumerDisconnects = new LongAdder();
+    this.readSuspensions = new LongAdder();
+  }
+
+  /**
+   * Record that a message was added to a client's queue.
+   *
+   * @param octets            The size of the message
+   * @param clientQueueOctets The new size of the client's queue
+   */
+
+  public void onEnqueued(
+    final int octets,
+    final long clientQueueOctets)
+  {
+    this.queuedMessages.increment();
+    this.queuedOctets.add(octets);
+    this.queuedOctetsMaximum.accumulateAndGet(clientQueueOctets, Math::max);
+  }
+
+  /**
+   * Record that a message was removed from a client's queue.
+   *
+   * @param octets The size of the message
+   */
+
+  public void onDequeued(
+    final int octets)
+  {
+    this.queuedMessages.decrement();
+    this.queuedOctets.add(-octets);
+  }
+
+  /**
+   * Record that a message was discarded from a client's queue.
+   *
+   * @param octets The size of the message
+   */
+
+  public void onDropped(
+    final int octets)
+  {
+    this.onDequeued(octets);
+    this.messagesDropped.increment();
+  }
+
+  /**
+   * Record that a slow client was disconnected.
+   */
+
+  public void onSlowConsumerDisconnected()
+  {
+    this.slowConsumerDisconnects.increment();
+  }
+
+  /**
+   * Record that reading from a slow client was suspended.
+   */
+
+  public void onReadSuspended()
+  {
+    this.readSuspensions.increment();
+  }
+
+  /**
+   * @return The number of messages currently queued across all clients
+   */
+
+  public long queuedMessages()
+  {
+    return this.queuedMessages.sum();
+  }
+
+  /**
+   * @return The number of octets currently queued across all clients
+   */
+
+  public long queuedOctets()
+  {
+    return this.queuedOctets.sum();
+  }
+
+  /**
+   * @return The largest number of octets ever queued for a single client
+   */
+
+  public long queuedOctetsMaximum()
+  {
+    return this.queuedOctetsMaximum.get();
+  }
+
+  /**
+   * @return The number of messages discarded from client queues
+   */
+
+  public long messagesDropped()
+  {
+    return this.messagesDropped.sum();
+  }
+
+  /**
+   * @return The number of slow clients that have been disconnected
+   */
+
+  public long slowConsumerDisconnects()
+  {
+    return this.slowConsumerDisconnects.sum();
+  }
+
+  /**
+   * @return The number of times reading from a slow client was suspended
+   */
+
+  public long readSuspensions()
+  {
+    return this.readSuspensions.sum();
+  }
+}
@@ -19,11 +19,7 @@ package com.io7m.oxicoco.server.vanilla.internal;
 import com.io7m.oxicoco.server.api.OxServerConfiguration;
 import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
 import com.io7m.oxicoco.server.api.OxServerType;
-import io.reactivex.rxjava3.disposables.CompositeDisposable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import javax.net.ServerSocketFactory;
 import javax.net.ssl.SSLServerSocketFactory;
 import java.io.IOException;
 import java.util.List;
@@ -38,24 +34,21 @@ import java.util.stream.Collectors;
 
 public final class OxServer implements OxServerType
 {
-  private static final Logger LOG =
-    LoggerFactory.getLogger(OxServer.class);
-
   private final ExecutorService serverMain;
   private final ExecutorService serverClients;
-  private final ServerSocketFactory plainServerSockets;
+  private final OxServerEventLoopGroup eventLoops;
   private final SSLServerSocketFactory sslServerSockets;
   private final OxServerControllerType serverController;
   private final OxServerConfiguration configuration;
-  private final List<OxServerPortHandler> portHandlers;
-  private final CompositeDisposable subscriptions;
+  private final OxServerAdmission admission;
+  private final List<OxServerPortHandlerType> portHandlers;
 
   /**
    * The base server implementation.
    *
    * @param inServerMain       The main server executor
    * @param inServerClients    The executor used for clients
-   * @param inServerSockets    The socket factory for clients
+   * @param inEventLoops       The event loops used for clients
    * @param inSSLServerSockets The SSL socket factory
    * @param inServerController The main server controller
    * @param inConfiguration    The server configuration
@@ -64,7 +57,7 @@ public final class OxServer implements OxServerType
   public OxServer(
     final ExecutorService inServerMain,
     final ExecutorService inServerClients,
-    final ServerSocketFactory inServerSockets,
+    final OxServerEventLoopGroup inEventLoops,
     final SSLServerSocketFactory inSSLServerSockets,
     final OxServerControllerType inServerController,
     final OxServerConfiguration inConfiguration)
@@ -73,21 +66,16 @@ public final class OxServer implements OxServerType
       Objects.requireNonNull(inServerMain, "serverMain");
     this.serverClients =
       Objects.requireNonNull(inServerClients, "serverClients");
-    this.plainServerSockets =
-      Objects.requireNonNull(inServerSockets, "inServerSockets");
+    this.eventLoops =
+      Objects.requireNonNull(inEventLoops, "eventLoops");
     this.sslServerSockets =
       Objects.requireNonNull(inSSLServerSockets, "SSLServerSockets");
     this.serverController =
       Objects.requireNonNull(inServerController, "serverController");
     this.configuration =
       Objects.requireNonNull(inConfiguration, "configuration");
-
-    this.subscriptions = new CompositeDisposable();
-    this.subscriptions.add(
-      this.serverController.events()
-        .ofType(OxServerClientCreated.class)
-        .subscribe(this::onClientCreated, OxServer::onErrorMessage)
-    );
+    this.admission =
+      OxServerAdmission.create(this.configuration);
 
     this.portHandlers =
       this.configuration.ports()
@@ -96,26 +84,27 @@ public final class OxServer implements OxServerType
         .collect(Collectors.toList());
   }
 
-  private static void onErrorMessage(
-    final Throwable throwable)
-  {
-    LOG.error("exception: ", throwable);
-  }
-
-  private void onClientCreated(
-    final OxServerClientCreated event)
-  {
-    this.serverClients.execute(() -> event.client().run());
-  }
-
-  private OxServerPortHandler createPortHandler(
+  private OxServerPortHandlerType createPortHandler(
     final OxServerPortConfiguration port)
   {
-    return new OxServerPortHandler(
-      this.serverController,
-      port.enableTLS() ? this.sslServerSockets : this.plainServerSockets,
-      port
-    );
+    return switch (port.transport()) {
+      case THREAD_PER_CLIENT -> new OxServerPortHandler(
+        this.serverController,
+        this.sslServerSockets,
+        this.serverMain,
+        this.serverClients,
+        port,
+        this.serverController.metrics().createPort(port),
+        this.admission
+      );
+      case EVENT_LOOP -> new OxServerEventLoopPortHandler(
+        this.serverController,
+        this.eventLoops,
+        port,
+        this.serverController.metrics().createPort(port),
+        this.admission
+      );
+    };
   }
 
   @Override
@@ -129,7 +118,7 @@ public final class OxServer implements OxServerType
   }
 
   private CompletableFuture<Void> startPortHandler(
-    final OxServerPortHandler port)
+    final OxServerPortHandlerType port)
   {
     final var future = new CompletableFuture<Void>();
     this.serverMain.execute(() -> {
@@ -142,6 +131,12 @@ public final class OxServer implements OxServerType
     return future;
   }
 
+  @Override
+  public OxServerMetrics metrics()
+  {
+    return this.serverController.metrics();
+  }
+
   @Override
   public void close()
     throws IOException
@@ -161,6 +156,7 @@ public final class OxServer implements OxServerType
       ex.addException(e);
     }
 
+    this.eventLoops.close();
     this.serverClients.shutdown();
     this.serverMain.shutdown();
     ex.throwIfNecessary();
@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+/**
+ * An exponential backoff for acceptors. A failure such as running out of
+ * file descriptors tends to persist, and an acceptor that retried at once
+ * would spin and flood the log. Each consecutive failure doubles the delay
+ * before the next attempt, up to a limit; a successful accept resets it.
+ * Instances are not safe for concurrent use, and each acceptor has its own.
+ */
+
+final class OxServerAcceptBackoff
+{
+  private static final long DELAY_MINIMUM_MILLISECONDS = 5L;
+  private static final long DELAY_MAXIMUM_MILLISECONDS = 1_000L;
+
+  private long delay;
+
+  OxServerAcceptBackoff()
+  {
+
+  }
+
+  /**
+   * Reset the delay after a successful accept.
+   */
+
+  void onSuccess()
+  {
+    this.delay = 0L;
+  }
+
+  /**
+   * Wait before the next attempt after a failed accept.
+   */
+
+  void onFailure()
+  {
+    this.delay =
+      this.delay == 0L
+        ? DELAY_MINIMUM_MILLISECONDS
+        : Math.min(this.delay * 2L, DELAY_MAXIMUM_MILLISECONDS);
+
+    try {
+      Thread.sleep(this.delay);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Server-wide admission control for incoming connections.
+ *
+ * <p>Connections are grouped by the network prefix of their source address.
+ * Each prefix may hold a limited number of concurrent connections, and may
+ * open new connections at a limited rate enforced by a token bucket. The
+ * state for a prefix is a small mutable entry in a concurrent map that is
+ * only ever modified inside the map's atomic compute operations. Entries
+ * are removed as soon as they hold no connections and their bucket is full
+ * again, and a periodic sweep removes entries for prefixes that were only
+ * ever refused.</p>
+ *
+ * <p>Admission control runs on the acceptor threads before any transport
+ * or client is created, and refused connections never reach the server
+ * controller.</p>
+ */
+
+public final class OxServerAdmission
+{
+  private static final int SWEEP_INTERVAL = 1024;
+
+  private static final Map<OxServerAdmissionRefusal, OxServerAdmissionTicket>
+    REFUSED = refusedTickets();
+
+  private final ConcurrentHashMap<Prefix, Entry> entries;
+  private final LongSupplier clock;
+  private final AtomicInteger sweepCounter;
+  private final int connectionLimit;
+  private final double burst;
+  private final double tokensPerNanosecond;
+  private final int prefixIPv4;
+  private final int prefixIPv6;
+
+  /**
+   * Server-wide admission control for incoming connections.
+   *
+   * @param inConfiguration The server configuration
+   * @param inClock         A monotonic clock in nanoseconds
+   */
+
+  public OxServerAdmission(
+    final OxServerConfiguration inConfiguration,
+    final LongSupplier inClock)
+  {
+    Objects.requireNonNull(inConfiguration, "configuration");
+
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.entries =
+      new ConcurrentHashMap<>();
+    this.sweepCounter =
+      new AtomicInteger();
+    this.connectionLimit =
+      inConfiguration.connectionLimitPerAddress();
+    this.burst =
+      inConfiguration.connectBurstPerAddress();
+    this.tokensPerNanosecond =
+      inConfiguration.connectRatePerAddress() / 1_000_000_000.0;
+    this.prefixIPv4 =
+      inConfiguration.connectionLimitPrefixIPv4();
+    this.prefixIPv6 =
+      inConfiguration.connectionLimitPrefixIPv6();
+  }
+
+  /**
+   * Server-wide admission control using the system's monotonic clock.
+   *
+   * @param configuration The server configuration
+   *
+   * @return Admission control
+   */
+
+  public static OxServerAdmission create(
+    final OxServerConfiguration configuration)
+  {
+    return new OxServerAdmission(configuration, System::nanoTime);
+  }
+
+  private static Map<OxServerAdmissionRefusal, OxServerAdmissionTicket>
+  refusedTickets()
+  {
+    final var tickets =
+      new EnumMap<OxServerAdmissionRefusal, OxServerAdmissionTicket>(
+        OxServerAdmissionRefusal.class);
+    for (final var refusal : OxServerAdmissionRefusal.values()) {
+      tickets.put(refusal, new OxServerAdmissionTicket(null, null, refusal));
+    }
+    return tickets;
+  }
+
+  /**
+   * Make a best-effort attempt to tell a refused connection why it was
+   * refused, and then close it. The attempt never blocks: a connection
+   * that cannot accept the message immediately (or a TLS connection, which
+   * would require a handshake) is simply closed.
+   *
+   * @param socket  The refused connection
+   * @param refusal The reason for the refusal
+   */
+
+  public static void refuse(
+    final Socket socket,
+    final OxServerAdmissionRefusal refusal)
+  {
+    Objects.requireNonNull(socket, "socket");
+    Objects.requireNonNull(refusal, "refusal");
+
+    try (socket) {
+      final var channel = socket.getChannel();
+      if (channel != null) {
+        refuse(channel, refusal);
+      }
+    } catch (final IOException e) {
+      // Nothing can be done about this
+    }
+  }
+
+  /**
+   * Make a best-effort attempt to tell a refused connection why it was
+   * refused, and then close it. The attempt never blocks.
+   *
+   * @param channel The refused connection
+   * @param refusal The reason for the refusal
+   */
+
+  public static void refuse(
+    final SocketChannel channel,
+    final OxServerAdmissionRefusal refusal)
+  {
+    Objects.requireNonNull(channel, "channel");
+    Objects.requireNonNull(refusal, "refusal");
+
+    try (channel) {
+      channel.configureBlocking(false);
+      final ByteBuffer buffer = refusal.message().buffer();
+      channel.write(buffer);
+    } catch (final IOException e) {
+      // Nothing can be done about this
+    }
+  }
+
+  /**
+   * Submit a connection from the given remote address to admission control.
+   * Connections from addresses that are not internet addresses are always
+   * admitted.
+   *
+   * @param remote The remote address
+   *
+   * @return A ticket that must be released when the connection closes
+   */
+
+  public OxServerAdmissionTicket admit(
+    final SocketAddress remote)
+  {
+    Objects.requireNonNull(remote, "remote");
+
+    if (!(remote instanceof InetSocketAddress inet)
+      || inet.getAddress() == null) {
+      return new OxServerAdmissionTicket(this, null, null);
+    }
+
+    final var now = this.clock.getAsLong();
+    if (this.sweepCounter.incrementAndGet() % SWEEP_INTERVAL == 0) {
+      this.sweep(now);
+    }
+
+    final var prefix = this.prefixOf(inet.getAddress());
+    final var result = new OxServerAdmissionRefusal[1];
+    this.entries.compute(prefix, (key, existing) -> {
+      final var entry = existing != null ? existing : new Entry(this, now);
+      result[0] = entry.admit(this, now);
+      return entry;
+    });
+
+    final var refusal = result[0];
+    if (refusal != null) {
+      return REFUSED.get(refusal);
+    }
+    return new OxServerAdmissionTicket(this, prefix, null);
+  }
+
+  void release(
+    final Prefix prefix)
+  {
+    if (prefix == null) {
+      return;
+    }
+
+    final var now = this.clock.getAsLong();
+    this.entries.computeIfPresent(prefix, (key, entry) -> {
+      --entry.connections;
+      return entry.isIdle(this, now) ? null : entry;
+    });
+  }
+
+  private void sweep(
+    final long now)
+  {
+    for (final var prefix : this.entries.keySet()) {
+      this.entries.computeIfPresent(prefix, (key, entry) -> {
+        return entry.isIdle(this, now) ? null : entry;
+      });
+    }
+  }
+
+  /**
+   * @return The number of address prefixes currently tracked
+   */
+
+  public int trackedPrefixes()
+  {
+    return this.entries.size();
+  }
+
+  private Prefix prefixOf(
+    final InetAddress address)
+  {
+    final var bytes = address.getAddress();
+
+    if (address instanceof Inet4Address) {
+      var value = 0L;
+      for (final var octet : bytes) {
+        value = (value << 8) | (octet & 0xffL);
+      }
+      final var mask =
+        this.prefixIPv4 == 0 ? 0L : (0xffff_ffffL << (32 - this.prefixIPv4));
+
+      /*
+       * IPv4 addresses are stored as IPv4-mapped IPv6 addresses so that
+       * they cannot collide with IPv6 prefixes.
+       */
+
+      return new Prefix(0L, 0xffff_0000_0000L | (value & mask & 0xffff_ffffL));
+    }
+
+    var high = 0L;
+    var low = 0L;
+    for (int index = 0; index < 8; ++index) {
+      high = (high << 8) | (bytes[index] & 0xffL);
+      low = (low << 8) | (bytes[index + 8] & 0xffL);
+    }
+
+    final var bits = this.prefixIPv6;
+    final long highMask;
+    if (bits >= 64) {
+      highMask = -1L;
+    } else if (bits == 0) {
+      highMask = 0L;
+    } else {
+      highMask = -1L << (64 - bits);
+    }
+    final var lowMask = bits <= 64 ? 0L : -1L << (128 - bits);
+    return new Prefix(high & highMask, low & lowMask);
+  }
+
+  /**
+   * A network prefix of at most 128 bits.
+   */
+
+  static final class Prefix
+  {
+    private final long high;
+    private final long low;
+
+    Prefix(
+      final long inHigh,
+      final long inLow)
+    {
+      this.high = inHigh;
+      this.low = inLow;
+    }
+
+    @Override
+    public boolean equals(
+      final Object other)
+    {
+      return other instanceof Prefix prefix
+        && this.high == prefix.high
+        && this.low == prefix.low;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Long.hashCode(this.high) * 31 + Long.hashCode(this.low);
+    }
+  }
+
+  /**
+   * The state of a single prefix. Entries are only accessed inside the
+   * atomic compute operations of the map that holds them.
+   */
+
+  private static final class Entry
+  {
+    private int connections;
+    private double tokens;
+    private long updated;
+
+    Entry(
+      final OxServerAdmission admission,
+      final long now)
+    {
+      this.connections = 0;
+      this.tokens = admission.burst;
+      this.updated = now;
+    }
+
+    private void refill(
+      final OxServerAdmission admission,
+      final long now)
+    {
+      final var elapsed = Math.max(0L, now - this.updated);
+      this.tokens =
+        Math.min(
+          admission.burst,
+          this.tokens + (elapsed * admission.tokensPerNanosecond));
+      this.updated = now;
+    }
+
+    OxServerAdmissionRefusal admit(
+      final OxServerAdmission admission,
+      final long now)
+    {
+      this.refill(admission, now);
+
+      if (this.connections >= admission.connectionLimit) {
+        return OxServerAdmissionRefusal.TOO_MANY_CONNECTIONS;
+      }
+      if (this.tokens < 1.0) {
+        return OxServerAdmissionRefusal.CONNECTING_TOO_FAST;
+      }
+
+      this.tokens -= 1.0;
+      ++this.connections;
+      return null;
+    }
+
+    boolean isIdle(
+      final OxServerAdmission admission,
+      final long now)
+    {
+      this.refill(admission, now);
+      return this.connections <= 0 && this.tokens >= admission.burst;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+
+import java.util.Objects;
+
+/**
+ * The reasons for which admission control may refuse a connection.
+ */
+
+public enum OxServerAdmissionRefusal
+{
+  /**
+   * The connecting address prefix already has the maximum number of
+   * concurrent connections.
+   */
+
+  TOO_MANY_CONNECTIONS("Too many connections from your host"),
+
+  /**
+   * The connecting address prefix is connecting faster than the permitted
+   * rate.
+   */
+
+  CONNECTING_TOO_FAST("Connecting too fast");
+
+  private final OxEncodedMessage message;
+
+  OxServerAdmissionRefusal(
+    final String reason)
+  {
+    Objects.requireNonNull(reason, "reason");
+
+    this.message =
+      OxEncodedMessage.encode(
+        OxIRCMessage.builder()
+          .setRawText("")
+          .setPrefix("")
+          .setCommand("ERROR")
+          .setTrailing(String.format(":Closing Link: (%s)", reason))
+          .build()
+      );
+  }
+
+  /**
+   * @return The encoded ERROR message sent to refused connections
+   */
+
+  public OxEncodedMessage message()
+  {
+    return this.message;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The result of submitting a connection to admission control. An admitted
+ * connection holds one of the connection slots of its address prefix until
+ * the ticket is released; releasing a ticket more than once, or releasing a
+ * refused ticket, has no effect.
+ */
+
+public final class OxServerAdmissionTicket
+{
+  private final OxServerAdmission admission;
+  private final OxServerAdmission.Prefix prefix;
+  private final OxServerAdmissionRefusal refusal;
+  private final AtomicBoolean released;
+
+  OxServerAdmissionTicket(
+    final OxServerAdmission inAdmission,
+    final OxServerAdmission.Prefix inPrefix,
+    final OxServerAdmissionRefusal inRefusal)
+  {
+    this.admission = inAdmission;
+    this.prefix = inPrefix;
+    this.refusal = inRefusal;
+    this.released = new AtomicBoolean(this.refusal != null);
+  }
+
+  /**
+   * @return {@code true} if the connection was admitted
+   */
+
+  public boolean isAdmitted()
+  {
+    return this.refusal == null;
+  }
+
+  /**
+   * @return The reason the connection was refused, if it was refused
+   */
+
+  public Optional<OxServerAdmissionRefusal> refusal()
+  {
+    return Optional.ofNullable(this.refusal);
+  }
+
+  /**
+   * Release the connection slot held by the ticket.
+   */
+
+  public void release()
+  {
+    if (this.released.compareAndSet(false, true)) {
+      this.admission.release(this.prefix);
+    }
+  }
+}
@@ -16,7 +16,8 @@
 
 package com.io7m.oxicoco.server.vanilla.internal;
 
-import com.io7m.oxicoco.errors.OxIRCErrorCommandUnknown;
+import com.io7m.oxicoco.errors.OxIRCErrorCode;
+import com.io7m.oxicoco.errors.OxIRCErrorInputTooLong;
 import com.io7m.oxicoco.errors.OxIRCErrorType;
 import com.io7m.oxicoco.errors.OxIRCReply;
 import com.io7m.oxicoco.messages.OxIRCMessage;
@@ -28,23 +29,17 @@ import com.io7m.oxicoco.server.api.OxServerConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.net.Socket;
 import java.net.SocketAddress;
-import java.net.SocketException;
-import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -52,7 +47,8 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  * A single client connected to the server.
  */
 
-public final class OxServerClient implements Closeable
+public final class OxServerClient
+  implements Closeable, OxLineReceiverType
 {
   private static final Logger LOG =
     LoggerFactory.getLogger(OxServerClient.class);
@@ -60,13 +56,27 @@ public final class OxServerClient implements Closeable
   private final OxServerControllerType serverController;
   private final OxServerClientID clientId;
   private final OxServerConfiguration configuration;
-  private final Socket socket;
+  private final OxServerClientTransportType transport;
   private final SocketAddress address;
-  private final OxIRCMessageParserFactoryType parsers;
-  private final Map<String, OxServerClientCommandHandlerType> handlers;
-  private final ConcurrentLinkedQueue<OxIRCMessage> serverMessages;
-  private OxServerClientCommandContextType context;
+  private final OxIRCMessageParserType parser;
+  private final OxLineFramer framer;
+  private final ConcurrentLinkedQueue<OxEncodedMessage> serverMessages;
+  private final OxServerClientCommandContextType context;
+  private final OxOutboundQueueStatistics queueStatistics;
+  private final OxServerMetrics metrics;
+  private final OxServerPortMetrics portMetrics;
+  private final AtomicInteger queuedMessages;
+  private final AtomicLong queuedOctets;
+  private final AtomicBoolean slowConsumer;
+  private final AtomicBoolean readingSuspended;
+  private final AtomicInteger identityVersion;
+  private final AtomicLong octetsReceived;
+  private final AtomicLong octetsSent;
+  private final AtomicLong linesReceived;
+  private final AtomicLong linesSent;
+  private final String host;
   private volatile OxUserName user;
+  private volatile Prefix prefix;
 
   /**
    * A single client connected to the server.
@@ -75,7 +85,7 @@ public final class OxServerClient implements Closeable
    * @param inParsers          A message parser factory
    * @param inServerController The server controller
    * @param inClientId         The client ID
-   * @param inSocket           The client socket
+   * @param inTransport        The client transport
    */
 
   public OxServerClient(
@@ -83,7 +93,7 @@ public final class OxServerClient implements Closeable
     final OxIRCMessageParserFactoryType inParsers,
     final OxServerControllerType inServerController,
     final OxServerClientID inClientId,
-    final Socket inSocket)
+    final OxServerClientTransportType inTransport)
   {
     this.serverController =
       Objects.requireNonNull(inServerController, "serverController");
@@ -91,40 +101,127 @@ public final class OxServerClient implements Closeable
       Objects.requireNonNull(inClientId, "clientId");
     this.configuration =
       Objects.requireNonNull(inConfiguration, "configuration");
-    this.parsers =
-      Objects.requireNonNull(inParsers, "inParsers");
-    this.socket =
-      Objects.requireNonNull(inSocket, "socket");
+    this.transport =
+      Objects.requireNonNull(inTransport, "transport");
+    this.parser =
+      Objects.requireNonNull(inParsers, "inParsers").create();
     this.address =
-      this.socket.getRemoteSocketAddress();
+      this.transport.remoteAddress();
+    this.framer =
+      new OxLineFramer(this.configuration.inputTagLimitOctets());
     this.serverMessages =
       new ConcurrentLinkedQueue<>();
     this.user =
       OxUserName.of("anonymous");
+    this.context =
+      new Context(this);
+    this.queueStatistics =
+      this.serverController.outboundQueueStatistics();
+    this.metrics =
+      this.serverController.metrics();
+    this.portMetrics =
+      this.transport.portMetrics();
+    this.queuedMessages =
+      new AtomicInteger();
+    this.queuedOctets =
+      new AtomicLong();
+    this.slowConsumer =
+      new AtomicBoolean(false);
+    this.readingSuspended =
+      new AtomicBoolean(false);
+    this.identityVersion =
+      new AtomicInteger();
+    this.octetsReceived =
+      new AtomicLong();
+    this.octetsSent =
+      new AtomicLong();
+    this.linesReceived =
+      new AtomicLong();
+    this.linesSent =
+      new AtomicLong();
+    this.host =
+      this.clientId.format();
+  }
 
-    this.handlers =
-      Map.ofEntries(
-        Map.entry("CAP", new OxServerClientCommandCAP()),
-        Map.entry("JOIN", new OxServerClientCommandJOIN()),
-        Map.entry("MODE", new OxServerClientCommandMODE()),
-        Map.entry("MOTD", new OxServerClientCommandMOTD()),
-        Map.entry("NICK", new OxServerClientCommandNICK()),
-        Map.entry("PART", new OxServerClientCommandPART()),
-        Map.entry("PING", new OxServerClientCommandPING()),
-        Map.entry("PRIVMSG", new OxServerClientCommandPRIVMSG()),
-        Map.entry("QUIT", new OxServerClientCommandQUIT()),
-        Map.entry("STATS", new OxServerClientCommandSTATS()),
-        Map.entry("TOPIC", new OxServerClientCommandTOPIC()),
-        Map.entry("USER", new OxServerClientCommandUSER()),
-        Map.entry("VERSION", new OxServerClientCommandVERSION())
-      );
+  /**
+   * @return The names of the commands that clients can execute
+   *
+   * @see OxServerClientCommands#commandNames()
+   */
+
+  public static List<String> commandNames()
+  {
+    return OxServerClientCommands.commandNames();
   }
 
   @Override
   public void close()
     throws IOException
   {
-    this.socket.close();
+    this.transport.close();
+  }
+
+  /**
+   * @return The address of the remote peer
+   */
+
+  public SocketAddress address()
+  {
+    return this.address;
+  }
+
+  /**
+   * @return The number of octets received from the client
+   */
+
+  public long octetsReceived()
+  {
+    return this.octetsReceived.get();
+  }
+
+  /**
+   * @return The number of octets sent to the client
+   */
+
+  public long octetsSent()
+  {
+    return this.octetsSent.get();
+  }
+
+  /**
+   * @return The number of lines received from the client
+   */
+
+  public long linesReceived()
+  {
+    return this.linesReceived.get();
+  }
+
+  /**
+   * @return The number of lines sent to the client
+   */
+
+  public long linesSent()
+  {
+    return this.linesSent.get();
+  }
+
+  /**
+   * @return The number of messages waiting in the client's outbound queue
+   */
+
+  public int queuedMessages()
+  {
+    return this.queuedMessages.get();
+  }
+
+  /**
+   * @return The number of octets waiting in the client's outbound queue
+   */
+
+  public long queuedOctets()
+  {
+    return this.queuedOctets.get();
   }
 
   /**
@@ -137,29 +234,153 @@ public final class OxServerClient implements Closeable
   }
 
   /**
-   * Start executing the client, returning when the client disconnects.
+   * Start executing the client. The client's transport will begin delivering
+   * input to the client, and the client will be destroyed when the
+   * transport is closed.
+   */
+
+  public void start()
+  {
+    this.info("starting");
+    this.transport.start(this);
+  }
+
+  /**
+   * @return The buffer into which the client's transport should write
+   * received bytes
+   */
+
+  public ByteBuffer inputBuffer()
+  {
+    return this.framer.buffer();
+  }
+
+  /**
+   * Called by the client's transport when bytes have been written into the
+   * {@link #inputBuffer()}, or when reading is resumed after having been
+   * suspended. All complete lines are handled, unless reading is suspended
+   * while handling them.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void onInputReceived()
+    throws IOException
+  {
+    this.framer.process(this);
+  }
+
+  /**
+   * Called by the client's transport when bytes have been received from the
+   * client, before they are delivered with {@link #onInputReceived()}.
+   *
+   * @param octets The number of octets received
    */
 
-  public void run()
-  {
-    try {
-      this.info("starting");
-      this.socket.setSoTimeout(16 * 10);
-
-      final var input =
-        this.socket.getInputStream();
-      final var output =
-        this.socket.getOutputStream();
-      final var parser =
-        this.parsers.create();
-
-      this.runLoop(input, output, parser);
-    } catch (final IOException e) {
-      this.error("i/o error: ", e);
-    } finally {
-      this.serverController.clientDestroy(this);
-      this.info("finished");
+  public void onReceivedOctets(
+    final int octets)
+  {
+    this.octetsReceived.addAndGet(octets);
+    this.portMetrics.onReceivedOctets(octets);
+  }
+
+  @Override
+  public boolean isReceivingLines()
+  {
+    return !this.readingSuspended.get() && !this.transport.isClosed();
+  }
+
+  @Override
+  public void onReceiveLineTooLong()
+  {
+    this.sendError(OxIRCErrorInputTooLong.builder().build());
+  }
+
+  @Override
+  public void onReceiveLine(
+    final byte[] data,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    this.linesReceived.incrementAndGet();
+    this.portMetrics.onReceivedLine();
+
+    if (LOG.isTraceEnabled()) {
+      this.traceInput(
+        UTF_8.decode(ByteBuffer.wrap(data, offset, length)).toString());
+    }
+
+    final var message = this.parser.parse(data, offset, length);
+    if (message.isPresent()) {
+      this.handleMessage(message.get());
+    }
+  }
+
+  /**
+   * Called by the client's transport to retrieve the next message that
+   * should be written to the client.
+   *
+   * @return The next encoded message, or {@code null} if no messages are
+   * waiting
+   */
+
+  public OxEncodedMessage pollOutbound()
+  {
+    final var message = this.serverMessages.poll();
+    if (message == null) {
+      return null;
+    }
+
+    this.onRemoved(message);
+    this.queueStatistics.onDequeued(message.size());
+    this.traceOutput(message);
+
+    if (this.readingSuspended.get() && this.isBelowLowWatermark()) {
+      this.resumeReading();
     }
+    return message;
+  }
+
+  /**
+   * @return {@code true} if the transport should not deliver input to the
+   * client because the client's outbound queue is too large
+   */
+
+  public boolean isReadingSuspended()
+  {
+    return this.readingSuspended.get();
+  }
+
+  /**
+   * Called by the client's transport when a batch of messages has been
+   * written to the client with a single write.
+   *
+   * @param messageCount The number of messages in the batch
+   * @param octetCount   The number of octets in the batch
+   */
+
+  public void onWroteBatch(
+    final int messageCount,
+    final long octetCount)
+  {
+    this.serverController.writeBatchStatistics()
+      .record(messageCount, octetCount);
+    this.linesSent.addAndGet(messageCount);
+    this.octetsSent.addAndGet(octetCount);
+    this.portMetrics.onSent(messageCount, octetCount);
+  }
+
+  /**
+   * Called by the client's transport when the transport has been closed.
+   */
+
+  public void onDisconnected()
+  {
+    this.portMetrics.onDisconnected();
+    this.serverController.clientDestroy(this);
+    this.discardQueue();
+    this.info("finished");
   }
 
   private void info(
@@ -186,13 +407,13 @@ public final class OxServerClient implements Closeable
   }
 
   private void traceOutput(
-    final String message)
+    final OxEncodedMessage message)
   {
     if (LOG.isTraceEnabled()) {
       LOG.trace(
         "[{}] ← {}",
         this.address,
-        message
+        message.message().format()
       );
     }
   }
@@ -209,128 +430,253 @@ public final class OxServerClient implements Closeable
     );
   }
 
-  private void error(
-    final String message,
-    final Object... parameters)
-  {
-    LOG.error(
-      "[{}] {}",
-      this.address,
-      String.format(message, parameters)
-    );
-  }
-
-  private void runLoop(
-    final InputStream input,
-    final OutputStream output,
-    final OxIRCMessageParserType parser)
-  {
-    final var lineReader =
-      new BufferedReader(new InputStreamReader(input, UTF_8));
-    final var lineWriter =
-      new BufferedWriter(new OutputStreamWriter(output, UTF_8));
-
-    this.context = new Context(this, lineWriter);
-
-    try {
-      while (!this.socket.isClosed()) {
-        try {
-          final var line = lineReader.readLine();
-          if (line == null) {
-            return;
-          }
-
-          this.traceInput(line);
-          final var message = parser.parse(line);
-          if (message.isPresent()) {
-            this.handleMessage(lineWriter, message.get());
-          }
-        } catch (final SocketTimeoutException e) {
-          // Expected
-        }
-
-        while (!this.socket.isClosed()) {
-          final var serverMessage = this.serverMessages.poll();
-          if (serverMessage == null) {
-            break;
-          }
-          this.sendMessage(lineWriter, serverMessage);
-        }
-      }
-    } catch (final SocketException e) {
-      if (this.socket.isClosed()) {
-        return;
-      }
-      this.error("socket error: ", e);
-    } catch (final IOException e) {
-      this.error("i/o error: ", e);
-    }
-  }
-
   private void handleMessage(
-    final BufferedWriter lineWriter,
     final OxIRCMessage message)
     throws IOException
   {
-    final var handler = this.handlers.get(message.command());
+    final var commandId = OxServerClientCommands.commandIdOf(message);
+    this.metrics.onCommand(commandId);
+
+    final var handler = OxServerClientCommands.handlerFor(commandId);
     if (handler != null) {
-      handler.execute(this.context, message);
+      final var event = new OxCommandDispatchEvent();
+      event.begin();
+
+      final var timeThen = System.nanoTime();
+      try {
+        handler.execute(this.context, message);
+      } finally {
+        this.metrics.onCommandCompleted(
+          commandId, System.nanoTime() - timeThen);
+
+        if (event.shouldCommit()) {
+          event.clientId = this.host;
+          event.command = message.command();
+          event.commit();
+        }
+      }
     } else {
-      this.sendError(
-        lineWriter,
-        OxIRCErrorCommandUnknown.of(message.command()));
+      this.metrics.onError(OxIRCErrorCode.ERR_UNKNOWNCOMMAND);
+      this.offer(
+        this.serverController.unknownCommandReply()
+          .reply(message.command())
+      );
     }
   }
 
   private void sendError(
-    final BufferedWriter lineWriter,
     final OxIRCErrorType error)
-    throws IOException
   {
+    this.metrics.onError(error.code());
+
     final var message =
       error.toMessage(Optional.of(this.configuration.serverName()));
 
-    this.sendMessage(lineWriter, message);
+    this.sendMessage(message);
   }
 
+  /*
+   * Replies to commands are always generated on the thread that is driving
+   * the client's transport, and the transport arranges for the outbound
+   * queue to be drained as soon as the command has been handled. There is
+   * therefore no need to wake up the transport for each reply.
+   */
+
   private void sendMessage(
-    final BufferedWriter lineWriter,
     final OxIRCMessage message)
-    throws IOException
   {
-    final var text = message.format();
-    this.traceOutput(text);
+    this.offer(OxEncodedMessage.encode(message));
+  }
+
+  private void offer(
+    final OxEncodedMessage message)
+  {
+    if (this.slowConsumer.get()) {
+      return;
+    }
+
+    this.serverMessages.add(message);
+    final var messages =
+      this.queuedMessages.incrementAndGet();
+    final var octets =
+      this.queuedOctets.addAndGet(message.size());
+
+    this.queueStatistics.onEnqueued(message.size(), octets);
+
+    /*
+     * Messages that arrive after the transport has closed will never be
+     * written, and so must not remain in the queue.
+     */
+
+    if (this.transport.isClosed()) {
+      this.discardQueue();
+      return;
+    }
+
+    if (messages > this.configuration.outboundQueueLimitMessages()
+      || octets > this.configuration.outboundQueueLimitOctets()) {
+      this.onQueueLimitExceeded(messages, octets);
+    }
+  }
+
+  /**
+   * Discard the queue of a client that has gone away. The messages are not
+   * counted as dropped, as they were not discarded because of the
+   * slow-consumer policy.
+   */
+
+  private void discardQueue()
+  {
+    while (true) {
+      final var message = this.serverMessages.poll();
+      if (message == null) {
+        return;
+      }
+      this.onRemoved(message);
+      this.queueStatistics.onDequeued(message.size());
+    }
+  }
 
-    lineWriter.append(text);
-    lineWriter.append('\r');
-    lineWriter.append('\n');
-    lineWriter.flush();
+  private void dropQueue()
+  {
+    while (true) {
+      final var message = this.serverMessages.poll();
+      if (message == null) {
+        return;
+      }
+      this.onRemoved(message);
+      this.queueStatistics.onDropped(message.size());
+    }
+  }
+
+  private void onRemoved(
+    final OxEncodedMessage message)
+  {
+    this.queuedMessages.decrementAndGet();
+    this.queuedOctets.addAndGet(-message.size());
+  }
+
+  private void onQueueLimitExceeded(
+    final int messages,
+    final long octets)
+  {
+    switch (this.configuration.slowConsumerPolicy()) {
+      case DISCONNECT -> {
+        this.disconnectSlowConsumer();
+      }
+      case DROP_OLDEST -> {
+        this.dropOldest();
+      }
+      case STOP_READING -> {
+        if (messages > 2 * this.configuration.outboundQueueLimitMessages()
+          || octets > 2L * this.configuration.outboundQueueLimitOctets()) {
+          this.disconnectSlowConsumer();
+        } else {
+          this.suspendReading();
+        }
+      }
+    }
+  }
+
+  private void dropOldest()
+  {
+    while (this.queuedMessages.get() > this.configuration.outboundQueueLimitMessages()
+      || this.queuedOctets.get() > this.configuration.outboundQueueLimitOctets()) {
+      final var message = this.serverMessages.poll();
+      if (message == null) {
+        return;
+      }
+      this.onRemoved(message);
+      this.queueStatistics.onDropped(message.size());
+    }
+  }
+
+  private boolean isBelowLowWatermark()
+  {
+    return this.queuedMessages.get() <= this.configuration.outboundQueueLimitMessages() / 2
+      && this.queuedOctets.get() <= this.configuration.outboundQueueLimitOctets() / 2L;
+  }
+
+  private void suspendReading()
+  {
+    if (this.readingSuspended.compareAndSet(false, true)) {
+      this.queueStatistics.onReadSuspended();
+      this.info("outbound queue full; suspending reading");
+      this.transport.onReadSuspensionChanged();
+
+      /*
+       * The queue may have drained before the flag was set, in which case
+       * the transport may never poll the queue again. Check again.
+       */
+
+      if (this.isBelowLowWatermark()) {
+        this.resumeReading();
+      }
+    }
+  }
+
+  private void resumeReading()
+  {
+    if (this.readingSuspended.compareAndSet(true, false)) {
+      this.transport.onReadSuspensionChanged();
+    }
+  }
+
+  private void disconnectSlowConsumer()
+  {
+    if (!this.slowConsumer.compareAndSet(false, true)) {
+      return;
+    }
+
+    this.queueStatistics.onSlowConsumerDisconnected();
+    this.info("outbound queue full; disconnecting");
+    this.dropQueue();
+
+    final var error =
+      OxEncodedMessage.encode(
+        OxIRCMessage.builder()
+          .setRawText("")
+          .setPrefix("")
+          .setCommand("ERROR")
+          .setTrailing(
+            String.format(":Closing Link: %s (SendQ exceeded)", this.host()))
+          .build()
+      );
+
+    this.serverMessages.add(error);
+    this.queuedMessages.incrementAndGet();
+    this.queuedOctets.addAndGet(error.size());
+    this.queueStatistics.onEnqueued(error.size(), error.size());
+    this.transport.closeAfterFlush();
   }
 
   private void sendCommandFromUser(
-    final BufferedWriter lineWriter,
     final OxUserID userID,
     final String commandName,
     final List<String> parameters,
     final String trailing)
-    throws IOException
   {
     final var builder = OxIRCMessage.builder();
     builder.setCommand(commandName);
     builder.setParameters(parameters);
     builder.setRawText("");
-    builder.setPrefix(":" + userID.format());
+
     builder.setTrailing(trailing);
 
-    this.sendMessage(lineWriter, builder.build());
+    final var current = this.prefix;
+    if (current != null && current.userId == userID) {
+      builder.setPrefix(current.text);
+      this.offer(OxEncodedMessage.encode(builder.build(), current.bytes));
+    } else {
+      builder.setPrefix(":" + userID.format());
+      this.sendMessage(builder.build());
+    }
   }
 
   private void sendReply(
-    final BufferedWriter lineWriter,
     final OxIRCReply reply,
     final List<String> parameters,
     final String trailing)
-    throws IOException
   {
     final var builder = OxIRCMessage.builder();
     builder.setCommand(reply.format());
@@ -339,15 +685,13 @@ public final class OxServerClient implements Closeable
     builder.setPrefix(":" + this.configuration.serverName().value());
     builder.setTrailing(trailing);
 
-    this.sendMessage(lineWriter, builder.build());
+    this.sendMessage(builder.build());
   }
 
   private void sendCommand(
-    final BufferedWriter lineWriter,
     final String commandName,
     final List<String> parameters,
     final String trailing)
-    throws IOException
   {
     final var builder = OxIRCMessage.builder();
     builder.setCommand(commandName);
@@ -356,7 +700,7 @@ public final class OxServerClient implements Closeable
     builder.setPrefix(":" + this.configuration.serverName().value());
     builder.setTrailing(trailing);
 
-    this.sendMessage(lineWriter, builder.build());
+    this.sendMessage(builder.build());
   }
 
   /**
@@ -380,7 +724,71 @@ public final class OxServerClient implements Closeable
   public OxUserID userId()
     throws OxNameNotRegisteredException
   {
-    return this.serverController.clientUserId(this);
+    return this.currentPrefix().userId;
+  }
+
+  /**
+   * @return The client's message prefix, such as {@code :nick!user@host}
+   *
+   * @throws OxNameNotRegisteredException If the client has not specified a nick
+   */
+
+  public String prefix()
+    throws OxNameNotRegisteredException
+  {
+    return this.currentPrefix().text;
+  }
+
+  /**
+   * Encode a message that originates from this client. The message is
+   * given the client's prefix, and the cached encoded form of the prefix is
+   * copied into the encoded message rather than being encoded again.
+   *
+   * @param builder A builder holding the rest of the message
+   *
+   * @return The encoded message
+   *
+   * @throws OxNameNotRegisteredException If the client has not specified a nick
+   */
+
+  public OxEncodedMessage encodeFromUser(
+    final OxIRCMessage.Builder builder)
+    throws OxNameNotRegisteredException
+  {
+    final var current = this.currentPrefix();
+    builder.setPrefix(current.text);
+    return OxEncodedMessage.encode(builder.build(), current.bytes);
+  }
+
+  /**
+   * Discard the cached user ID and prefix. This must be called whenever the
+   * client's nick or user name changes.
+   */
+
+  void invalidatePrefix()
+  {
+    this.identityVersion.incrementAndGet();
+  }
+
+  private Prefix currentPrefix()
+    throws OxNameNotRegisteredException
+  {
+    /*
+     * The cached prefix is only valid if it was computed at the current
+     * identity version. A prefix computed concurrently with an invalidation
+     * carries the older version and is simply recomputed on the next call.
+     */
+
+    final var version = this.identityVersion.get();
+    final var current = this.prefix;
+    if (current != null && current.version == version) {
+      return current;
+    }
+
+    final var computed =
+      new Prefix(version, this.serverController.clientUserId(this));
+    this.prefix = computed;
+    return computed;
   }
 
   /**
@@ -398,7 +806,7 @@ public final class OxServerClient implements Closeable
 
   public String host()
   {
-    return this.clientId.format();
+    return this.host;
   }
 
   /**
@@ -410,7 +818,21 @@ public final class OxServerClient implements Closeable
   public void enqueueMessage(
     final OxIRCMessage message)
   {
-    this.serverMessages.add(message);
+    this.enqueueEncoded(OxEncodedMessage.encode(message));
+  }
+
+  /**
+   * Enqueue an encoded message to the client. The message may be shared
+   * with any number of other clients.
+   *
+   * @param message The message
+   */
+
+  public void enqueueEncoded(
+    final OxEncodedMessage message)
+  {
+    this.offer(Objects.requireNonNull(message, "message"));
+    this.transport.wakeup();
   }
 
   /**
@@ -423,29 +845,43 @@ public final class OxServerClient implements Closeable
     final OxUserName name)
   {
     this.user = Objects.requireNonNull(name, "name");
+    this.invalidatePrefix();
+  }
+
+  private static final class Prefix
+  {
+    private final int version;
+    private final OxUserID userId;
+    private final String text;
+    private final byte[] bytes;
+
+    private Prefix(
+      final int inVersion,
+      final OxUserID inUserId)
+    {
+      this.version = inVersion;
+      this.userId = Objects.requireNonNull(inUserId, "userId");
+      this.text = ":" + inUserId.format();
+      this.bytes = this.text.getBytes(UTF_8);
+    }
   }
 
   private static final class Context implements OxServerClientCommandContextType
   {
     private final OxServerClient client;
-    private final BufferedWriter lineWriter;
 
     private Context(
-      final OxServerClient inClient,
-      final BufferedWriter inLineWriter)
+      final OxServerClient inClient)
     {
       this.client =
         Objects.requireNonNull(inClient, "client");
-      this.lineWriter =
-        Objects.requireNonNull(inLineWriter, "lineWriter");
     }
 
     @Override
     public void sendError(
       final OxIRCErrorType error)
-      throws IOException
     {
-      this.client.sendError(this.lineWriter, error);
+      this.client.sendError(error);
     }
 
     @Override
@@ -453,14 +889,8 @@ public final class OxServerClient implements Closeable
       final String command,
       final List<String> parameters,
       final String trailing)
-      throws IOException
     {
-      this.client.sendCommand(
-        this.lineWriter,
-        command,
-        parameters,
-        trailing
-      );
+      this.client.sendCommand(command, parameters, trailing);
     }
 
     @Override
@@ -469,15 +899,8 @@ public final class OxServerClient implements Closeable
       final String command,
       final List<String> parameters,
       final String trailing)
-      throws IOException
     {
-      this.client.sendCommandFromUser(
-        this.lineWriter,
-        userId,
-        command,
-        parameters,
-        trailing
-      );
+      this.client.sendCommandFromUser(userId, command, parameters, trailing);
     }
 
     @Override
@@ -497,9 +920,8 @@ public final class OxServerClient implements Closeable
       final OxIRCReply reply,
       final List<String> parameters,
       final String trailing)
-      throws IOException
     {
-      this.client.sendReply(this.lineWriter, reply, parameters, trailing);
+      this.client.sendReply(reply, parameters, trailing);
     }
 
     @Override
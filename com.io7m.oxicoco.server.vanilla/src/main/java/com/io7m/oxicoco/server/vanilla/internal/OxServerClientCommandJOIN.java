@@ -20,6 +20,7 @@ import com.io7m.oxicoco.errors.OxIRCErrorChannelInvalid;
 import com.io7m.oxicoco.errors.OxIRCErrorNeedMoreParameters;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
 
 import java.io.IOException;
 import java.util.List;
@@ -61,7 +62,7 @@ public final class OxServerClientCommandJOIN
     final OxChannelName channelName;
 
     try {
-      channelName = OxChannelName.of(channel);
+      channelName = OxChannelNames.INSTANCE.intern(channel);
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorChannelInvalid.builder().build());
       return;
@@ -71,12 +72,20 @@ public final class OxServerClientCommandJOIN
       context.serverController()
         .channelJoin(context.client(), channelName);
 
+    /*
+     * Replies use the name with which the channel was created, which may
+     * differ in case from the name the client requested.
+     */
+
+    final var displayName =
+      result.channel().name().value();
+
     try {
       context.sendCommandFromUser(
         context.userId(),
         "JOIN",
         List.of(),
-        ":" + channelName.value()
+        ":" + displayName
       );
 
       final var currentNick = context.nick();
@@ -84,7 +93,7 @@ public final class OxServerClientCommandJOIN
 
       context.sendReply(
         RPL_TOPIC,
-        List.of(currentNickText, channelName.value()),
+        List.of(currentNickText, displayName),
         ":" + result.channel().topic().value()
       );
 
@@ -98,14 +107,14 @@ public final class OxServerClientCommandJOIN
       for (final var nick : nicks) {
         context.sendReply(
           RPL_NAMREPLY,
-          List.of(currentNickText, "=", channelName.value()),
+          List.of(currentNickText, "=", displayName),
           ":" + nick.value()
         );
       }
 
       context.sendReply(
         RPL_ENDOFNAMES,
-        List.of(currentNickText, channelName.value()),
+        List.of(currentNickText, displayName),
         ""
       );
     } catch (final OxNameNotRegisteredException e) {
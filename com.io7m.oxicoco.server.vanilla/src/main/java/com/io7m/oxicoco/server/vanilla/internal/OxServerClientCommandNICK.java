@@ -19,6 +19,7 @@ package com.io7m.oxicoco.server.vanilla.internal;
 import com.io7m.oxicoco.errors.OxIRCErrorNickInvalid;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 import com.io7m.oxicoco.names.OxNickName;
+import com.io7m.oxicoco.names.OxNickNames;
 
 import java.io.IOException;
 import java.util.List;
@@ -56,7 +57,7 @@ public final class OxServerClientCommandNICK
 
     final OxNickName name;
     try {
-      name = OxNickName.of(parameters.get(0));
+      name = OxNickNames.INSTANCE.intern(parameters.get(0));
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorNickInvalid.builder().build());
       return;
@@ -20,6 +20,7 @@ import com.io7m.oxicoco.errors.OxIRCErrorChannelInvalid;
 import com.io7m.oxicoco.errors.OxIRCErrorNeedMoreParameters;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
 
 import java.io.IOException;
 import java.util.List;
@@ -56,7 +57,7 @@ public final class OxServerClientCommandPART
     final OxChannelName channelName;
 
     try {
-      channelName = OxChannelName.of(channel);
+      channelName = OxChannelNames.INSTANCE.intern(channel);
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorChannelInvalid.builder().build());
       return;
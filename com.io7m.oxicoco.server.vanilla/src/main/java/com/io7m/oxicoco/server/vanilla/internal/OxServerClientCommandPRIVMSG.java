@@ -21,7 +21,9 @@ import com.io7m.oxicoco.errors.OxIRCErrorNeedMoreParameters;
 import com.io7m.oxicoco.errors.OxIRCErrorNickInvalid;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
 import com.io7m.oxicoco.names.OxNickName;
+import com.io7m.oxicoco.names.OxNickNames;
 
 import java.io.IOException;
 
@@ -70,7 +72,7 @@ public final class OxServerClientCommandPRIVMSG
   {
     final OxNickName nickName;
     try {
-      nickName = OxNickName.of(target);
+      nickName = OxNickNames.INSTANCE.intern(target);
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorNickInvalid.builder().build());
       return;
@@ -95,7 +97,7 @@ public final class OxServerClientCommandPRIVMSG
   {
     final OxChannelName channelName;
     try {
-      channelName = OxChannelName.of(target);
+      channelName = OxChannelNames.INSTANCE.intern(target);
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorChannelInvalid.builder().build());
       return;
@@ -19,9 +19,13 @@ package com.io7m.oxicoco.server.vanilla.internal;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
 
 import static com.io7m.oxicoco.errors.OxIRCReply.RPL_ENDOFSTATS;
+import static com.io7m.oxicoco.errors.OxIRCReply.RPL_STATSCOMMANDS;
 import static com.io7m.oxicoco.errors.OxIRCReply.RPL_STATSGENERIC;
+import static com.io7m.oxicoco.errors.OxIRCReply.RPL_STATSLINKINFO;
 import static com.io7m.oxicoco.errors.OxIRCReply.RPL_STATSUPTIME;
 
 /**
@@ -31,6 +35,13 @@ import static com.io7m.oxicoco.errors.OxIRCReply.RPL_STATSUPTIME;
 public final class OxServerClientCommandSTATS
   implements OxServerClientCommandHandlerType
 {
+  /*
+   * The maximum number of links reported by a single STATS l query, so
+   * that a query on a busy server cannot fill the requester's send queue.
+   */
+
+  private static final int LINKS_LIMIT = 64;
+
   /**
    * The STATS command.
    */
@@ -63,6 +74,158 @@ public final class OxServerClientCommandSTATS
     context.sendReply(RPL_ENDOFSTATS);
   }
 
+  private static void executeWrites(
+    final OxServerClientCommandContextType context)
+    throws IOException
+  {
+    final var statistics =
+      context.serverController().writeBatchStatistics();
+
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Write batches:  " + statistics.batches());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Write messages: " + statistics.messages());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Write octets:   " + statistics.octets());
+
+    for (int index = 0; index < statistics.bucketCount(); ++index) {
+      final var count = statistics.bucket(index);
+      if (count > 0L) {
+        context.sendReply(
+          RPL_STATSGENERIC,
+          String.format(
+            ": Write batch size >= %d: %d",
+            Integer.valueOf(1 << index),
+            Long.valueOf(count))
+        );
+      }
+    }
+    context.sendReply(RPL_ENDOFSTATS);
+  }
+
+  private static void executeQueues(
+    final OxServerClientCommandContextType context)
+    throws IOException
+  {
+    final var statistics =
+      context.serverController().outboundQueueStatistics();
+
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Queued messages:           " + statistics.queuedMessages());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Queued octets:             " + statistics.queuedOctets());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Queued octets (max):       " + statistics.queuedOctetsMaximum());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Dropped messages:          " + statistics.messagesDropped());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Slow consumer disconnects: " + statistics.slowConsumerDisconnects());
+    context.sendReply(
+      RPL_STATSGENERIC,
+      ": Read suspensions:          " + statistics.readSuspensions());
+    context.sendReply(RPL_ENDOFSTATS);
+  }
+
+  private static String formatMicros(
+    final long nanos)
+  {
+    return String.format(
+      Locale.ROOT, "%.1fus", Double.valueOf(nanos / 1000.0));
+  }
+
+  private static void executeCommands(
+    final OxServerClientCommandContextType context)
+    throws IOException
+  {
+    final var metrics = context.serverController().metrics();
+    final var names = metrics.commandNames();
+
+    for (int index = 0; index < names.size(); ++index) {
+      final var latency = metrics.commandLatency(index);
+      final var count = latency.count();
+      if (count == 0L) {
+        continue;
+      }
+
+      context.sendReply(
+        RPL_STATSCOMMANDS,
+        List.of(names.get(index), Long.toString(count)),
+        String.format(
+          ":p50 %s p99 %s p999 %s",
+          formatMicros(latency.percentileNanos(50.0)),
+          formatMicros(latency.percentileNanos(99.0)),
+          formatMicros(latency.percentileNanos(99.9)))
+      );
+    }
+
+    final var unknown = metrics.commandsUnknown();
+    if (unknown > 0L) {
+      context.sendReply(
+        RPL_STATSGENERIC,
+        ": Unknown commands: " + unknown);
+    }
+    context.sendReply(RPL_ENDOFSTATS);
+  }
+
+  private static String linkName(
+    final OxServerClient client)
+  {
+    String name;
+    try {
+      name = client.nick().value();
+    } catch (final OxNameNotRegisteredException e) {
+      name = "*";
+    }
+    return name + "[" + client.host() + "]";
+  }
+
+  /*
+   * Each link is reported as the link name, the number of octets in the
+   * client's send queue, the lines and octets sent to the client, and the
+   * lines and octets received from the client. The trailing parameter
+   * gives the number of messages in the send queue. Links are named by
+   * the client's masked host rather than its address, and at most
+   * LINKS_LIMIT links are reported.
+   */
+
+  private static void executeLinks(
+    final OxServerClientCommandContextType context)
+    throws IOException
+  {
+    var remaining = LINKS_LIMIT;
+    for (final var client : context.serverController().clients()) {
+      if (remaining == 0) {
+        context.sendReply(
+          RPL_STATSGENERIC,
+          ": Links not shown: limit of " + LINKS_LIMIT + " reached");
+        break;
+      }
+      --remaining;
+
+      context.sendReply(
+        RPL_STATSLINKINFO,
+        List.of(
+          linkName(client),
+          Long.toString(client.queuedOctets()),
+          Long.toString(client.linesSent()),
+          Long.toString(client.octetsSent()),
+          Long.toString(client.linesReceived()),
+          Long.toString(client.octetsReceived())
+        ),
+        ":" + client.queuedMessages()
+      );
+    }
+    context.sendReply(RPL_ENDOFSTATS);
+  }
+
   @Override
   public void execute(
     final OxServerClientCommandContextType context,
@@ -85,6 +248,22 @@ public final class OxServerClientCommandSTATS
         executeClients(context);
         break;
       }
+      case "l": {
+        executeLinks(context);
+        break;
+      }
+      case "m": {
+        executeCommands(context);
+        break;
+      }
+      case "q": {
+        executeQueues(context);
+        break;
+      }
+      case "w": {
+        executeWrites(context);
+        break;
+      }
       default: {
         context.sendReply(RPL_ENDOFSTATS);
         return;
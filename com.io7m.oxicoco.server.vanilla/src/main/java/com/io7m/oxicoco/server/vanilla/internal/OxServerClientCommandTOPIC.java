@@ -21,6 +21,7 @@ import com.io7m.oxicoco.errors.OxIRCErrorNeedMoreParameters;
 import com.io7m.oxicoco.errors.OxIRCErrorTopicInvalid;
 import com.io7m.oxicoco.messages.OxIRCMessage;
 import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
 import com.io7m.oxicoco.names.OxTopic;
 
 import java.io.IOException;
@@ -108,7 +109,7 @@ public final class OxServerClientCommandTOPIC
     final OxChannelName channelName;
 
     try {
-      channelName = OxChannelName.of(channel);
+      channelName = OxChannelNames.INSTANCE.intern(channel);
     } catch (final IllegalArgumentException e) {
       context.sendError(OxIRCErrorChannelInvalid.builder().build());
       return;
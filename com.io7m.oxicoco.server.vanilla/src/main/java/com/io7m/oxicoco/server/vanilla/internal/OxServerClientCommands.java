@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageType;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * The server-wide command dispatch table. The handlers are stateless and are
+ * shared between all clients. Each command is assigned an ID equal to its
+ * index in {@link #commandNames()}; parsers constructed with that list
+ * resolve the ID of each command as the message is parsed, allowing the
+ * handler to be found without a map lookup.
+ */
+
+public final class OxServerClientCommands
+{
+  private static final List<String> NAMES;
+  private static final OxServerClientCommandHandlerType[] HANDLERS;
+  private static final Map<String, Integer> BY_NAME;
+
+  static {
+    final var entries = List.of(
+      Map.entry("CAP", new OxServerClientCommandCAP()),
+      Map.entry("JOIN", new OxServerClientCommandJOIN()),
+      Map.entry("MODE", new OxServerClientCommandMODE()),
+      Map.entry("MOTD", new OxServerClientCommandMOTD()),
+      Map.entry("NICK", new OxServerClientCommandNICK()),
+      Map.entry("PART", new OxServerClientCommandPART()),
+      Map.entry("PING", new OxServerClientCommandPING()),
+      Map.entry("PRIVMSG", new OxServerClientCommandPRIVMSG()),
+      Map.entry("QUIT", new OxServerClientCommandQUIT()),
+      Map.entry("STATS", new OxServerClientCommandSTATS()),
+      Map.entry("TOPIC", new OxServerClientCommandTOPIC()),
+      Map.entry("USER", new OxServerClientCommandUSER()),
+      Map.entry("VERSION", new OxServerClientCommandVERSION())
+    );
+
+    NAMES =
+      entries.stream()
+        .map(Map.Entry::getKey)
+        .toList();
+    HANDLERS =
+      entries.stream()
+        .map(Map.Entry::getValue)
+        .toArray(OxServerClientCommandHandlerType[]::new);
+    BY_NAME =
+      IntStream.range(0, NAMES.size())
+        .boxed()
+        .collect(Collectors.toUnmodifiableMap(NAMES::get, Function.identity()));
+  }
+
+  private OxServerClientCommands()
+  {
+
+  }
+
+  /**
+   * @return The names of the commands that clients can execute, in command
+   * ID order
+   */
+
+  public static List<String> commandNames()
+  {
+    return NAMES;
+  }
+
+  /**
+   * Find the command ID of the given message. The command ID resolved by
+   * the parser is used if it refers to the same command; messages produced
+   * by parsers that do not resolve command IDs fall back to a lookup by name.
+   *
+   * @param message The message
+   *
+   * @return The command ID, or {@link OxIRCMessageType#COMMAND_UNKNOWN} if the
+   * command is unknown
+   */
+
+  public static int commandIdOf(
+    final OxIRCMessage message)
+  {
+    Objects.requireNonNull(message, "message");
+
+    final var id = message.commandId();
+    final var command = message.command();
+    if (id >= 0 && id < HANDLERS.length && NAMES.get(id).equals(command)) {
+      return id;
+    }
+
+    final var named = BY_NAME.get(command);
+    if (named != null) {
+      return named.intValue();
+    }
+    return OxIRCMessageType.COMMAND_UNKNOWN;
+  }
+
+  /**
+   * @param commandId A command ID
+   *
+   * @return The handler, or {@code null} if the command is unknown
+   *
+   * @see #commandIdOf(OxIRCMessage)
+   */
+
+  public static OxServerClientCommandHandlerType handlerFor(
+    final int commandId)
+  {
+    if (commandId >= 0 && commandId < HANDLERS.length) {
+      return HANDLERS[commandId];
+    }
+    return null;
+  }
+
+  /**
+   * Find the handler for the given message.
+   *
+   * @param message The message
+   *
+   * @return The handler, or {@code null} if the command is unknown
+   *
+   * @see #commandIdOf(OxIRCMessage)
+   */
+
+  public static OxServerClientCommandHandlerType handlerFor(
+    final OxIRCMessage message)
+  {
+    return handlerFor(commandIdOf(message));
+  }
+}
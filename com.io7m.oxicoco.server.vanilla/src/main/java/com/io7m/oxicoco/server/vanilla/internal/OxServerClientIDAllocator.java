@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The default client ID allocator. IDs are produced by passing the value of
+ * a lock-free counter through a keyed, reversible scramble. As the scramble
+ * is a permutation of the 32-bit integers, no ID is repeated until
+ * 2<sup>32</sup> IDs have been allocated, and so allocation never needs to
+ * check for or retry on collisions. The keys are chosen once when the
+ * allocator is created, so IDs are not predictable from one another without
+ * knowledge of the keys.
+ */
+
+public final class OxServerClientIDAllocator
+  implements OxServerClientIDAllocatorType
+{
+  private static final int MULTIPLIER_0 = 0x9e3779b1;
+  private static final int MULTIPLIER_1 = 0x85ebca6b;
+  private static final int MULTIPLIER_0_INVERSE = inverseOf(MULTIPLIER_0);
+  private static final int MULTIPLIER_1_INVERSE = inverseOf(MULTIPLIER_1);
+
+  private final AtomicInteger counter;
+  private final int key0;
+  private final int key1;
+  private final int key2;
+
+  private OxServerClientIDAllocator(
+    final int inKey0,
+    final int inKey1,
+    final int inKey2)
+  {
+    this.key0 = inKey0;
+    this.key1 = inKey1;
+    this.key2 = inKey2;
+    this.counter = new AtomicInteger();
+  }
+
+  /**
+   * Create an allocator, taking the scramble keys from the given random
+   * number generator. The generator is only used during this call.
+   *
+   * @param random A random number generator
+   *
+   * @return A new allocator
+   */
+
+  public static OxServerClientIDAllocator create(
+    final Random random)
+  {
+    Objects.requireNonNull(random, "random");
+    return new OxServerClientIDAllocator(
+      random.nextInt(),
+      random.nextInt(),
+      random.nextInt()
+    );
+  }
+
+  /**
+   * @return The multiplicative inverse of the odd number {@code x} modulo
+   * 2<sup>32</sup>
+   */
+
+  private static int inverseOf(
+    final int x)
+  {
+    int inverse = x;
+    for (int index = 0; index < 4; ++index) {
+      inverse *= 2 - x * inverse;
+    }
+    return inverse;
+  }
+
+  @Override
+  public OxServerClientID allocate()
+  {
+    return OxServerClientID.of(this.scramble(this.counter.getAndIncrement()));
+  }
+
+  /**
+   * Scramble the given counter value.
+   *
+   * @param value The counter value
+   *
+   * @return The scrambled value
+   */
+
+  public int scramble(
+    final int value)
+  {
+    int x = value ^ this.key0;
+    x *= MULTIPLIER_0;
+    x ^= x >>> 16;
+    x += this.key1;
+    x *= MULTIPLIER_1;
+    x ^= x >>> 13;
+    return x ^ this.key2;
+  }
+
+  /**
+   * Reverse the scramble applied by {@link #scramble(int)}.
+   *
+   * @param value The scrambled value
+   *
+   * @return The original counter value
+   */
+
+  public int unscramble(
+    final int value)
+  {
+    int x = value ^ this.key2;
+    x ^= (x >>> 13) ^ (x >>> 26);
+    x *= MULTIPLIER_1_INVERSE;
+    x -= this.key1;
+    x ^= x >>> 16;
+    x *= MULTIPLIER_0_INVERSE;
+    return x ^ this.key0;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.io.Closeable;
+import java.net.SocketAddress;
+
+/**
+ * The type of transports that carry the traffic of a single client. A
+ * transport is responsible for reading lines from the client, delivering
+ * them to the client, and writing the client's outbound messages.
+ */
+
+public interface OxServerClientTransportType extends Closeable
+{
+  /**
+   * @return The address of the remote peer
+   */
+
+  SocketAddress remoteAddress();
+
+  /**
+   * @return The metrics for the port on which the client connected
+   */
+
+  OxServerPortMetrics portMetrics();
+
+  /**
+   * @return {@code true} if the transport has been closed
+   */
+
+  boolean isClosed();
+
+  /**
+   * Start delivering input to the given client. This method must not block;
+   * transports that require a thread of their own must arrange for one.
+   * When the transport is closed, the transport calls
+   * {@link OxServerClient#onDisconnected()} exactly once.
+   *
+   * @param client The client
+   */
+
+  void start(OxServerClient client);
+
+  /**
+   * Indicate that the client has outbound messages waiting. This method may
+   * be called from any thread.
+   */
+
+  void wakeup();
+
+  /**
+   * Indicate that the value of {@link OxServerClient#isReadingSuspended()}
+   * may have changed. While reading is suspended, the transport must not
+   * deliver further input to the client. This method may be called from any
+   * thread.
+   */
+
+  void onReadSuspensionChanged();
+
+  /**
+   * Close the transport after delivering any messages that are still
+   * queued. The method does not block: the transport delivers the queued
+   * messages on its own threads and closes once they have been written.
+   * A client that does not accept the messages within a bounded time is
+   * closed regardless. This method may be called from any thread.
+   */
+
+  void closeAfterFlush();
+}
@@ -24,23 +24,20 @@ import com.io7m.oxicoco.names.OxChannelName;
 import com.io7m.oxicoco.names.OxNickName;
 import com.io7m.oxicoco.names.OxTopic;
 import com.io7m.oxicoco.server.api.OxServerConfiguration;
-import io.reactivex.rxjava3.core.Observable;
-import io.reactivex.rxjava3.subjects.PublishSubject;
-import io.reactivex.rxjava3.subjects.Subject;
-import net.jcip.annotations.GuardedBy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.Socket;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Supplier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -53,18 +50,19 @@ public final class OxServerController implements OxServerControllerType
   private static final Logger LOG =
     LoggerFactory.getLogger(OxServerController.class);
 
-  private final Subject<OxServerEventType> eventSubject;
-  private final Observable<OxServerEventType> events;
+  private final ExecutorService eventExecutor;
+  private final OxServerEventBus events;
   private final OxServerConfiguration configuration;
   private final Clock clock;
   private final OxIRCMessageParserFactoryType parsers;
-  private final Supplier<OxServerClientID> idSupplier;
+  private final OxServerClientIDAllocatorType idAllocator;
   private final OffsetDateTime timeStart;
+  private final OxWriteBatchStatistics writeBatchStatistics;
+  private final OxOutboundQueueStatistics outboundQueueStatistics;
+  private final OxServerMetrics metrics;
+  private final OxUnknownCommandReply unknownCommandReply;
 
-  private final Object stateLock;
-  @GuardedBy("stateLock")
   private final OxClientMap clientMap;
-  @GuardedBy("stateLock")
   private final OxChannelMap channelMap;
 
   /**
@@ -73,14 +71,14 @@ public final class OxServerController implements OxServerControllerType
    * @param inConfiguration The server configuration
    * @param inClock         A clock used for various time-based operations
    * @param inParsers       The message parsers
-   * @param inIdSupplier    A supplier of client IDs
+   * @param inIdAllocator   An allocator of client IDs
    */
 
   public OxServerController(
     final OxServerConfiguration inConfiguration,
     final Clock inClock,
     final OxIRCMessageParserFactoryType inParsers,
-    final Supplier<OxServerClientID> inIdSupplier)
+    final OxServerClientIDAllocatorType inIdAllocator)
   {
     this.configuration =
       Objects.requireNonNull(inConfiguration, "inConfiguration");
@@ -88,17 +86,33 @@ public final class OxServerController implements OxServerControllerType
       Objects.requireNonNull(inClock, "inClock");
     this.parsers =
       Objects.requireNonNull(inParsers, "inParsers");
-    this.idSupplier =
-      Objects.requireNonNull(inIdSupplier, "idSupplier");
-    this.eventSubject =
-      PublishSubject.<OxServerEventType>create()
-        .toSerialized();
-
-    this.events = this.eventSubject;
+    this.idAllocator =
+      Objects.requireNonNull(inIdAllocator, "idAllocator");
+    this.eventExecutor =
+      Executors.newThreadPerTaskExecutor(r -> {
+        final var th = Thread.ofVirtual().unstarted(r);
+        th.setName(String.format(
+          "com.io7m.oxicoco.server.events[%d]",
+          Long.valueOf(th.threadId()))
+        );
+        return th;
+      });
+    this.events =
+      new OxServerEventBus(this.eventExecutor);
     this.timeStart = OffsetDateTime.now(this.clock);
-    this.stateLock = new Object();
-    this.clientMap = new OxClientMap(this.idSupplier);
-    this.channelMap = new OxChannelMap();
+    this.writeBatchStatistics = new OxWriteBatchStatistics();
+    this.outboundQueueStatistics = new OxOutboundQueueStatistics();
+    this.metrics =
+      new OxServerMetrics(
+        OxServerClientCommands.commandNames(),
+        this.outboundQueueStatistics
+      );
+    this.unknownCommandReply =
+      new OxUnknownCommandReply(this.configuration.serverName());
+    this.clientMap =
+      new OxClientMap(this.configuration.caseMapping(), this.idAllocator);
+    this.channelMap =
+      new OxChannelMap(this.configuration.caseMapping());
   }
 
   private static Stream<OxNickName> nickOrNothing(
@@ -112,30 +126,30 @@ public final class OxServerController implements OxServerControllerType
   }
 
   @Override
-  public Observable<OxServerEventType> events()
+  public OxServerEventBus events()
   {
     return this.events;
   }
 
   @Override
   public OxServerClient clientCreate(
-    final Socket socket)
+    final OxServerClientTransportType transport)
   {
-    Objects.requireNonNull(socket, "socket");
+    Objects.requireNonNull(transport, "transport");
 
     final OxServerClient client;
-    synchronized (this.stateLock) {
-      client = this.clientMap.clientCreate(clientId -> {
-        return this.clientCreateInternal(socket, clientId);
-      });
-    }
+    client = this.clientMap.clientCreate(clientId -> {
+      return this.clientCreateInternal(transport, clientId);
+    });
 
-    this.eventSubject.onNext(OxServerClientCreated.of(client));
+    if (this.events.hasSubscribers(OxServerClientCreated.class)) {
+      this.events.publish(OxServerClientCreated.of(client));
+    }
     return client;
   }
 
   private OxServerClient clientCreateInternal(
-    final Socket socket,
+    final OxServerClientTransportType transport,
     final OxServerClientID clientId)
   {
     return new OxServerClient(
@@ -143,7 +157,7 @@ public final class OxServerController implements OxServerControllerType
       this.parsers,
       this,
       clientId,
-      socket
+      transport
     );
   }
 
@@ -153,6 +167,30 @@ public final class OxServerController implements OxServerControllerType
     return Duration.between(this.timeStart, OffsetDateTime.now(this.clock));
   }
 
+  @Override
+  public OxWriteBatchStatistics writeBatchStatistics()
+  {
+    return this.writeBatchStatistics;
+  }
+
+  @Override
+  public OxOutboundQueueStatistics outboundQueueStatistics()
+  {
+    return this.outboundQueueStatistics;
+  }
+
+  @Override
+  public OxServerMetrics metrics()
+  {
+    return this.metrics;
+  }
+
+  @Override
+  public OxUnknownCommandReply unknownCommandReply()
+  {
+    return this.unknownCommandReply;
+  }
+
   @Override
   public Optional<OxNickName> clientSetNick(
     final OxServerClient client,
@@ -163,18 +201,19 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(name, "name");
 
     final Optional<OxNickName> oldNameOpt;
-    synchronized (this.stateLock) {
-      oldNameOpt = this.clientMap.clientSetNick(client, name);
+    oldNameOpt = this.clientMap.clientSetNick(client, name);
+    client.invalidatePrefix();
+
+    if (this.events.hasSubscribers(OxServerClientNickChanged.class)) {
+      this.events.publish(
+        OxServerClientNickChanged.builder()
+          .setClient(client)
+          .setOldName(oldNameOpt)
+          .setNewName(name)
+          .build()
+      );
     }
 
-    this.eventSubject.onNext(
-      OxServerClientNickChanged.builder()
-        .setClient(client)
-        .setOldName(oldNameOpt)
-        .setNewName(name)
-        .build()
-    );
-
     if (oldNameOpt.isPresent()) {
       try {
         final var oldUserId =
@@ -183,12 +222,14 @@ public final class OxServerController implements OxServerControllerType
           this.clientsWatching(client);
 
         this.sendMessageToClients(
-          OxIRCMessage.builder()
-            .setRawText("")
-            .setPrefix(":" + oldUserId.format())
-            .setCommand("NICK")
-            .setTrailing(":" + name.value())
-            .build(),
+          OxEncodedMessage.encode(
+            OxIRCMessage.builder()
+              .setRawText("")
+              .setPrefix(":" + oldUserId.format())
+              .setCommand("NICK")
+              .setTrailing(":" + name.value())
+              .build()
+          ),
           clientsWatching
         );
       } catch (final OxNameNotRegisteredException e) {
@@ -201,14 +242,7 @@ public final class OxServerController implements OxServerControllerType
   private Collection<OxServerClientID> clientsWatching(
     final OxServerClient client)
   {
-    synchronized (this.stateLock) {
-      final var clientsInChannels =
-        this.channelMap.channelsFor(client).stream()
-          .flatMap(name -> this.channelMap.channelClients(name).stream());
-
-      return Stream.concat(Stream.of(client.id()), clientsInChannels)
-        .collect(Collectors.toSet());
-    }
+    return this.channelMap.clientsWatching(client);
   }
 
   @Override
@@ -217,17 +251,17 @@ public final class OxServerController implements OxServerControllerType
   {
     Objects.requireNonNull(client, "client");
 
-    try {
-      final var clientsWatching =
-        this.clientsWatching(client);
+    final var clientsWatching =
+      this.channelMap.clientRemove(client);
 
+    try {
       this.sendMessageToClients(
-        OxIRCMessage.builder()
-          .setRawText("")
-          .setPrefix(":" + client.userId().format())
-          .setCommand("QUIT")
-          .setTrailing("")
-          .build(),
+        client.encodeFromUser(
+          OxIRCMessage.builder()
+            .setRawText("")
+            .setCommand("QUIT")
+            .setTrailing("")
+        ),
         clientsWatching
       );
     } catch (final OxNameNotRegisteredException e) {
@@ -235,9 +269,7 @@ public final class OxServerController implements OxServerControllerType
     }
 
     final var clientId = client.id();
-    synchronized (this.stateLock) {
-      this.clientMap.clientDestroy(client);
-    }
+    this.clientMap.clientDestroy(client);
 
     try {
       client.close();
@@ -245,7 +277,9 @@ public final class OxServerController implements OxServerControllerType
       LOG.error("error destroying client: ", e);
     }
 
-    this.eventSubject.onNext(OxServerClientDestroyed.of(clientId));
+    if (this.events.hasSubscribers(OxServerClientDestroyed.class)) {
+      this.events.publish(OxServerClientDestroyed.of(clientId));
+    }
   }
 
   @Override
@@ -255,11 +289,9 @@ public final class OxServerController implements OxServerControllerType
   {
     Objects.requireNonNull(client, "client");
 
-    synchronized (this.stateLock) {
-      return this.clientMap.clientNick(client)
-        .orElseThrow(() -> new OxNameNotRegisteredException(
-          "Client has not registered a nick yet"));
-    }
+    return this.clientMap.clientNick(client)
+      .orElseThrow(() -> new OxNameNotRegisteredException(
+        "Client has not registered a nick yet"));
   }
 
   @Override
@@ -269,11 +301,9 @@ public final class OxServerController implements OxServerControllerType
   {
     Objects.requireNonNull(client, "client");
 
-    synchronized (this.stateLock) {
-      return this.clientMap.clientUserId(client)
-        .orElseThrow(() -> new OxNameNotRegisteredException(
-          "Client has not registered an ID yet"));
-    }
+    return this.clientMap.clientUserId(client)
+      .orElseThrow(() -> new OxNameNotRegisteredException(
+        "Client has not registered an ID yet"));
   }
 
   @Override
@@ -285,51 +315,41 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(channelName, "channelName");
 
     final OxChannelJoinResult result;
-    synchronized (this.stateLock) {
-      result = this.channelMap.channelJoin(
-        client,
-        channelName,
-        name -> new OxChannel(this, name)
-      );
-    }
+    result = this.channelMap.channelJoin(
+      client,
+      channelName,
+      name -> new OxChannel(this, name)
+    );
 
     switch (result.status()) {
       case CHANNEL_ALREADY_JOINED: {
         break;
       }
       case CHANNEL_JOINED_EXISTING: {
-        this.eventSubject.onNext(
-          OxServerChannelJoined.builder()
-            .setChannel(result.channel())
-            .setClient(client)
-            .build()
-        );
+        this.publishJoined(client, result.channel());
         break;
       }
       case CHANNEL_JOINED_CREATED: {
-        this.eventSubject.onNext(
-          OxServerChannelCreated.builder()
-            .setChannel(result.channel())
-            .build()
-        );
-        this.eventSubject.onNext(
-          OxServerChannelJoined.builder()
-            .setChannel(result.channel())
-            .setClient(client)
-            .build()
-        );
+        if (this.events.hasSubscribers(OxServerChannelCreated.class)) {
+          this.events.publish(
+            OxServerChannelCreated.builder()
+              .setChannel(result.channel())
+              .build()
+          );
+        }
+        this.publishJoined(client, result.channel());
         break;
       }
     }
 
     try {
       this.sendMessageToClients(
-        OxIRCMessage.builder()
-          .setRawText("")
-          .setPrefix(":" + client.userId().format())
-          .setCommand("JOIN")
-          .setTrailing(":" + channelName.value())
-          .build(),
+        client.encodeFromUser(
+          OxIRCMessage.builder()
+            .setRawText("")
+            .setCommand("JOIN")
+            .setTrailing(":" + result.channel().name().value())
+        ),
         result.notifyUsers()
       );
     } catch (final OxNameNotRegisteredException e) {
@@ -338,19 +358,52 @@ public final class OxServerController implements OxServerControllerType
     return result;
   }
 
+  private void publishJoined(
+    final OxServerClient client,
+    final OxChannel channel)
+  {
+    if (this.events.hasSubscribers(OxServerChannelJoined.class)) {
+      this.events.publish(
+        OxServerChannelJoined.builder()
+          .setChannel(channel)
+          .setClient(client)
+          .build()
+      );
+    }
+  }
+
   private void sendMessageToClients(
-    final OxIRCMessage message,
+    final OxEncodedMessage encoded,
     final Collection<OxServerClientID> targets)
   {
     final Collection<OxServerClient> notifyClients;
-    synchronized (this.stateLock) {
-      notifyClients =
-        targets.stream()
-          .flatMap(id -> this.clientMap.clientOf(id).stream())
-          .collect(Collectors.toList());
+    notifyClients =
+      targets.stream()
+        .flatMap(id -> this.clientMap.clientOf(id).stream())
+        .collect(Collectors.toList());
+
+    if (notifyClients.isEmpty()) {
+      return;
     }
 
-    notifyClients.forEach(notifyClient -> notifyClient.enqueueMessage(message));
+    /*
+     * The message is encoded once, and the encoded form is shared between
+     * all of the recipients.
+     */
+
+    final var event = new OxFanOutEvent();
+    event.begin();
+
+    for (final var notifyClient : notifyClients) {
+      notifyClient.enqueueEncoded(encoded);
+    }
+
+    if (event.shouldCommit()) {
+      event.command = encoded.message().command();
+      event.recipients = notifyClients.size();
+      event.octets = encoded.size();
+      event.commit();
+    }
   }
 
   @Override
@@ -359,13 +412,11 @@ public final class OxServerController implements OxServerControllerType
   {
     Objects.requireNonNull(channelName, "channelName");
 
-    synchronized (this.stateLock) {
-      return this.channelMap.channelClients(channelName)
-        .stream()
-        .flatMap(id -> this.clientMap.clientOf(id).stream())
-        .flatMap(OxServerController::nickOrNothing)
-        .collect(Collectors.toList());
-    }
+    return this.channelMap.channelOf(channelName)
+      .stream()
+      .flatMap(channel -> Arrays.stream(channel.members()))
+      .flatMap(OxServerController::nickOrNothing)
+      .collect(Collectors.toList());
   }
 
   @Override
@@ -378,25 +429,25 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(channelName, "channelName");
 
     final OxChannelPartResult result;
-    synchronized (this.stateLock) {
-      result = this.channelMap.channelPart(client, channelName);
+    result = this.channelMap.channelPart(client, channelName);
+
+    if (this.events.hasSubscribers(OxServerChannelParted.class)) {
+      this.events.publish(
+        OxServerChannelParted.builder()
+          .setChannel(result.channel())
+          .setClient(client)
+          .build()
+      );
     }
 
-    this.eventSubject.onNext(
-      OxServerChannelParted.builder()
-        .setChannel(result.channel())
-        .setClient(client)
-        .build()
-    );
-
     try {
       this.sendMessageToClients(
-        OxIRCMessage.builder()
-          .setRawText("")
-          .setPrefix(":" + client.userId().format())
-          .setCommand("PART")
-          .setTrailing(":" + channelName.value())
-          .build(),
+        client.encodeFromUser(
+          OxIRCMessage.builder()
+            .setRawText("")
+            .setCommand("PART")
+            .setTrailing(":" + result.channel().name().value())
+        ),
         result.notifyUsers()
       );
     } catch (final OxNameNotRegisteredException e) {
@@ -413,9 +464,7 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(client, "client");
     Objects.requireNonNull(channelName, "channelName");
 
-    synchronized (this.stateLock) {
-      return this.channelMap.channelTopic(channelName);
-    }
+    return this.channelMap.channelTopic(channelName);
   }
 
   @Override
@@ -429,23 +478,20 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(channelName, "channelName");
     Objects.requireNonNull(newTopic, "newTopic");
 
-    synchronized (this.stateLock) {
+    final var channel =
       this.channelMap.channelTopicSet(channelName, newTopic);
-    }
-
-    final var channelClients =
-      this.clientsWatchingChannel(client, channelName);
 
     try {
-      this.sendMessageToClients(
-        OxIRCMessage.builder()
-          .setRawText("")
-          .setPrefix(":" + client.userId().format())
-          .setCommand("TOPIC")
-          .addParameters(channelName.value())
-          .setTrailing(":" + newTopic.value())
-          .build(),
-        channelClients
+      this.sendMessageToMembers(
+        client.encodeFromUser(
+          OxIRCMessage.builder()
+            .setRawText("")
+            .setCommand("TOPIC")
+            .addParameters(channel.name().value())
+            .setTrailing(":" + newTopic.value())
+        ),
+        channel.members(),
+        client
       );
     } catch (final OxNameNotRegisteredException e) {
       throw new IllegalStateException(e);
@@ -455,17 +501,19 @@ public final class OxServerController implements OxServerControllerType
   @Override
   public int clientCount()
   {
-    synchronized (this.stateLock) {
-      return this.clientMap.clientCount();
-    }
+    return this.clientMap.clientCount();
+  }
+
+  @Override
+  public Collection<OxServerClient> clients()
+  {
+    return this.clientMap.clients();
   }
 
   @Override
   public int channelCount()
   {
-    synchronized (this.stateLock) {
-      return this.channelMap.channelCount();
-    }
+    return this.channelMap.channelCount();
   }
 
   @Override
@@ -479,44 +527,76 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(channelName, "channelName");
     Objects.requireNonNull(message, "message");
 
-    synchronized (this.stateLock) {
-      if (this.channelMap.channelOf(channelName).isEmpty()) {
-        throw new OxClientException(
-          OxIRCErrorChannelNonexistent.builder().build());
-      }
-    }
+    final var channel =
+      this.channelMap.channelOf(channelName)
+        .orElseThrow(() -> new OxClientException(
+          OxIRCErrorChannelNonexistent.builder().build()));
+
+    /*
+     * Take the channel's current member array with a single volatile read;
+     * the array is never modified after publication, so routing requires
+     * neither a lock nor a copy.
+     */
 
-    final var channelUsers =
-      this.clientsWatchingChannel(client, channelName);
+    final var members = channel.members();
+    if (!hasMemberOtherThan(members, client)) {
+      return;
+    }
 
     try {
-      this.sendMessageToClients(
-        OxIRCMessage.builder()
-          .setRawText("")
-          .setPrefix(":" + client.userId().format())
-          .setCommand("PRIVMSG")
-          .addParameters(channelName.value())
-          .setTrailing(":" + message)
-          .build(),
-        channelUsers
+      this.sendMessageToMembers(
+        client.encodeFromUser(
+          OxIRCMessage.builder()
+            .setRawText("")
+            .setCommand("PRIVMSG")
+            .addParameters(channel.name().value())
+            .setTrailing(":" + message)
+        ),
+        members,
+        client
       );
     } catch (final OxNameNotRegisteredException e) {
       throw new IllegalStateException(e);
     }
   }
 
-  private List<OxServerClientID> clientsWatchingChannel(
-    final OxServerClient client,
-    final OxChannelName channelName)
+  private void sendMessageToMembers(
+    final OxEncodedMessage encoded,
+    final OxServerClient[] members,
+    final OxServerClient except)
   {
-    synchronized (this.stateLock) {
-      return this.channelMap.channelClients(channelName)
-        .stream()
-        .filter(id -> !Objects.equals(id, client.id()))
-        .collect(Collectors.toList());
+    final var event = new OxFanOutEvent();
+    event.begin();
+
+    var recipients = 0;
+    for (final var member : members) {
+      if (member != except) {
+        member.enqueueEncoded(encoded);
+        ++recipients;
+      }
+    }
+
+    if (event.shouldCommit()) {
+      event.clientId = except.id().format();
+      event.command = encoded.message().command();
+      event.recipients = recipients;
+      event.octets = encoded.size();
+      event.commit();
     }
   }
 
+  private static boolean hasMemberOtherThan(
+    final OxServerClient[] members,
+    final OxServerClient client)
+  {
+    for (final var member : members) {
+      if (member != client) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public void clientMessage(
     final OxServerClient client,
@@ -529,20 +609,18 @@ public final class OxServerController implements OxServerControllerType
     Objects.requireNonNull(message, "message");
 
     final Optional<OxServerClient> targetUser;
-    synchronized (this.stateLock) {
-      targetUser = this.clientMap.clientForNick(nickName);
-    }
+    targetUser = this.clientMap.clientForNick(nickName);
 
     if (targetUser.isPresent()) {
       try {
         final var target = targetUser.get();
-        target.enqueueMessage(
-          OxIRCMessage.builder()
-            .setRawText("")
-            .setPrefix(":" + client.userId().format())
-            .setCommand("PRIVMSG")
-            .setTrailing(":" + message)
-            .build()
+        target.enqueueEncoded(
+          client.encodeFromUser(
+            OxIRCMessage.builder()
+              .setRawText("")
+              .setCommand("PRIVMSG")
+              .setTrailing(":" + message)
+          )
         );
         return;
       } catch (final OxNameNotRegisteredException e) {
@@ -560,9 +638,7 @@ public final class OxServerController implements OxServerControllerType
     final var exceptions = new OxExceptionTracker<IOException>();
 
     final Collection<OxServerClient> clientCollection;
-    synchronized (this.stateLock) {
-      clientCollection = this.clientMap.clients();
-    }
+    clientCollection = this.clientMap.clients();
 
     for (final var client : clientCollection) {
       try {
@@ -572,9 +648,9 @@ public final class OxServerController implements OxServerControllerType
       }
     }
 
-    synchronized (this.stateLock) {
-      this.clientMap.clear();
-    }
+    this.clientMap.clear();
+    this.events.close();
+    this.eventExecutor.shutdown();
 
     exceptions.throwIfNecessary();
   }
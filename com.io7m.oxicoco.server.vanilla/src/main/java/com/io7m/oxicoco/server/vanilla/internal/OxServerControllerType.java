@@ -19,11 +19,10 @@ package com.io7m.oxicoco.server.vanilla.internal;
 import com.io7m.oxicoco.names.OxChannelName;
 import com.io7m.oxicoco.names.OxNickName;
 import com.io7m.oxicoco.names.OxTopic;
-import io.reactivex.rxjava3.core.Observable;
 
 import java.io.Closeable;
-import java.net.Socket;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,20 +33,20 @@ import java.util.Optional;
 public interface OxServerControllerType extends Closeable
 {
   /**
-   * @return An observable stream of server events
+   * @return The bus on which server events are published
    */
 
-  Observable<OxServerEventType> events();
+  OxServerEventBus events();
 
   /**
-   * Create a new client for the given socket.
+   * Create a new client for the given transport.
    *
-   * @param socket The socket
+   * @param transport The transport
    *
    * @return A new client
    */
 
-  OxServerClient clientCreate(Socket socket);
+  OxServerClient clientCreate(OxServerClientTransportType transport);
 
   /**
    * @return The server uptime
@@ -55,6 +54,30 @@ public interface OxServerControllerType extends Closeable
 
   Duration uptime();
 
+  /**
+   * @return Statistics describing the batches of messages written to clients
+   */
+
+  OxWriteBatchStatistics writeBatchStatistics();
+
+  /**
+   * @return Statistics describing the outbound queues of all clients
+   */
+
+  OxOutboundQueueStatistics outboundQueueStatistics();
+
+  /**
+   * @return The metrics collected by the server
+   */
+
+  OxServerMetrics metrics();
+
+  /**
+   * @return The template used to reply to unknown commands
+   */
+
+  OxUnknownCommandReply unknownCommandReply();
+
   /**
    * Set the nickname of the given client.
    *
@@ -172,6 +195,12 @@ public interface OxServerControllerType extends Closeable
 
   int clientCount();
 
+  /**
+   * @return A read-only snapshot of the connected clients
+   */
+
+  Collection<OxServerClient> clients();
+
   /**
    * @return The number of channels present
    */
@@ -0,0 +1,331 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A bus that delivers server events to subscribers asynchronously.
+ *
+ * <p>Each subscriber has its own bounded, lock-free ring buffer into which
+ * any number of threads may publish. Events are delivered to each
+ * subscriber in publication order by at most one task at a time, running
+ * on the bus executor, and so a slow subscriber never delays the threads
+ * that publish events. If a subscriber's buffer is full, the event is
+ * dropped for that subscriber and counted.</p>
+ *
+ * <p>Publishers are expected to check {@link #hasSubscribers(Class)} before
+ * constructing an event, so that events nobody is interested in are never
+ * built.</p>
+ */
+
+public final class OxServerEventBus implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(OxServerEventBus.class);
+
+  private static final Subscription<?>[] NO_SUBSCRIPTIONS =
+    new Subscription<?>[0];
+
+  private final Executor executor;
+  private final Object subscriptionLock;
+  private volatile Subscription<?>[] subscriptions;
+
+  /**
+   * Create an event bus.
+   *
+   * @param inExecutor The executor used to deliver events
+   */
+
+  public OxServerEventBus(
+    final Executor inExecutor)
+  {
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.subscriptionLock =
+      new Object();
+    this.subscriptions =
+      NO_SUBSCRIPTIONS;
+  }
+
+  /**
+   * Subscribe to events of the given type.
+   *
+   * @param type     The event type
+   * @param capacity The capacity of the subscriber's buffer; rounded up to a
+   *                 power of two
+   * @param receiver The event receiver
+   * @param <T>      The event type
+   *
+   * @return A subscription that can be closed to unsubscribe
+   */
+
+  public <T extends OxServerEventType> OxServerEventSubscriptionType subscribe(
+    final Class<T> type,
+    final int capacity,
+    final Consumer<? super T> receiver)
+  {
+    Objects.requireNonNull(type, "type");
+    Objects.requireNonNull(receiver, "receiver");
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+
+    final var subscription =
+      new Subscription<>(this, type, capacity, receiver);
+
+    synchronized (this.subscriptionLock) {
+      final var current = this.subscriptions;
+      final var next = Arrays.copyOf(current, current.length + 1);
+      next[current.length] = subscription;
+      this.subscriptions = next;
+    }
+    return subscription;
+  }
+
+  private void unsubscribe(
+    final Subscription<?> subscription)
+  {
+    synchronized (this.subscriptionLock) {
+      this.subscriptions =
+        Arrays.stream(this.subscriptions)
+          .filter(s -> s != subscription)
+          .toArray(Subscription<?>[]::new);
+    }
+  }
+
+  /**
+   * @param type The event type
+   *
+   * @return {@code true} if any subscriber would receive events of the
+   * given type
+   */
+
+  public boolean hasSubscribers(
+    final Class<? extends OxServerEventType> type)
+  {
+    for (final var subscription : this.subscriptions) {
+      if (subscription.type.isAssignableFrom(type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Publish an event to all subscribers of the event's type.
+   *
+   * @param event The event
+   */
+
+  public void publish(
+    final OxServerEventType event)
+  {
+    Objects.requireNonNull(event, "event");
+
+    for (final var subscription : this.subscriptions) {
+      if (subscription.type.isInstance(event)) {
+        subscription.offer(event);
+      }
+    }
+  }
+
+  /**
+   * Unsubscribe all subscribers. Events that have already been published
+   * may still be delivered.
+   */
+
+  @Override
+  public void close()
+  {
+    synchronized (this.subscriptionLock) {
+      this.subscriptions = NO_SUBSCRIPTIONS;
+    }
+  }
+
+  private static final class Subscription<T extends OxServerEventType>
+    implements OxServerEventSubscriptionType
+  {
+    private final OxServerEventBus bus;
+    private final Class<T> type;
+    private final Consumer<? super T> receiver;
+    private final Ring ring;
+    private final AtomicBoolean scheduled;
+    private final LongAdder dropped;
+
+    Subscription(
+      final OxServerEventBus inBus,
+      final Class<T> inType,
+      final int capacity,
+      final Consumer<? super T> inReceiver)
+    {
+      this.bus = inBus;
+      this.type = inType;
+      this.receiver = inReceiver;
+      this.ring = new Ring(capacity);
+      this.scheduled = new AtomicBoolean(false);
+      this.dropped = new LongAdder();
+    }
+
+    void offer(
+      final OxServerEventType event)
+    {
+      if (!this.ring.offer(event)) {
+        this.dropped.increment();
+        return;
+      }
+      if (this.scheduled.compareAndSet(false, true)) {
+        this.bus.executor.execute(this::drain);
+      }
+    }
+
+    /*
+     * Only one drain task runs at any given time, and so the ring has a
+     * single consumer. Events published after the task has observed an
+     * empty ring, but before it has cleared the scheduled flag, are picked
+     * up by checking the ring again once the flag is clear.
+     */
+
+    private void drain()
+    {
+      while (true) {
+        while (true) {
+          final var event = this.ring.poll();
+          if (event == null) {
+            break;
+          }
+          this.deliver(event);
+        }
+
+        this.scheduled.set(false);
+        if (this.ring.isEmpty()) {
+          return;
+        }
+        if (!this.scheduled.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+
+    private void deliver(
+      final OxServerEventType event)
+    {
+      try {
+        this.receiver.accept(this.type.cast(event));
+      } catch (final Exception e) {
+        LOG.error("event receiver: ", e);
+      }
+    }
+
+    @Override
+    public long dropped()
+    {
+      return this.dropped.sum();
+    }
+
+    @Override
+    public void close()
+    {
+      this.bus.unsubscribe(this);
+    }
+  }
+
+  /**
+   * A bounded multi-producer, single-consumer ring buffer. Each slot has a
+   * sequence number that tells producers and the consumer whether the slot
+   * is free for the current lap of the ring.
+   */
+
+  private static final class Ring
+  {
+    private final AtomicReferenceArray<OxServerEventType> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail;
+    private final int mask;
+    private long head;
+
+    Ring(
+      final int capacity)
+    {
+      final var size =
+        Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+
+      this.slots = new AtomicReferenceArray<>(size);
+      this.sequences = new AtomicLongArray(size);
+      for (int index = 0; index < size; ++index) {
+        this.sequences.set(index, index);
+      }
+      this.tail = new AtomicLong();
+      this.mask = size - 1;
+    }
+
+    boolean offer(
+      final OxServerEventType event)
+    {
+      var position = this.tail.get();
+      while (true) {
+        final var index = (int) (position & this.mask);
+        final var sequence = this.sequences.get(index);
+        final var difference = sequence - position;
+        if (difference == 0L) {
+          if (this.tail.compareAndSet(position, position + 1L)) {
+            this.slots.set(index, event);
+            this.sequences.set(index, position + 1L);
+            return true;
+          }
+          position = this.tail.get();
+        } else if (difference < 0L) {
+          return false;
+        } else {
+          position = this.tail.get();
+        }
+      }
+    }
+
+    OxServerEventType poll()
+    {
+      final var index = (int) (this.head & this.mask);
+      if (this.sequences.get(index) != this.head + 1L) {
+        return null;
+      }
+
+      final var event = this.slots.get(index);
+      this.slots.set(index, null);
+      this.sequences.set(index, this.head + this.mask + 1L);
+      ++this.head;
+      return event;
+    }
+
+    boolean isEmpty()
+    {
+      final var index = (int) (this.head & this.mask);
+      return this.sequences.get(index) != this.head + 1L;
+    }
+  }
+}
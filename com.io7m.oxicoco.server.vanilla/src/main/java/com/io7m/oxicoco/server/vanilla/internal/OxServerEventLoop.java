@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single event loop thread. The loop multiplexes any number of
+ * non-blocking client transports over a single selector, and executes tasks
+ * submitted from other threads.
+ */
+
+public final class OxServerEventLoop implements Closeable
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(OxServerEventLoop.class);
+
+  private final Selector selector;
+  private final Thread thread;
+  private final ConcurrentLinkedQueue<Runnable> tasks;
+  private final AtomicBoolean closed;
+
+  /**
+   * A single event loop thread.
+   *
+   * @param threads A factory used to create the event loop thread
+   *
+   * @throws IOException If a selector cannot be opened
+   */
+
+  public OxServerEventLoop(
+    final ThreadFactory threads)
+    throws IOException
+  {
+    Objects.requireNonNull(threads, "threads");
+
+    this.selector =
+      Selector.open();
+    this.tasks =
+      new ConcurrentLinkedQueue<>();
+    this.closed =
+      new AtomicBoolean(false);
+    this.thread =
+      threads.newThread(this::run);
+  }
+
+  /**
+   * Start the event loop thread.
+   */
+
+  public void start()
+  {
+    this.thread.start();
+  }
+
+  /**
+   * @return {@code true} if the current thread is the event loop thread
+   */
+
+  public boolean inEventLoop()
+  {
+    return Thread.currentThread() == this.thread;
+  }
+
+  /**
+   * Execute a task on the event loop thread. Tasks are executed in
+   * submission order.
+   *
+   * @param task The task
+   */
+
+  public void execute(
+    final Runnable task)
+  {
+    this.tasks.add(Objects.requireNonNull(task, "task"));
+    if (!this.inEventLoop()) {
+      this.selector.wakeup();
+    }
+  }
+
+  /**
+   * Register a transport's channel with the event loop. This method must be
+   * called on the event loop thread.
+   *
+   * @param channel   The channel
+   * @param transport The transport that will receive readiness events
+   *
+   * @return The selection key
+   *
+   * @throws ClosedChannelException If the channel is closed
+   */
+
+  SelectionKey register(
+    final SocketChannel channel,
+    final OxServerEventLoopTransport transport)
+    throws ClosedChannelException
+  {
+    return channel.register(this.selector, SelectionKey.OP_READ, transport);
+  }
+
+  private void run()
+  {
+    LOG.debug("event loop started");
+
+    try {
+      while (!this.closed.get()) {
+        try {
+          if (this.tasks.isEmpty()) {
+            this.selector.select();
+          } else {
+            this.selector.selectNow();
+          }
+        } catch (final IOException e) {
+          LOG.error("select: ", e);
+        }
+
+        this.runTasks();
+        this.processSelectedKeys();
+      }
+    } finally {
+      this.shutDown();
+      LOG.debug("event loop finished");
+    }
+  }
+
+  private void processSelectedKeys()
+  {
+    final var keys = this.selector.selectedKeys();
+    for (final var key : keys) {
+      final var transport = (OxServerEventLoopTransport) key.attachment();
+      try {
+        if (key.isValid() && key.isReadable()) {
+          transport.onReadable();
+        }
+        if (key.isValid() && key.isWritable()) {
+          transport.onWritable();
+        }
+      } catch (final CancelledKeyException e) {
+        // The transport was closed while handling events
+      }
+    }
+    keys.clear();
+  }
+
+  private void runTasks()
+  {
+    while (true) {
+      final var task = this.tasks.poll();
+      if (task == null) {
+        return;
+      }
+
+      try {
+        task.run();
+      } catch (final Exception e) {
+        LOG.error("task: ", e);
+      }
+    }
+  }
+
+  private void shutDown()
+  {
+    try {
+      for (final var key : this.selector.keys()) {
+        final var transport = (OxServerEventLoopTransport) key.attachment();
+        try {
+          transport.close();
+        } catch (final IOException e) {
+          LOG.error("close: ", e);
+        }
+      }
+
+      this.runTasks();
+    } finally {
+      try {
+        this.selector.close();
+      } catch (final IOException e) {
+        LOG.error("close: ", e);
+      }
+    }
+  }
+
+  /**
+   * Close an event loop that was never started. The selector of a started
+   * loop is closed by the loop thread as it finishes; a loop that never
+   * started has no thread to do so.
+   */
+
+  void closeUnstarted()
+  {
+    this.closed.set(true);
+    try {
+      this.selector.close();
+    } catch (final IOException e) {
+      LOG.error("close: ", e);
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      this.selector.wakeup();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed set of event loops over which client transports are distributed.
+ */
+
+public final class OxServerEventLoopGroup implements Closeable
+{
+  private final List<OxServerEventLoop> loops;
+  private final AtomicInteger index;
+
+  private OxServerEventLoopGroup(
+    final List<OxServerEventLoop> inLoops)
+  {
+    this.loops = List.copyOf(inLoops);
+    this.index = new AtomicInteger(0);
+  }
+
+  /**
+   * Create and start a group of event loops.
+   *
+   * @param count   The number of event loops
+   * @param threads A factory of event loop threads
+   *
+   * @return A new group
+   *
+   * @throws IOException If the event loops cannot be created
+   */
+
+  public static OxServerEventLoopGroup create(
+    final int count,
+    final ThreadFactory threads)
+    throws IOException
+  {
+    if (count < 0) {
+      throw new IllegalArgumentException(
+        "Event loop count must be non-negative");
+    }
+
+    final var loops = new ArrayList<OxServerEventLoop>(count);
+    try {
+      for (int index = 0; index < count; ++index) {
+        loops.add(new OxServerEventLoop(threads));
+      }
+    } catch (final IOException e) {
+      loops.forEach(OxServerEventLoop::closeUnstarted);
+      throw e;
+    }
+
+    loops.forEach(OxServerEventLoop::start);
+    return new OxServerEventLoopGroup(loops);
+  }
+
+  /**
+   * @return The next event loop in round-robin order
+   */
+
+  public OxServerEventLoop next()
+  {
+    if (this.loops.isEmpty()) {
+      throw new IllegalStateException("No event loops are available");
+    }
+
+    final var next = Math.floorMod(
+      this.index.getAndIncrement(),
+      this.loops.size()
+    );
+    return this.loops.get(next);
+  }
+
+  @Override
+  public void close()
+  {
+    this.loops.forEach(OxServerEventLoop::close);
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A handler for a single server port that hands accepted connections to
+ * a group of event loops. Connections refused by admission control are
+ * closed without a transport or client ever being created for them. If
+ * {@code accept()} fails, the acceptor backs off before trying again.
+ */
+
+public final class OxServerEventLoopPortHandler
+  implements OxServerPortHandlerType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(OxServerEventLoopPortHandler.class);
+
+  private final OxServerControllerType controller;
+  private final OxServerEventLoopGroup eventLoops;
+  private final OxServerPortConfiguration portConfiguration;
+  private final OxServerPortMetrics metrics;
+  private final OxServerAdmission admission;
+  private final AtomicBoolean closed;
+  private final AtomicReference<ServerSocketChannel> channelReference;
+
+  /**
+   * A handler for a single server port.
+   *
+   * @param inController The server controller
+   * @param inEventLoops The event loops that will serve clients
+   * @param inPort       The port configuration
+   * @param inMetrics    The metrics for the port
+   * @param inAdmission  The server's admission control
+   */
+
+  public OxServerEventLoopPortHandler(
+    final OxServerControllerType inController,
+    final OxServerEventLoopGroup inEventLoops,
+    final OxServerPortConfiguration inPort,
+    final OxServerPortMetrics inMetrics,
+    final OxServerAdmission inAdmission)
+  {
+    this.controller =
+      Objects.requireNonNull(inController, "controller");
+    this.eventLoops =
+      Objects.requireNonNull(inEventLoops, "eventLoops");
+    this.portConfiguration =
+      Objects.requireNonNull(inPort, "port");
+    this.metrics =
+      Objects.requireNonNull(inMetrics, "metrics");
+    this.admission =
+      Objects.requireNonNull(inAdmission, "admission");
+
+    this.closed =
+      new AtomicBoolean(false);
+    this.channelReference =
+      new AtomicReference<>();
+  }
+
+  @Override
+  public void start(
+    final CompletableFuture<Void> future)
+  {
+    final ServerSocketChannel channel;
+    try {
+      channel = this.createChannel();
+    } catch (final IOException e) {
+      future.completeExceptionally(e);
+      return;
+    }
+
+    this.channelReference.set(channel);
+    if (this.closed.get()) {
+      this.closeQuietly(channel);
+      future.complete(null);
+      return;
+    }
+    future.complete(null);
+
+    final var localAddress = channel.socket().getLocalSocketAddress();
+    LOG.info("[{}] listen", localAddress);
+
+    final var backoff = new OxServerAcceptBackoff();
+    try {
+      while (!this.closed.get()) {
+        final SocketChannel clientChannel;
+        try {
+          clientChannel = channel.accept();
+        } catch (final ClosedChannelException e) {
+          continue;
+        } catch (final IOException e) {
+          LOG.error("accept: ", e);
+          backoff.onFailure();
+          continue;
+        }
+
+        backoff.onSuccess();
+        try {
+          final var remote = clientChannel.getRemoteAddress();
+          final var ticket = this.admission.admit(remote);
+
+          final var refusal = ticket.refusal();
+          if (refusal.isPresent()) {
+            LOG.debug("[{}] refused: {}", remote, refusal.get());
+            this.metrics.onRefused();
+            OxServerAdmission.refuse(clientChannel, refusal.get());
+            continue;
+          }
+
+          LOG.info("[{}] connect", remote);
+          this.metrics.onAccepted();
+          this.clientCreate(clientChannel, ticket);
+        } catch (final IOException e) {
+          LOG.error("accept: ", e);
+          this.closeQuietly(clientChannel);
+        }
+      }
+    } finally {
+      LOG.info("[{}] closed", localAddress);
+    }
+  }
+
+  private void clientCreate(
+    final SocketChannel clientChannel,
+    final OxServerAdmissionTicket ticket)
+  {
+    try {
+      this.controller.clientCreate(
+        new OxServerEventLoopTransport(
+          clientChannel,
+          this.eventLoops.next(),
+          this.metrics,
+          ticket)
+      ).start();
+    } catch (final IOException e) {
+      LOG.error("connect: ", e);
+      ticket.release();
+      this.closeQuietly(clientChannel);
+    }
+  }
+
+  private void closeQuietly(
+    final Closeable closeable)
+  {
+    try {
+      closeable.close();
+    } catch (final IOException e) {
+      LOG.error("close: ", e);
+    }
+  }
+
+  private ServerSocketChannel createChannel()
+    throws IOException
+  {
+    final var channel = ServerSocketChannel.open();
+    try {
+      channel.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+      channel.bind(
+        new InetSocketAddress(
+          this.portConfiguration.address(),
+          this.portConfiguration.port()),
+        this.portConfiguration.acceptBacklog()
+      );
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      final var channel = this.channelReference.get();
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+}
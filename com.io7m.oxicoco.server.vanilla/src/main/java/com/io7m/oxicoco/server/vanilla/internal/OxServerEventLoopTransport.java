@@ -0,0 +1,435 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A transport that serves a client using non-blocking I/O driven by an
+ * event loop. All reads, writes, and command handling take place on the
+ * event loop thread. A transport that is asked to close after flushing
+ * keeps writing as the channel becomes writable, and closes once its output
+ * has drained or the flush timeout expires.
+ */
+
+public final class OxServerEventLoopTransport
+  implements OxServerClientTransportType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(OxServerEventLoopTransport.class);
+
+  private static final int OUTPUT_INITIAL_SIZE = 16;
+  private static final long CLOSE_FLUSH_TIMEOUT_MILLISECONDS = 5_000L;
+
+  private final SocketChannel channel;
+  private final SocketAddress address;
+  private final OxServerEventLoop loop;
+  private final OxServerPortMetrics metrics;
+  private final OxServerAdmissionTicket ticket;
+  private ByteBuffer[] output;
+  private int outputStart;
+  private int outputEnd;
+  private final AtomicBoolean closed;
+  private final AtomicBoolean closing;
+  private final AtomicBoolean flushScheduled;
+  private SelectionKey key;
+  private OxServerClient client;
+
+  /**
+   * A transport that serves a client using non-blocking I/O.
+   *
+   * @param inChannel The client channel
+   * @param inLoop    The event loop that will drive the client
+   * @param inMetrics The metrics for the port
+   * @param inTicket  The admission ticket, released when the transport
+   *                  closes
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public OxServerEventLoopTransport(
+    final SocketChannel inChannel,
+    final OxServerEventLoop inLoop,
+    final OxServerPortMetrics inMetrics,
+    final OxServerAdmissionTicket inTicket)
+    throws IOException
+  {
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.loop =
+      Objects.requireNonNull(inLoop, "loop");
+    this.metrics =
+      Objects.requireNonNull(inMetrics, "metrics");
+    this.ticket =
+      Objects.requireNonNull(inTicket, "ticket");
+
+    this.channel.configureBlocking(false);
+    this.address =
+      this.channel.getRemoteAddress();
+    this.output =
+      new ByteBuffer[OUTPUT_INITIAL_SIZE];
+    this.closed =
+      new AtomicBoolean(false);
+    this.closing =
+      new AtomicBoolean(false);
+    this.flushScheduled =
+      new AtomicBoolean(false);
+  }
+
+  @Override
+  public SocketAddress remoteAddress()
+  {
+    return this.address;
+  }
+
+  @Override
+  public OxServerPortMetrics portMetrics()
+  {
+    return this.metrics;
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.closed.get();
+  }
+
+  @Override
+  public void start(
+    final OxServerClient inClient)
+  {
+    Objects.requireNonNull(inClient, "client");
+    this.loop.execute(() -> this.register(inClient));
+  }
+
+  @Override
+  public void wakeup()
+  {
+    if (this.flushScheduled.compareAndSet(false, true)) {
+      this.loop.execute(() -> {
+        this.flushScheduled.set(false);
+        this.flushOutbound();
+      });
+    }
+  }
+
+  @Override
+  public void onReadSuspensionChanged()
+  {
+    this.loop.execute(this::onReadSuspensionChangedInLoop);
+  }
+
+  @Override
+  public void closeAfterFlush()
+  {
+    if (this.closing.compareAndSet(false, true)) {
+      CompletableFuture.delayedExecutor(
+        CLOSE_FLUSH_TIMEOUT_MILLISECONDS,
+        TimeUnit.MILLISECONDS
+      ).execute(this::closeQuietly);
+      this.loop.execute(this::flushOutbound);
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    if (this.closed.compareAndSet(false, true)) {
+      try {
+
+        /*
+         * If the client is closing its own connection (as with QUIT), make
+         * a best-effort attempt to deliver any replies that are still queued.
+         */
+
+        if (this.loop.inEventLoop()) {
+          this.writeOutboundQuietly();
+        }
+        this.channel.close();
+      } finally {
+        this.ticket.release();
+        this.loop.execute(this::finish);
+      }
+    }
+  }
+
+  private void register(
+    final OxServerClient inClient)
+  {
+    this.client = inClient;
+
+    try {
+      this.key = this.loop.register(this.channel, this);
+    } catch (final IOException e) {
+      this.closeQuietly();
+      return;
+    }
+
+    this.flushOutbound();
+  }
+
+  private void finish()
+  {
+    if (this.client != null) {
+      this.client.onDisconnected();
+    }
+  }
+
+  void onReadable()
+  {
+    final int count;
+    try {
+      count = this.channel.read(this.client.inputBuffer());
+    } catch (final IOException e) {
+      this.error("i/o error: ", e);
+      this.closeQuietly();
+      return;
+    }
+
+    if (count == -1) {
+      this.closeQuietly();
+      return;
+    }
+
+    this.client.onReceivedOctets(count);
+    this.processInput();
+    this.flushOutbound();
+  }
+
+  void onWritable()
+  {
+    this.flushOutbound();
+  }
+
+  private void onReadSuspensionChangedInLoop()
+  {
+    if (this.closed.get() || this.key == null) {
+      return;
+    }
+
+    /*
+     * Lines that were buffered when reading was suspended must be delivered
+     * now, as the client may not send anything else.
+     */
+
+    if (!this.client.isReadingSuspended()) {
+      this.processInput();
+    }
+    this.flushOutbound();
+  }
+
+  private void processInput()
+  {
+    try {
+      this.client.onInputReceived();
+    } catch (final IOException e) {
+      this.error("i/o error: ", e);
+      this.closeQuietly();
+    }
+  }
+
+  private void flushOutbound()
+  {
+    if (this.closed.get() || this.key == null) {
+      return;
+    }
+
+    try {
+      final var written = this.writeOutbound();
+      if (written && this.closing.get()) {
+        this.closeQuietly();
+        return;
+      }
+
+      final var reading = !this.client.isReadingSuspended();
+
+      var ops = 0;
+      if (reading) {
+        ops |= SelectionKey.OP_READ;
+      }
+      if (!written) {
+        ops |= SelectionKey.OP_WRITE;
+      }
+      this.key.interestOps(ops);
+    } catch (final IOException e) {
+      this.error("i/o error: ", e);
+      this.closeQuietly();
+    }
+  }
+
+  private void writeOutboundQuietly()
+  {
+    try {
+      this.writeOutbound();
+    } catch (final IOException e) {
+      // The connection is being closed anyway
+    }
+  }
+
+  /**
+   * Write as much queued output as the channel will accept without blocking.
+   * All messages that are waiting are written with a single gathering write.
+   * Messages are only counted as written once the channel has accepted all
+   * of their octets.
+   *
+   * @return {@code true} if all queued output was written
+   */
+
+  private boolean writeOutbound()
+    throws IOException
+  {
+    if (this.key == null) {
+      return true;
+    }
+
+    this.queueOutbound();
+    if (this.outputStart == this.outputEnd) {
+      return true;
+    }
+
+    final var event = new OxWriteEvent();
+    event.begin();
+
+    final var written =
+      this.channel.write(
+        this.output,
+        this.outputStart,
+        this.outputEnd - this.outputStart
+      );
+    final var messageCount = this.retireWritten();
+
+    this.commitWriteEvent(event, messageCount, written);
+    return this.outputStart == this.outputEnd;
+  }
+
+  private void commitWriteEvent(
+    final OxWriteEvent event,
+    final int messageCount,
+    final long octets)
+  {
+    if (event.shouldCommit()) {
+      event.clientId = this.client.id().format();
+      event.messages = messageCount;
+      event.octets = octets;
+      event.commit();
+    }
+  }
+
+  private void queueOutbound()
+  {
+    while (true) {
+      final var message = this.client.pollOutbound();
+      if (message == null) {
+        return;
+      }
+      if (this.outputEnd == this.output.length) {
+        this.compactOutput();
+      }
+      this.output[this.outputEnd] = message.buffer();
+      ++this.outputEnd;
+    }
+  }
+
+  /**
+   * Move the pending buffers to the start of the output array, growing the
+   * array if it is more than half full.
+   */
+
+  private void compactOutput()
+  {
+    final var count = this.outputEnd - this.outputStart;
+    final var target =
+      count * 2 > this.output.length
+        ? new ByteBuffer[this.output.length * 2]
+        : this.output;
+
+    System.arraycopy(this.output, this.outputStart, target, 0, count);
+    if (target == this.output) {
+      Arrays.fill(this.output, count, this.outputEnd, null);
+    }
+
+    this.output = target;
+    this.outputStart = 0;
+    this.outputEnd = count;
+  }
+
+  /**
+   * Discard the buffers that have been written completely, and record them
+   * as a written batch.
+   *
+   * @return The number of messages written completely
+   */
+
+  private int retireWritten()
+  {
+    var messageCount = 0;
+    var octetCount = 0L;
+    while (this.outputStart < this.outputEnd) {
+      final var buffer = this.output[this.outputStart];
+      if (buffer.hasRemaining()) {
+        break;
+      }
+      octetCount += buffer.limit();
+      ++messageCount;
+      this.output[this.outputStart] = null;
+      ++this.outputStart;
+    }
+
+    if (this.outputStart == this.outputEnd) {
+      this.outputStart = 0;
+      this.outputEnd = 0;
+    }
+    if (messageCount > 0) {
+      this.client.onWroteBatch(messageCount, octetCount);
+    }
+    return messageCount;
+  }
+
+  private void closeQuietly()
+  {
+    try {
+      this.close();
+    } catch (final IOException e) {
+      this.error("close: ", e);
+    }
+  }
+
+  private void error(
+    final String message,
+    final Exception exception)
+  {
+    LOG.error(
+      "[{}] {}",
+      this.address,
+      message,
+      exception
+    );
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.errors.OxIRCErrorCode;
+import com.io7m.oxicoco.server.api.OxServerMetricsType;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortMetricsType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics collected by a server. Commands are counted by command ID
+ * rather than by name, and errors by ordinal, so that recording a value
+ * never requires a map lookup.
+ */
+
+public final class OxServerMetrics implements OxServerMetricsType
+{
+  private static final OxIRCErrorCode[] ERROR_CODES =
+    OxIRCErrorCode.values();
+
+  private final List<String> commandNames;
+  private final OxOutboundQueueStatistics queueStatistics;
+  private final List<OxServerPortMetricsType> ports;
+  private final LongAdder[] commands;
+  private final OxLatencyHistogram[] commandLatencies;
+  private final LongAdder commandsUnknown;
+  private final LongAdder[] errors;
+
+  /**
+   * The metrics collected by a server.
+   *
+   * @param inCommandNames    The names of known commands, in command ID order
+   * @param inQueueStatistics The outbound queue statistics
+   */
+
+  public OxServerMetrics(
+    final List<String> inCommandNames,
+    final OxOutboundQueueStatistics inQueueStatistics)
+  {
+    this.commandNames =
+      List.copyOf(Objects.requireNonNull(inCommandNames, "commandNames"));
+    this.queueStatistics =
+      Objects.requireNonNull(inQueueStatistics, "queueStatistics");
+
+    this.ports = new CopyOnWriteArrayList<>();
+    this.commands = new LongAdder[this.commandNames.size()];
+    this.commandLatencies = new OxLatencyHistogram[this.commandNames.size()];
+    for (int index = 0; index < this.commands.length; ++index) {
+      this.commands[index] = new LongAdder();
+      this.commandLatencies[index] = new OxLatencyHistogram();
+    }
+    this.commandsUnknown = new LongAdder();
+    this.errors = new LongAdder[ERROR_CODES.length];
+    for (int index = 0; index < this.errors.length; ++index) {
+      this.errors[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * Create metrics for a new port.
+   *
+   * @param port The port configuration
+   *
+   * @return The port metrics
+   */
+
+  public OxServerPortMetrics createPort(
+    final OxServerPortConfiguration port)
+  {
+    final var metrics = new OxServerPortMetrics(port);
+    this.ports.add(metrics);
+    return metrics;
+  }
+
+  /**
+   * Record that a command was executed.
+   *
+   * @param commandId The command ID, or a negative value for unknown
+   *                  commands
+   */
+
+  public void onCommand(
+    final int commandId)
+  {
+    if (commandId >= 0 && commandId < this.commands.length) {
+      this.commands[commandId].increment();
+    } else {
+      this.commandsUnknown.increment();
+    }
+  }
+
+  /**
+   * Record the time taken to execute a known command.
+   *
+   * @param commandId The command ID
+   * @param nanos     The time taken in nanoseconds
+   */
+
+  public void onCommandCompleted(
+    final int commandId,
+    final long nanos)
+  {
+    this.commandLatencies[commandId].record(nanos);
+  }
+
+  /**
+   * @return The names of known commands, in command ID order
+   */
+
+  public List<String> commandNames()
+  {
+    return this.commandNames;
+  }
+
+  /**
+   * @param commandId The command ID
+   *
+   * @return The execution times of the given command
+   */
+
+  public OxLatencyHistogram commandLatency(
+    final int commandId)
+  {
+    return this.commandLatencies[commandId];
+  }
+
+  /**
+   * Record that an error was sent to a client.
+   *
+   * @param code The error code
+   */
+
+  public void onError(
+    final OxIRCErrorCode code)
+  {
+    this.errors[code.ordinal()].increment();
+  }
+
+  @Override
+  public List<OxServerPortMetricsType> ports()
+  {
+    return Collections.unmodifiableList(this.ports);
+  }
+
+  @Override
+  public Map<String, Long> commands()
+  {
+    final var results = new LinkedHashMap<String, Long>();
+    for (int index = 0; index < this.commands.length; ++index) {
+      results.put(
+        this.commandNames.get(index),
+        Long.valueOf(this.commands[index].sum()));
+    }
+    return Collections.unmodifiableMap(results);
+  }
+
+  @Override
+  public long commandsUnknown()
+  {
+    return this.commandsUnknown.sum();
+  }
+
+  @Override
+  public Map<OxIRCErrorCode, Long> errors()
+  {
+    final var results = new EnumMap<OxIRCErrorCode, Long>(OxIRCErrorCode.class);
+    for (int index = 0; index < this.errors.length; ++index) {
+      final var count = this.errors[index].sum();
+      if (count > 0L) {
+        results.put(ERROR_CODES[index], Long.valueOf(count));
+      }
+    }
+    return Collections.unmodifiableMap(results);
+  }
+
+  @Override
+  public long queuedMessages()
+  {
+    return this.queueStatistics.queuedMessages();
+  }
+
+  @Override
+  public long queuedOctets()
+  {
+    return this.queueStatistics.queuedOctets();
+  }
+
+  @Override
+  public long queuedOctetsMaximum()
+  {
+    return this.queueStatistics.queuedOctetsMaximum();
+  }
+}
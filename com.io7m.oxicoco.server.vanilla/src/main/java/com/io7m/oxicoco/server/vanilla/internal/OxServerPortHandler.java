@@ -20,53 +20,93 @@ import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ServerSocketFactory;
+import javax.net.ssl.SSLServerSocketFactory;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.SocketException;
-import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * A handler for a single server port. Servers listening on multiple ports
- * (for TLS and plain text connections, for example) will have multiple handlers.
+ * A handler for a single server port that serves each client on a thread
+ * of its own.
+ *
+ * <p>Plain text ports listen on a {@link ServerSocketChannel}; TLS ports
+ * listen on a socket from the given TLS factory, as there is no channel
+ * equivalent. Acceptors block in {@code accept()} without a timeout, and
+ * closing the handler closes the listening socket, which wakes every
+ * acceptor immediately. Acceptors do nothing but accept connections:
+ * creating the transport and registering the client with the controller
+ * happen on the client executor, and so a burst of connections is not
+ * serialized behind client registration. An acceptor whose
+ * {@code accept()} fails backs off before trying again.</p>
+ *
+ * <p>Every accepted connection passes through admission control on the
+ * acceptor before anything else is done with it. Refused connections are
+ * sent an ERROR line if that can be done without blocking, and are closed
+ * without a transport or client ever being created for them.</p>
  */
 
-public final class OxServerPortHandler implements Closeable
+public final class OxServerPortHandler implements OxServerPortHandlerType
 {
   private static final Logger LOG =
     LoggerFactory.getLogger(OxServerPortHandler.class);
 
   private final OxServerControllerType controller;
-  private final ServerSocketFactory serverSockets;
+  private final SSLServerSocketFactory tlsServerSockets;
+  private final ExecutorService acceptorExecutor;
+  private final ExecutorService clientExecutor;
   private final OxServerPortConfiguration portConfiguration;
+  private final OxServerPortMetrics metrics;
+  private final OxServerAdmission admission;
   private final AtomicBoolean closed;
   private final AtomicReference<ServerSocket> socketReference;
 
   /**
    * A handler for a single server port.
    *
-   * @param inController    The server controller
-   * @param inServerSockets The factory of sockets
-   * @param inPort          The port configuration
+   * @param inController       The server controller
+   * @param inTLSServerSockets The factory of sockets for TLS ports
+   * @param inAcceptors        The executor used for additional acceptors
+   * @param inClients          The executor used for clients
+   * @param inPort             The port configuration
+   * @param inMetrics          The metrics for the port
+   * @param inAdmission        The server's admission control
    */
 
   public OxServerPortHandler(
     final OxServerControllerType inController,
-    final ServerSocketFactory inServerSockets,
-    final OxServerPortConfiguration inPort)
+    final SSLServerSocketFactory inTLSServerSockets,
+    final ExecutorService inAcceptors,
+    final ExecutorService inClients,
+    final OxServerPortConfiguration inPort,
+    final OxServerPortMetrics inMetrics,
+    final OxServerAdmission inAdmission)
   {
     this.controller =
       Objects.requireNonNull(inController, "controller");
-    this.serverSockets =
-      Objects.requireNonNull(inServerSockets, "serverSockets");
+    this.tlsServerSockets =
+      Objects.requireNonNull(inTLSServerSockets, "tlsServerSockets");
+    this.acceptorExecutor =
+      Objects.requireNonNull(inAcceptors, "acceptors");
+    this.clientExecutor =
+      Objects.requireNonNull(inClients, "clients");
     this.portConfiguration =
       Objects.requireNonNull(inPort, "port");
+    this.metrics =
+      Objects.requireNonNull(inMetrics, "metrics");
+    this.admission =
+      Objects.requireNonNull(inAdmission, "admission");
 
     this.closed =
       new AtomicBoolean(false);
@@ -74,12 +114,7 @@ public final class OxServerPortHandler implements Closeable
       new AtomicReference<>();
   }
 
-  /**
-   * Start the port handler.
-   *
-   * @param future The future that will be notified when the handler is running
-   */
-
+  @Override
   public void start(
     final CompletableFuture<Void> future)
   {
@@ -91,53 +126,161 @@ public final class OxServerPortHandler implements Closeable
       return;
     }
 
+    /*
+     * The handler may have been closed before the socket was published, in
+     * which case close() could not see the socket and it must be closed
+     * here.
+     */
+
     this.socketReference.set(socket);
+    if (this.closed.get()) {
+      this.closeQuietly(socket);
+      future.complete(null);
+      return;
+    }
+
+    final var localAddress = socket.getLocalSocketAddress();
+    LOG.info("[{}] listen", localAddress);
 
     try {
-      socket.setSoTimeout(1000);
-    } catch (final SocketException e) {
+      for (int index = 1; index < this.portConfiguration.acceptorThreads();
+           ++index) {
+        this.acceptorExecutor.execute(() -> this.runAcceptor(socket));
+      }
+    } catch (final RejectedExecutionException e) {
+      this.closeQuietly(socket);
       future.completeExceptionally(e);
       return;
     }
 
     future.complete(null);
 
-    final var localAddress = socket.getLocalSocketAddress();
-    LOG.info("[{}] listen", localAddress);
-
     try {
-      while (!this.closed.get()) {
-        try {
-          final var clientSocket = socket.accept();
-          LOG.info("[{}] connect", clientSocket.getRemoteSocketAddress());
-          this.controller.clientCreate(clientSocket);
-        } catch (final SocketTimeoutException e) {
-          // Fine!
-        } catch (final SocketException e) {
-          if (socket.isClosed()) {
-            // Fine!
-          } else {
-            LOG.error("accept: ", e);
-          }
-        } catch (final IOException e) {
+      this.runAcceptor(socket);
+    } finally {
+      LOG.info("[{}] closed", localAddress);
+    }
+  }
+
+  private void runAcceptor(
+    final ServerSocket socket)
+  {
+    final var backoff = new OxServerAcceptBackoff();
+    while (!this.closed.get()) {
+      try {
+        final var clientSocket = socket.accept();
+        backoff.onSuccess();
+
+        final var ticket =
+          this.admission.admit(clientSocket.getRemoteSocketAddress());
+
+        final var refusal = ticket.refusal();
+        if (refusal.isPresent()) {
+          this.refuse(clientSocket, refusal.get());
+          continue;
+        }
+
+        this.metrics.onAccepted();
+        this.handOff(clientSocket, ticket);
+      } catch (final SocketException | ClosedChannelException e) {
+        if (!socket.isClosed()) {
           LOG.error("accept: ", e);
+          backoff.onFailure();
         }
+      } catch (final IOException e) {
+        LOG.error("accept: ", e);
+        backoff.onFailure();
       }
-    } finally {
-      LOG.info("[{}] closed", localAddress);
+    }
+  }
+
+  private void refuse(
+    final Socket clientSocket,
+    final OxServerAdmissionRefusal refusal)
+  {
+    LOG.debug(
+      "[{}] refused: {}",
+      clientSocket.getRemoteSocketAddress(),
+      refusal);
+    this.metrics.onRefused();
+    OxServerAdmission.refuse(clientSocket, refusal);
+  }
+
+  private void handOff(
+    final Socket clientSocket,
+    final OxServerAdmissionTicket ticket)
+  {
+    try {
+      this.clientExecutor.execute(
+        () -> this.clientCreate(clientSocket, ticket));
+    } catch (final RejectedExecutionException e) {
+      ticket.release();
+      this.closeQuietly(clientSocket);
+    }
+  }
+
+  private void clientCreate(
+    final Socket clientSocket,
+    final OxServerAdmissionTicket ticket)
+  {
+    LOG.info("[{}] connect", clientSocket.getRemoteSocketAddress());
+
+    try {
+      this.controller.clientCreate(
+        new OxServerSocketTransport(
+          clientSocket,
+          this.clientExecutor,
+          this.metrics,
+          ticket)
+      ).start();
+    } catch (final IOException e) {
+      LOG.error("[{}] connect: ", clientSocket.getRemoteSocketAddress(), e);
+      ticket.release();
+      this.closeQuietly(clientSocket);
     }
   }
 
   private ServerSocket createSocket()
     throws IOException
   {
-    final var socket = this.serverSockets.createServerSocket();
-    socket.setReuseAddress(true);
-    socket.bind(new InetSocketAddress(
-      this.portConfiguration.address(),
-      this.portConfiguration.port())
-    );
-    return socket;
+    final var address =
+      new InetSocketAddress(
+        this.portConfiguration.address(),
+        this.portConfiguration.port());
+    final var backlog =
+      this.portConfiguration.acceptBacklog();
+
+    if (this.portConfiguration.enableTLS()) {
+      final var socket = this.tlsServerSockets.createServerSocket();
+      try {
+        socket.setReuseAddress(true);
+        socket.bind(address, backlog);
+      } catch (final IOException e) {
+        socket.close();
+        throw e;
+      }
+      return socket;
+    }
+
+    final var channel = ServerSocketChannel.open();
+    try {
+      channel.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+      channel.bind(address, backlog);
+    } catch (final IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel.socket();
+  }
+
+  private void closeQuietly(
+    final Closeable closeable)
+  {
+    try {
+      closeable.close();
+    } catch (final IOException e) {
+      LOG.error("close: ", e);
+    }
   }
 
   @Override
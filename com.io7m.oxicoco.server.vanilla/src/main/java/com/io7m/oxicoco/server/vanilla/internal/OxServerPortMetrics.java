@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortMetricsType;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics collected for a single server port.
+ */
+
+public final class OxServerPortMetrics implements OxServerPortMetricsType
+{
+  private final OxServerPortConfiguration port;
+  private final LongAdder accepts;
+  private final LongAdder disconnects;
+  private final LongAdder refusals;
+  private final LongAdder octetsReceived;
+  private final LongAdder octetsSent;
+  private final LongAdder linesReceived;
+  private final LongAdder linesSent;
+
+  /**
+   * The metrics collected for a single server port.
+   *
+   * @param inPort The port configuration
+   */
+
+  public OxServerPortMetrics(
+    final OxServerPortConfiguration inPort)
+  {
+    this.port = Objects.requireNonNull(inPort, "port");
+    this.accepts = new LongAdder();
+    this.disconnects = new LongAdder();
+    this.refusals = new LongAdder();
+    this.octetsReceived = new LongAdder();
+    this.octetsSent = new LongAdder();
+    this.linesReceived = new LongAdder();
+    this.linesSent = new LongAdder();
+  }
+
+  /**
+   * Record that a connection was accepted.
+   */
+
+  public void onAccepted()
+  {
+    this.accepts.increment();
+  }
+
+  /**
+   * Record that a client disconnected.
+   */
+
+  public void onDisconnected()
+  {
+    this.disconnects.increment();
+  }
+
+  /**
+   * Record that a connection was refused by admission control.
+   */
+
+  public void onRefused()
+  {
+    this.refusals.increment();
+  }
+
+  /**
+   * Record that octets were received from a client.
+   *
+   * @param octets The number of octets
+   */
+
+  public void onReceivedOctets(
+    final int octets)
+  {
+    this.octetsReceived.add(octets);
+  }
+
+  /**
+   * Record that a line was received from a client.
+   */
+
+  public void onReceivedLine()
+  {
+    this.linesReceived.increment();
+  }
+
+  /**
+   * Record that a batch of lines was sent to a client.
+   *
+   * @param lines  The number of lines
+   * @param octets The number of octets
+   */
+
+  public void onSent(
+    final int lines,
+    final long octets)
+  {
+    this.linesSent.add(lines);
+    this.octetsSent.add(octets);
+  }
+
+  @Override
+  public OxServerPortConfiguration port()
+  {
+    return this.port;
+  }
+
+  @Override
+  public long accepts()
+  {
+    return this.accepts.sum();
+  }
+
+  @Override
+  public long disconnects()
+  {
+    return this.disconnects.sum();
+  }
+
+  @Override
+  public long refusals()
+  {
+    return this.refusals.sum();
+  }
+
+  @Override
+  public long octetsReceived()
+  {
+    return this.octetsReceived.sum();
+  }
+
+  @Override
+  public long octetsSent()
+  {
+    return this.octetsSent.sum();
+  }
+
+  @Override
+  public long linesReceived()
+  {
+    return this.linesReceived.sum();
+  }
+
+  @Override
+  public long linesSent()
+  {
+    return this.linesSent.sum();
+  }
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A transport that serves a client using blocking I/O. A reader task blocks
+ * reading lines from the client and handles commands, and a writer task
+ * sleeps until it is woken up to deliver the client's outbound messages.
+ * Neither task polls, and so idle clients consume no CPU time. Only the
+ * writer task writes to the socket, except when the reader task is closing
+ * the connection on behalf of the client. Messages that are waiting when
+ * the writer task wakes up are coalesced into batches, each delivered with
+ * a single write. A batch is closed once it reaches the size of the batch
+ * buffer, and so the buffer never grows much beyond that size, however
+ * large a burst of messages is.
+ *
+ * <p>A transport that is asked to close after flushing wakes the writer
+ * task, which delivers the remaining messages and then closes the socket.
+ * A timer closes the socket if the writer is still blocked on a client
+ * that is not reading when the flush timeout expires.</p>
+ */
+
+public final class OxServerSocketTransport
+  implements OxServerClientTransportType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(OxServerSocketTransport.class);
+
+  private static final int BATCH_BUFFER_SIZE = 8192;
+  private static final long CLOSE_FLUSH_TIMEOUT_MILLISECONDS = 5_000L;
+
+  private final Socket socket;
+  private final SocketAddress address;
+  private final ExecutorService executor;
+  private final OxServerPortMetrics metrics;
+  private final OxServerAdmissionTicket ticket;
+  private final InputStream input;
+  private final OutputStream output;
+  private final ByteArrayOutputStream batch;
+  private final ReentrantLock writerLock;
+  private final ReentrantLock readerLock;
+  private final Condition readerResumed;
+  private final Semaphore writerSignal;
+  private final AtomicBoolean writerPending;
+  private final AtomicBoolean closing;
+  private volatile OxServerClient client;
+  private volatile Thread readerThread;
+
+  /**
+   * A transport that serves a client using blocking I/O.
+   *
+   * @param inSocket   The client socket
+   * @param inExecutor The executor that will provide threads for the client
+   * @param inMetrics  The metrics for the port
+   * @param inTicket   The admission ticket, released when the transport
+   *                   closes
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public OxServerSocketTransport(
+    final Socket inSocket,
+    final ExecutorService inExecutor,
+    final OxServerPortMetrics inMetrics,
+    final OxServerAdmissionTicket inTicket)
+    throws IOException
+  {
+    this.socket =
+      Objects.requireNonNull(inSocket, "socket");
+    this.executor =
+      Objects.requireNonNull(inExecutor, "executor");
+    this.metrics =
+      Objects.requireNonNull(inMetrics, "metrics");
+    this.ticket =
+      Objects.requireNonNull(inTicket, "ticket");
+    this.address =
+      this.socket.getRemoteSocketAddress();
+    this.input =
+      this.socket.getInputStream();
+    this.output =
+      this.socket.getOutputStream();
+    this.batch =
+      new ByteArrayOutputStream(BATCH_BUFFER_SIZE);
+    this.writerLock =
+      new ReentrantLock();
+    this.readerLock =
+      new ReentrantLock();
+    this.readerResumed =
+      this.readerLock.newCondition();
+    this.writerSignal =
+      new Semaphore(0);
+    this.writerPending =
+      new AtomicBoolean(false);
+    this.closing =
+      new AtomicBoolean(false);
+  }
+
+  @Override
+  public SocketAddress remoteAddress()
+  {
+    return this.address;
+  }
+
+  @Override
+  public OxServerPortMetrics portMetrics()
+  {
+    return this.metrics;
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.socket.isClosed();
+  }
+
+  @Override
+  public void start(
+    final OxServerClient inClient)
+  {
+    this.client = Objects.requireNonNull(inClient, "client");
+    this.executor.execute(this::runWriter);
+    this.executor.execute(this::runReader);
+  }
+
+  @Override
+  public void wakeup()
+  {
+    if (this.writerPending.compareAndSet(false, true)) {
+      this.writerSignal.release();
+    }
+  }
+
+  @Override
+  public void onReadSuspensionChanged()
+  {
+    this.signalReader();
+  }
+
+  @Override
+  public void closeAfterFlush()
+  {
+    if (this.closing.compareAndSet(false, true)) {
+      CompletableFuture.delayedExecutor(
+        CLOSE_FLUSH_TIMEOUT_MILLISECONDS,
+        TimeUnit.MILLISECONDS
+      ).execute(this::closeQuietly);
+      this.wakeup();
+    }
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    try {
+
+      /*
+       * If the client is closing its own connection (as with QUIT), make
+       * a best-effort attempt to deliver any replies that are still queued.
+       */
+
+      if (Thread.currentThread() == this.readerThread) {
+        this.writeOutboundQuietly();
+      }
+      this.socket.close();
+    } finally {
+      this.ticket.release();
+      this.writerSignal.release();
+      this.signalReader();
+    }
+  }
+
+  private void signalReader()
+  {
+    this.readerLock.lock();
+    try {
+      this.readerResumed.signalAll();
+    } finally {
+      this.readerLock.unlock();
+    }
+  }
+
+  /**
+   * Wait until the client is willing to accept input.
+   *
+   * @return {@code false} if the socket was closed while waiting
+   */
+
+  private boolean awaitReadable()
+    throws InterruptedException
+  {
+    this.readerLock.lock();
+    try {
+      while (this.client.isReadingSuspended()) {
+        if (this.socket.isClosed()) {
+          return false;
+        }
+        this.readerResumed.await();
+      }
+      return !this.socket.isClosed();
+    } finally {
+      this.readerLock.unlock();
+    }
+  }
+
+  private void runReader()
+  {
+    this.readerThread = Thread.currentThread();
+
+    try {
+      while (this.awaitReadable()) {
+
+        /*
+         * Deliver any lines that were left in the buffer when reading was
+         * last suspended before blocking to wait for more input.
+         */
+
+        this.client.onInputReceived();
+        this.wakeup();
+        if (this.client.isReadingSuspended()) {
+          continue;
+        }
+
+        final var buffer = this.client.inputBuffer();
+        final var count =
+          this.input.read(
+            buffer.array(),
+            buffer.arrayOffset() + buffer.position(),
+            buffer.remaining()
+          );
+        if (count == -1) {
+          return;
+        }
+
+        buffer.position(buffer.position() + count);
+        this.client.onReceivedOctets(count);
+        this.client.onInputReceived();
+        this.wakeup();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final SocketException | ClosedChannelException e) {
+      if (!this.socket.isClosed()) {
+        this.error("socket error: ", e);
+      }
+    } catch (final IOException e) {
+      this.error("i/o error: ", e);
+    } finally {
+      this.client.onDisconnected();
+    }
+  }
+
+  private void runWriter()
+  {
+    try {
+      while (!this.socket.isClosed()) {
+        this.writerSignal.acquire();
+        this.writerPending.set(false);
+        this.writeOutbound();
+
+        /*
+         * Messages queued before the transport was marked as closing may
+         * have arrived after the write above polled the queue, and so the
+         * queue must be drained once more after observing the flag.
+         */
+
+        if (this.closing.get()) {
+          this.writeOutbound();
+          return;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final SocketException | ClosedChannelException e) {
+      if (!this.socket.isClosed()) {
+        this.error("socket error: ", e);
+      }
+    } catch (final IOException e) {
+      this.error("i/o error: ", e);
+    } finally {
+      this.closeQuietly();
+    }
+  }
+
+  private void writeOutbound()
+    throws IOException
+  {
+    this.writerLock.lock();
+    try {
+      if (this.socket.isClosed()) {
+        return;
+      }
+
+      var written = true;
+      while (written) {
+        written = this.writeBatch();
+      }
+    } finally {
+      this.writerLock.unlock();
+    }
+  }
+
+  /**
+   * Write a single batch of queued messages.
+   *
+   * @return {@code true} if any messages were written
+   */
+
+  private boolean writeBatch()
+    throws IOException
+  {
+    var messageCount = 0;
+    this.batch.reset();
+    while (this.batch.size() < BATCH_BUFFER_SIZE) {
+      final var message = this.client.pollOutbound();
+      if (message == null) {
+        break;
+      }
+      message.writeTo(this.batch);
+      ++messageCount;
+    }
+
+    if (messageCount == 0) {
+      return false;
+    }
+
+    final var event = new OxWriteEvent();
+    event.begin();
+
+    this.batch.writeTo(this.output);
+    this.output.flush();
+    this.client.onWroteBatch(messageCount, this.batch.size());
+    this.commitWriteEvent(event, messageCount, this.batch.size());
+    return true;
+  }
+
+  private void commitWriteEvent(
+    final OxWriteEvent event,
+    final int messageCount,
+    final long octets)
+  {
+    if (event.shouldCommit()) {
+      event.clientId = this.client.id().format();
+      event.messages = messageCount;
+      event.octets = octets;
+      event.commit();
+    }
+  }
+
+  private void writeOutboundQuietly()
+  {
+    try {
+      this.writeOutbound();
+    } catch (final IOException e) {
+      // The connection is being closed anyway
+    }
+  }
+
+  private void closeQuietly()
+  {
+    try {
+      this.close();
+    } catch (final IOException e) {
+      this.error("close: ", e);
+    }
+  }
+
+  private void error(
+    final String message,
+    final Exception exception)
+  {
+    LOG.error(
+      "[{}] {}",
+      this.address,
+      message,
+      exception
+    );
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import com.io7m.oxicoco.errors.OxIRCErrorCommandUnknown;
+import com.io7m.oxicoco.messages.OxIRCMessageEncoder;
+import com.io7m.oxicoco.names.OxServerName;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A pre-encoded template for ERR_UNKNOWNCOMMAND replies. The octets that
+ * surround the command name are encoded once per server, and so producing a
+ * reply only requires encoding the name of the unknown command.
+ */
+
+public final class OxUnknownCommandReply
+{
+  private static final String MARKER = "\u0000";
+
+  private final Optional<OxServerName> serverName;
+  private final byte[] head;
+  private final byte[] tail;
+
+  /**
+   * Create a reply template.
+   *
+   * @param inServerName The server name used as the reply prefix
+   */
+
+  public OxUnknownCommandReply(
+    final OxServerName inServerName)
+  {
+    this.serverName =
+      Optional.of(Objects.requireNonNull(inServerName, "serverName"));
+
+    final var encoded =
+      OxIRCMessageEncoder.INSTANCE.encode(
+        OxIRCErrorCommandUnknown.of(MARKER).toMessage(this.serverName)
+      );
+
+    int marker = 0;
+    while (encoded[marker] != 0) {
+      ++marker;
+    }
+
+    this.head = Arrays.copyOfRange(encoded, 0, marker);
+    this.tail = Arrays.copyOfRange(encoded, marker + 1, encoded.length);
+  }
+
+  /**
+   * Produce a reply for the given command.
+   *
+   * @param command The unknown command
+   *
+   * @return An encoded reply
+   */
+
+  public OxEncodedMessage reply(
+    final String command)
+  {
+    Objects.requireNonNull(command, "command");
+
+    final var name = command.getBytes(UTF_8);
+    final var data =
+      new byte[this.head.length + name.length + this.tail.length];
+    System.arraycopy(this.head, 0, data, 0, this.head.length);
+    System.arraycopy(name, 0, data, this.head.length, name.length);
+    System.arraycopy(
+      this.tail, 0, data, this.head.length + name.length, this.tail.length);
+
+    return OxEncodedMessage.ofEncoded(
+      () -> OxIRCErrorCommandUnknown.of(command).toMessage(this.serverName),
+      data
+    );
+  }
+}
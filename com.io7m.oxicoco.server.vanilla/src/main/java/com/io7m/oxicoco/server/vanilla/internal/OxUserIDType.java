@@ -53,11 +53,6 @@ public interface OxUserIDType
 
   default String format()
   {
-    return String.format(
-      "%s!%s@%s",
-      this.nick().value(),
-      this.user().value(),
-      this.host()
-    );
+    return this.nick().value() + '!' + this.user().value() + '@' + this.host();
   }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.server.vanilla.internal;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics describing the batches of messages written to clients. Each
+ * batch is delivered to the client with a single write, and so the ratio of
+ * messages to batches indicates how well writes are being coalesced.
+ */
+
+public final class OxWriteBatchStatistics
+{
+  private static final int BUCKET_COUNT = 16;
+
+  private final LongAdder batches;
+  private final LongAdder messages;
+  private final LongAdder octets;
+  private final LongAdder[] buckets;
+
+  /**
+   * Statistics describing the batches of messages written to clients.
+   */
+
+  public OxWriteBatchStatistics()
+  {
+    this.batches = new LongAdder();
+    this.messages = new LongAdder();
+    this.octets = new LongAdder();
+    this.buckets = new LongAdder[BUCKET_COUNT];
+    for (int index = 0; index < BUCKET_COUNT; ++index) {
+      this.buckets[index] = new LongAdder();
+    }
+  }
+
+  private static int bucketOf(
+    final int messageCount)
+  {
+    final var bucket = 31 - Integer.numberOfLeadingZeros(messageCount);
+    return Math.min(bucket, BUCKET_COUNT - 1);
+  }
+
+  /**
+   * Record that a batch of messages was written.
+   *
+   * @param messageCount The number of messages in the batch
+   * @param octetCount   The number of octets in the batch
+   */
+
+  public void record(
+    final int messageCount,
+    final long octetCount)
+  {
+    if (messageCount <= 0) {
+      return;
+    }
+
+    this.batches.increment();
+    this.messages.add(messageCount);
+    this.octets.add(octetCount);
+    this.buckets[bucketOf(messageCount)].increment();
+  }
+
+  /**
+   * @return The number of batches written
+   */
+
+  public long batches()
+  {
+    return this.batches.sum();
+  }
+
+  /**
+   * @return The number of messages written
+   */
+
+  public long messages()
+  {
+    return this.messages.sum();
+  }
+
+  /**
+   * @return The number of octets written
+   */
+
+  public long octets()
+  {
+    return this.octets.sum();
+  }
+
+  /**
+   * @return The number of batch size buckets
+   */
+
+  public int bucketCount()
+  {
+    return BUCKET_COUNT;
+  }
+
+  /**
+   * Bucket {@code n} counts the batches that contained between {@code 2^n}
+   * and {@code 2^(n+1) - 1} messages. The last bucket also counts all
+   * larger batches.
+   *
+   * @param bucket The bucket index
+   *
+   * @return The number of batches that fell into the given bucket
+   */
+
+  public long bucket(
+    final int bucket)
+  {
+    return this.buckets[bucket].sum();
+  }
+}
@@ -25,12 +25,10 @@ module com.io7m.oxicoco.server.vanilla
   requires static org.osgi.annotation.bundle;
   requires static org.osgi.annotation.versioning;
 
-  requires com.io7m.jcip.annotations;
   requires com.io7m.oxicoco.errors;
   requires com.io7m.oxicoco.messages;
   requires com.io7m.oxicoco.names;
-  requires io.reactivex.rxjava3;
-  requires org.apache.commons.collections4;
+  requires jdk.jfr;
   requires org.slf4j;
   requires transitive com.io7m.oxicoco.server.api;
 
@@ -20,6 +20,7 @@ import com.io7m.oxicoco.errors.OxIRCErrorChannelInvalid;
 import com.io7m.oxicoco.errors.OxIRCErrorChannelNonexistent;
 import com.io7m.oxicoco.errors.OxIRCErrorChannelNotIn;
 import com.io7m.oxicoco.errors.OxIRCErrorCommandUnknown;
+import com.io7m.oxicoco.errors.OxIRCErrorInputTooLong;
 import com.io7m.oxicoco.errors.OxIRCErrorNeedMoreParameters;
 import com.io7m.oxicoco.errors.OxIRCErrorNickCollision;
 import com.io7m.oxicoco.errors.OxIRCErrorNickInvalid;
@@ -47,6 +48,7 @@ import com.io7m.oxicoco.server.vanilla.internal.OxUserID;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 import org.mockito.Mockito;
 
@@ -71,25 +73,62 @@ public final class OxEqualsTest
     );
   }
 
+  /**
+   * The command ID is resolved by parsers as an optimization and is
+   * deliberately excluded from message equality.
+   */
+
+  @Test
+  public void testEqualsMessage()
+  {
+    EqualsVerifier.forClass(OxIRCMessage.class)
+      .suppress(Warning.NULL_FIELDS)
+      .withIgnoredFields("commandId")
+      .verify();
+  }
+
+  /**
+   * Nick and channel names precompute their hash codes, and compare them
+   * first in equals().
+   */
+
+  @Test
+  public void testEqualsNickName()
+  {
+    EqualsVerifier.forClass(OxNickName.class)
+      .suppress(Warning.NULL_FIELDS, Warning.TRANSIENT_FIELDS)
+      .withCachedHashCode(
+        "hashCode", "computeHashCode", OxNickName.of("nick"))
+      .verify();
+  }
+
+  @Test
+  public void testEqualsChannelName()
+  {
+    EqualsVerifier.forClass(OxChannelName.class)
+      .suppress(Warning.NULL_FIELDS, Warning.TRANSIENT_FIELDS)
+      .withCachedHashCode(
+        "hashCode", "computeHashCode", OxChannelName.of("#channel"))
+      .verify();
+  }
+
   @TestFactory
   public Stream<DynamicTest> testEquals()
   {
     return Stream.of(
       OxChannelJoinResult.class,
-      OxChannelName.class,
       OxChannelPartResult.class,
       OxIRCErrorChannelInvalid.class,
       OxIRCErrorChannelNonexistent.class,
       OxIRCErrorChannelNotIn.class,
       OxIRCErrorCommandUnknown.class,
+      OxIRCErrorInputTooLong.class,
       OxIRCErrorNeedMoreParameters.class,
       OxIRCErrorNickCollision.class,
       OxIRCErrorNickInvalid.class,
       OxIRCErrorNickNonexistent.class,
       OxIRCErrorTopicInvalid.class,
       OxIRCErrorUserInvalid.class,
-      OxIRCMessage.class,
-      OxNickName.class,
       OxServerChannelCreated.class,
       OxServerChannelJoined.class,
       OxServerChannelParted.class,
@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A single synthetic client. Each client has a reader task that consumes
+ * everything the server sends; the payload of every PRIVMSG received is
+ * expected to be the {@link System#nanoTime()} at which the message was
+ * intended to be sent.
+ */
+
+final class OxLoadClient implements Closeable
+{
+  private final Socket socket;
+  private final OutputStream output;
+  private final BufferedReader input;
+  private final String nick;
+  private final LongConsumer onDelivered;
+  private final CountDownLatch registered;
+  private final CountDownLatch joined;
+
+  private OxLoadClient(
+    final Socket inSocket,
+    final String inNick,
+    final int inJoins,
+    final LongConsumer inOnDelivered)
+    throws IOException
+  {
+    this.socket =
+      Objects.requireNonNull(inSocket, "socket");
+    this.nick =
+      Objects.requireNonNull(inNick, "nick");
+    this.onDelivered =
+      Objects.requireNonNull(inOnDelivered, "onDelivered");
+
+    this.output =
+      this.socket.getOutputStream();
+    this.input =
+      new BufferedReader(
+        new InputStreamReader(this.socket.getInputStream(), UTF_8));
+    this.registered =
+      new CountDownLatch(1);
+    this.joined =
+      new CountDownLatch(inJoins);
+  }
+
+  static OxLoadClient connect(
+    final InetSocketAddress address,
+    final String nick,
+    final int joins,
+    final LongConsumer onDelivered)
+    throws IOException
+  {
+    final var socket = new Socket();
+    try {
+      socket.setTcpNoDelay(true);
+      socket.connect(address);
+      return new OxLoadClient(socket, nick, joins, onDelivered);
+    } catch (final IOException e) {
+      socket.close();
+      throw e;
+    }
+  }
+
+  String nick()
+  {
+    return this.nick;
+  }
+
+  void start(
+    final ExecutorService executor)
+  {
+    executor.execute(this::runReader);
+  }
+
+  private void runReader()
+  {
+    try {
+      while (true) {
+        final var line = this.input.readLine();
+        if (line == null) {
+          return;
+        }
+        this.onLine(line);
+      }
+    } catch (final SocketException e) {
+      // The connection was closed
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void onLine(
+    final String line)
+  {
+    if (line.contains(" PRIVMSG ")) {
+      final var payload = line.lastIndexOf(':');
+      try {
+        this.onDelivered.accept(Long.parseLong(line.substring(payload + 1)));
+      } catch (final NumberFormatException e) {
+        // Not a load message
+      }
+      return;
+    }
+
+    if (line.contains(" 001 ")) {
+      this.registered.countDown();
+      return;
+    }
+    if (line.contains(" 366 ")) {
+      this.joined.countDown();
+    }
+  }
+
+  /**
+   * Send a single line to the server. Only one thread may send at any
+   * given time.
+   *
+   * @param line The line, without a terminator
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void send(
+    final String line)
+    throws IOException
+  {
+    this.output.write((line + "\r\n").getBytes(UTF_8));
+    this.output.flush();
+  }
+
+  boolean awaitRegistered(
+    final long nanos)
+    throws InterruptedException
+  {
+    return this.registered.await(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  boolean awaitJoined(
+    final long nanos)
+    throws InterruptedException
+  {
+    return this.joined.await(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.socket.close();
+  }
+}
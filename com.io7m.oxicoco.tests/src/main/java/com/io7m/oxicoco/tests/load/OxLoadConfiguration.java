@@ -0,0 +1,229 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The configuration of a load generation run. Configurations are parsed
+ * from arguments of the form {@code --name=value}; every parameter has a
+ * default.
+ */
+
+public final class OxLoadConfiguration
+{
+  private final InetAddress address;
+  private final int port;
+  private final boolean startServer;
+  private final int clients;
+  private final int channels;
+  private final int joinsPerClient;
+  private final double zipfExponent;
+  private final double messagesPerSecond;
+  private final Duration warmup;
+  private final Duration duration;
+  private final Duration drain;
+  private final long seed;
+
+  private OxLoadConfiguration(
+    final Map<String, String> values)
+    throws UnknownHostException
+  {
+    this.address =
+      InetAddress.getByName(values.getOrDefault("address", "127.0.0.1"));
+    this.port =
+      Integer.parseInt(values.getOrDefault("port", "6667"));
+    this.startServer =
+      Boolean.parseBoolean(values.getOrDefault("server", "false"));
+    this.clients =
+      Integer.parseInt(values.getOrDefault("clients", "1000"));
+    this.channels =
+      Integer.parseInt(values.getOrDefault("channels", "100"));
+    this.joinsPerClient =
+      Integer.parseInt(values.getOrDefault("joins", "2"));
+    this.zipfExponent =
+      Double.parseDouble(values.getOrDefault("zipf", "1.0"));
+    this.messagesPerSecond =
+      Double.parseDouble(values.getOrDefault("rate", "1000"));
+    this.warmup =
+      Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "5")));
+    this.duration =
+      Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "30")));
+    this.drain =
+      Duration.ofSeconds(Long.parseLong(values.getOrDefault("drain", "5")));
+    this.seed =
+      Long.parseLong(values.getOrDefault("seed", "0"));
+
+    if (this.clients < 2) {
+      throw new IllegalArgumentException("At least two clients are required");
+    }
+    if (this.channels < 1) {
+      throw new IllegalArgumentException("At least one channel is required");
+    }
+    if (this.joinsPerClient < 1 || this.joinsPerClient > this.channels) {
+      throw new IllegalArgumentException(
+        "Joins per client must be in the range [1, channels]");
+    }
+    if (this.messagesPerSecond <= 0.0) {
+      throw new IllegalArgumentException("Rate must be positive");
+    }
+  }
+
+  /**
+   * Parse a configuration from the given arguments.
+   *
+   * @param arguments The arguments
+   *
+   * @return A configuration
+   *
+   * @throws UnknownHostException If the address cannot be resolved
+   */
+
+  public static OxLoadConfiguration parse(
+    final String... arguments)
+    throws UnknownHostException
+  {
+    Objects.requireNonNull(arguments, "arguments");
+
+    final var values = new HashMap<String, String>();
+    for (final var argument : arguments) {
+      if (!argument.startsWith("--") || !argument.contains("=")) {
+        throw new IllegalArgumentException(
+          "Arguments must be of the form --name=value: " + argument);
+      }
+      final var separator = argument.indexOf('=');
+      values.put(
+        argument.substring(2, separator),
+        argument.substring(separator + 1)
+      );
+    }
+    return new OxLoadConfiguration(values);
+  }
+
+  /**
+   * @return The server address
+   */
+
+  public InetAddress address()
+  {
+    return this.address;
+  }
+
+  /**
+   * @return The server port
+   */
+
+  public int port()
+  {
+    return this.port;
+  }
+
+  /**
+   * @return {@code true} if an in-process server should be started
+   */
+
+  public boolean startServer()
+  {
+    return this.startServer;
+  }
+
+  /**
+   * @return The number of client connections
+   */
+
+  public int clients()
+  {
+    return this.clients;
+  }
+
+  /**
+   * @return The number of channels
+   */
+
+  public int channels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * @return The number of distinct channels each client joins
+   */
+
+  public int joinsPerClient()
+  {
+    return this.joinsPerClient;
+  }
+
+  /**
+   * @return The exponent of the Zipf distribution of channel popularity
+   */
+
+  public double zipfExponent()
+  {
+    return this.zipfExponent;
+  }
+
+  /**
+   * @return The rate at which messages are sent, across all clients
+   */
+
+  public double messagesPerSecond()
+  {
+    return this.messagesPerSecond;
+  }
+
+  /**
+   * @return The period during which latencies are not recorded
+   */
+
+  public Duration warmup()
+  {
+    return this.warmup;
+  }
+
+  /**
+   * @return The period during which latencies are recorded
+   */
+
+  public Duration duration()
+  {
+    return this.duration;
+  }
+
+  /**
+   * @return The time allowed for messages to arrive after sending stops
+   */
+
+  public Duration drain()
+  {
+    return this.drain;
+  }
+
+  /**
+   * @return The seed used to choose channels and senders
+   */
+
+  public long seed()
+  {
+    return this.seed;
+  }
+}
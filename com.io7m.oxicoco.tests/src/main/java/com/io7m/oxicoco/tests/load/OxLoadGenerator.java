@@ -0,0 +1,381 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.api.OxServerType;
+import com.io7m.oxicoco.server.vanilla.OxServers;
+import com.io7m.oxicoco.server.vanilla.internal.OxLatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator that drives a server with a swarm of synthetic clients.
+ *
+ * <p>Each client registers a nick and joins a number of distinct channels
+ * chosen from a Zipf distribution, and so a few channels are very large and
+ * most are small. Messages are then sent to randomly chosen channels of
+ * randomly chosen clients at a fixed rate. The schedule is open-loop: each
+ * message has an intended send time fixed in advance, and carries that time
+ * as its payload. A sender that falls behind the schedule sends the late
+ * messages immediately rather than skipping them, and the recorded
+ * latencies include the delay, which corrects for coordinated omission.</p>
+ *
+ * <p>All clients connect from the same address, and so a server driven
+ * by the generator must permit that many connections per address; an
+ * in-process server is configured accordingly.</p>
+ *
+ * <p>Usage: {@code OxLoadGenerator [--name=value ...]}; see
+ * {@link OxLoadConfiguration} for the parameters.</p>
+ */
+
+public final class OxLoadGenerator
+{
+  private static final Duration SETUP_TIMEOUT = Duration.ofSeconds(60L);
+
+  private final OxLoadConfiguration configuration;
+  private final OxLatencyHistogram latencies;
+  private final LongAdder delivered;
+  private final List<OxLoadClient> clients;
+  private final List<int[]> clientChannels;
+  private final int[] channelMembers;
+  private volatile long measureStart;
+  private volatile long measureEnd;
+
+  private OxLoadGenerator(
+    final OxLoadConfiguration inConfiguration)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.latencies =
+      new OxLatencyHistogram();
+    this.delivered =
+      new LongAdder();
+    this.clients =
+      new ArrayList<>(this.configuration.clients());
+    this.clientChannels =
+      new ArrayList<>(this.configuration.clients());
+    this.channelMembers =
+      new int[this.configuration.channels()];
+    this.measureStart = Long.MAX_VALUE;
+    this.measureEnd = Long.MAX_VALUE;
+  }
+
+  /**
+   * The main entry point.
+   *
+   * @param args The command-line arguments
+   *
+   * @throws Exception On errors
+   */
+
+  public static void main(
+    final String[] args)
+    throws Exception
+  {
+    run(OxLoadConfiguration.parse(args)).print(System.out);
+  }
+
+  /**
+   * Execute a load generation run.
+   *
+   * @param configuration The configuration
+   *
+   * @return The results of the run
+   *
+   * @throws Exception On errors
+   */
+
+  public static OxLoadReport run(
+    final OxLoadConfiguration configuration)
+    throws Exception
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    if (!configuration.startServer()) {
+      return new OxLoadGenerator(configuration).execute();
+    }
+
+    try (var server = startServer(configuration)) {
+      return new OxLoadGenerator(configuration).execute();
+    }
+  }
+
+  private static OxServerType startServer(
+    final OxLoadConfiguration configuration)
+    throws Exception
+  {
+    final var server =
+      new OxServers().create(
+        OxServerConfiguration.builder()
+          .setServerName(OxServerName.of("com.example"))
+          .setConnectionLimitPerAddress(configuration.clients())
+          .setConnectBurstPerAddress(configuration.clients())
+          .addPorts(
+            OxServerPortConfiguration.builder()
+              .setAddress(configuration.address())
+              .setPort(configuration.port())
+              .setEnableTLS(false)
+              .build()
+          )
+          .build()
+      );
+
+    try {
+      server.start().get();
+      return server;
+    } catch (final Exception e) {
+      server.close();
+      throw e;
+    }
+  }
+
+  private static String channelName(
+    final int rank)
+  {
+    return "#load" + rank;
+  }
+
+  private static void checkReady(
+    final boolean ready,
+    final String what)
+    throws TimeoutException
+  {
+    if (!ready) {
+      throw new TimeoutException("Timed out waiting for clients to " + what);
+    }
+  }
+
+  private OxLoadReport execute()
+    throws Exception
+  {
+    final var random = new Random(this.configuration.seed());
+    this.assignChannels(random);
+
+    try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      try {
+        this.connect(executor);
+        this.register();
+        this.join();
+        final var sent = this.sendMessages(random);
+        this.drain(sent[1]);
+
+        return new OxLoadReport(
+          this.configuration,
+          this.configuration.duration(),
+          sent[0],
+          sent[1],
+          this.delivered.sum(),
+          this.latencies
+        );
+      } finally {
+        this.closeClients();
+      }
+    }
+  }
+
+  /*
+   * Each client joins a set of distinct channels drawn from a Zipf
+   * distribution. Drawing distinct ranks can take a long time when the
+   * distribution is very skewed, so after a bounded number of attempts the
+   * remaining joins are assigned to the most popular channels not yet
+   * chosen.
+   */
+
+  private void assignChannels(
+    final Random random)
+  {
+    final var zipf =
+      new OxLoadZipf(
+        this.configuration.channels(),
+        this.configuration.zipfExponent());
+    final var joins =
+      this.configuration.joinsPerClient();
+
+    for (int index = 0; index < this.configuration.clients(); ++index) {
+      final var chosen = new LinkedHashSet<Integer>(joins);
+      for (int attempt = 0; chosen.size() < joins && attempt < joins * 100;
+           ++attempt) {
+        chosen.add(Integer.valueOf(zipf.sample(random)));
+      }
+      for (int rank = 0; chosen.size() < joins; ++rank) {
+        chosen.add(Integer.valueOf(rank));
+      }
+
+      final var ranks =
+        chosen.stream()
+          .mapToInt(Integer::intValue)
+          .toArray();
+
+      for (final var rank : ranks) {
+        ++this.channelMembers[rank];
+      }
+      this.clientChannels.add(ranks);
+    }
+  }
+
+  private void connect(
+    final ExecutorService executor)
+    throws IOException
+  {
+    final var address =
+      new InetSocketAddress(
+        this.configuration.address(),
+        this.configuration.port());
+
+    for (int index = 0; index < this.configuration.clients(); ++index) {
+      final var client =
+        OxLoadClient.connect(
+          address,
+          "load" + index,
+          this.configuration.joinsPerClient(),
+          this::onDelivered
+        );
+      this.clients.add(client);
+      client.start(executor);
+    }
+  }
+
+  private void register()
+    throws Exception
+  {
+    for (final var client : this.clients) {
+      final var nick = client.nick();
+      client.send("NICK " + nick);
+      client.send("USER " + nick + " " + nick + " " + nick + " :Load");
+    }
+
+    final var deadline = System.nanoTime() + SETUP_TIMEOUT.toNanos();
+    for (final var client : this.clients) {
+      checkReady(
+        client.awaitRegistered(deadline - System.nanoTime()),
+        "register");
+    }
+  }
+
+  private void join()
+    throws Exception
+  {
+    for (int index = 0; index < this.clients.size(); ++index) {
+      final var client = this.clients.get(index);
+      for (final var rank : this.clientChannels.get(index)) {
+        client.send("JOIN " + channelName(rank));
+      }
+    }
+
+    final var deadline = System.nanoTime() + SETUP_TIMEOUT.toNanos();
+    for (final var client : this.clients) {
+      checkReady(
+        client.awaitJoined(deadline - System.nanoTime()),
+        "join");
+    }
+  }
+
+  /**
+   * Send messages according to the open-loop schedule.
+   *
+   * @return The number of messages sent, and the number of deliveries
+   * expected, during the measured period
+   */
+
+  private long[] sendMessages(
+    final Random random)
+    throws IOException
+  {
+    final var interval =
+      1_000_000_000.0 / this.configuration.messagesPerSecond();
+    final var start =
+      System.nanoTime();
+
+    this.measureStart = start + this.configuration.warmup().toNanos();
+    this.measureEnd =
+      this.measureStart + this.configuration.duration().toNanos();
+
+    var sent = 0L;
+    var expected = 0L;
+    for (long index = 0L; ; ++index) {
+      final var intended = start + (long) (index * interval);
+      if (intended >= this.measureEnd) {
+        break;
+      }
+
+      final var wait = intended - System.nanoTime();
+      if (wait > 0L) {
+        LockSupport.parkNanos(wait);
+      }
+
+      final var sender = random.nextInt(this.clients.size());
+      final var ranks = this.clientChannels.get(sender);
+      final var rank = ranks[random.nextInt(ranks.length)];
+
+      this.clients.get(sender)
+        .send("PRIVMSG " + channelName(rank) + " :" + intended);
+
+      if (intended >= this.measureStart) {
+        ++sent;
+        expected += this.channelMembers[rank] - 1;
+      }
+    }
+    return new long[]{sent, expected};
+  }
+
+  private void drain(
+    final long expected)
+  {
+    final var deadline =
+      System.nanoTime() + this.configuration.drain().toNanos();
+
+    while (this.delivered.sum() < expected && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(1_000_000L);
+    }
+  }
+
+  private void onDelivered(
+    final long intended)
+  {
+    final var now = System.nanoTime();
+    if (intended >= this.measureStart && intended < this.measureEnd) {
+      this.latencies.record(now - intended);
+      this.delivered.increment();
+    }
+  }
+
+  private void closeClients()
+  {
+    for (final var client : this.clients) {
+      try {
+        client.close();
+      } catch (final IOException e) {
+        // Nothing can be done about this
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxLoadGeneratorTest
+{
+  @Test
+  @Timeout(60L)
+  public void testRunInProcess()
+    throws Exception
+  {
+    final var report =
+      OxLoadGenerator.run(OxLoadConfiguration.parse(
+        "--server=true",
+        "--port=6670",
+        "--clients=20",
+        "--channels=4",
+        "--joins=2",
+        "--rate=200",
+        "--warmup=0",
+        "--duration=1",
+        "--drain=5"
+      ));
+
+    assertTrue(report.sent() > 0L);
+    assertEquals(report.expected(), report.delivered());
+    assertEquals(report.delivered(), report.latencies().count());
+  }
+
+  @Test
+  public void testConfigurationInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxLoadConfiguration.parse("--joins=3", "--channels=2");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxLoadConfiguration.parse("clients=3");
+    });
+  }
+
+  @Test
+  public void testZipfRange()
+  {
+    final var zipf = new OxLoadZipf(10, 1.0);
+    final var random = new Random(0L);
+    final var counts = new int[10];
+    for (int index = 0; index < 10_000; ++index) {
+      ++counts[zipf.sample(random)];
+    }
+    for (int index = 1; index < counts.length; ++index) {
+      assertTrue(counts[0] > counts[index]);
+    }
+  }
+}
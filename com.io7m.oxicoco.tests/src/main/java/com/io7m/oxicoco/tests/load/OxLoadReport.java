@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import com.io7m.oxicoco.server.vanilla.internal.OxLatencyHistogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * The results of a load generation run. Latencies are measured from the
+ * time at which each message was intended to be sent, rather than the time
+ * at which it was actually sent, and so include any time that messages
+ * spent waiting behind a stalled sender.
+ */
+
+public final class OxLoadReport
+{
+  private static final double[] PERCENTILES = {
+    50.0, 90.0, 99.0, 99.9, 99.99, 100.0,
+  };
+
+  private final OxLoadConfiguration configuration;
+  private final Duration measured;
+  private final long sent;
+  private final long expected;
+  private final long delivered;
+  private final OxLatencyHistogram latencies;
+
+  OxLoadReport(
+    final OxLoadConfiguration inConfiguration,
+    final Duration inMeasured,
+    final long inSent,
+    final long inExpected,
+    final long inDelivered,
+    final OxLatencyHistogram inLatencies)
+  {
+    this.configuration =
+      Objects.requireNonNull(inConfiguration, "configuration");
+    this.measured =
+      Objects.requireNonNull(inMeasured, "measured");
+    this.latencies =
+      Objects.requireNonNull(inLatencies, "latencies");
+    this.sent = inSent;
+    this.expected = inExpected;
+    this.delivered = inDelivered;
+  }
+
+  /**
+   * @return The number of messages sent during the measured period
+   */
+
+  public long sent()
+  {
+    return this.sent;
+  }
+
+  /**
+   * @return The number of deliveries expected for the messages sent
+   */
+
+  public long expected()
+  {
+    return this.expected;
+  }
+
+  /**
+   * @return The number of deliveries observed for the messages sent
+   */
+
+  public long delivered()
+  {
+    return this.delivered;
+  }
+
+  /**
+   * @return The end-to-end delivery latencies
+   */
+
+  public OxLatencyHistogram latencies()
+  {
+    return this.latencies;
+  }
+
+  /**
+   * Print the report.
+   *
+   * @param output The output stream
+   */
+
+  public void print(
+    final PrintStream output)
+  {
+    final var seconds = this.measured.toNanos() / 1_000_000_000.0;
+
+    output.printf(
+      Locale.ROOT,
+      "clients:   %d%n",
+      Integer.valueOf(this.configuration.clients()));
+    output.printf(
+      Locale.ROOT,
+      "channels:  %d (%d joins per client, zipf %.2f)%n",
+      Integer.valueOf(this.configuration.channels()),
+      Integer.valueOf(this.configuration.joinsPerClient()),
+      Double.valueOf(this.configuration.zipfExponent()));
+    output.printf(
+      Locale.ROOT,
+      "sent:      %d (%.1f/s, target %.1f/s)%n",
+      Long.valueOf(this.sent),
+      Double.valueOf(this.sent / seconds),
+      Double.valueOf(this.configuration.messagesPerSecond()));
+    output.printf(
+      Locale.ROOT,
+      "delivered: %d of %d (%.1f/s)%n",
+      Long.valueOf(this.delivered),
+      Long.valueOf(this.expected),
+      Double.valueOf(this.delivered / seconds));
+
+    for (final var percentile : PERCENTILES) {
+      output.printf(
+        Locale.ROOT,
+        "p%-8s  %.1fus%n",
+        Double.toString(percentile),
+        Double.valueOf(this.latencies.percentileNanos(percentile) / 1000.0));
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A sampler of ranks in the range {@code [0, n)} following a Zipf
+ * distribution: rank {@code k} is chosen with probability proportional to
+ * {@code 1 / (k + 1)^s}.
+ */
+
+public final class OxLoadZipf
+{
+  private final double[] cumulative;
+
+  /**
+   * Create a sampler.
+   *
+   * @param count    The number of ranks
+   * @param exponent The exponent {@code s}
+   */
+
+  public OxLoadZipf(
+    final int count,
+    final double exponent)
+  {
+    if (count < 1) {
+      throw new IllegalArgumentException("Count must be positive");
+    }
+
+    this.cumulative = new double[count];
+    var total = 0.0;
+    for (int rank = 0; rank < count; ++rank) {
+      total += 1.0 / Math.pow(rank + 1.0, exponent);
+      this.cumulative[rank] = total;
+    }
+    for (int rank = 0; rank < count; ++rank) {
+      this.cumulative[rank] /= total;
+    }
+  }
+
+  /**
+   * @param random A source of randomness
+   *
+   * @return A rank
+   */
+
+  public int sample(
+    final Random random)
+  {
+    final var target = random.nextDouble();
+    final var index = Arrays.binarySearch(this.cumulative, target);
+    final var rank = index >= 0 ? index : -index - 1;
+    return Math.min(rank, this.cumulative.length - 1);
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.messages;
+
+import com.io7m.oxicoco.messages.OxIRCMessageByteParsers;
+import com.io7m.oxicoco.messages.OxIRCMessageParserFactoryType;
+import com.io7m.oxicoco.messages.OxIRCMessageType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class OxIRCMessageByteParsersTest
+  extends OxIRCMessageParsersContract
+{
+  private static final String PRIVMSG =
+    "PRIVMSG";
+
+  @Override
+  protected OxIRCMessageParserFactoryType parsers()
+  {
+    return new OxIRCMessageByteParsers(List.of(PRIVMSG, "motd"));
+  }
+
+  @Test
+  public void testCommandInterned()
+  {
+    final var message0 =
+      this.parser().parse("privmsg #x :a").orElseThrow();
+    final var message1 =
+      this.parser().parse("PrivMsg #y :b").orElseThrow();
+
+    assertSame(PRIVMSG, message0.command());
+    assertSame(PRIVMSG, message1.command());
+    assertEquals(0, message0.commandId());
+    assertEquals(0, message1.commandId());
+  }
+
+  @Test
+  public void testCommandNotInterned()
+  {
+    final var message =
+      this.parser().parse("privmsgs #x :a").orElseThrow();
+
+    assertEquals("PRIVMSGS", message.command());
+    assertEquals(OxIRCMessageType.COMMAND_UNKNOWN, message.commandId());
+  }
+
+  @Test
+  public void testCommandIds()
+  {
+    final var message =
+      this.parser().parse("MOTD").orElseThrow();
+
+    assertEquals("MOTD", message.command());
+    assertEquals(1, message.commandId());
+  }
+
+  @Test
+  public void testCommandDuplicates()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      new OxIRCMessageByteParsers(List.of("MOTD", "motd"));
+    });
+  }
+}
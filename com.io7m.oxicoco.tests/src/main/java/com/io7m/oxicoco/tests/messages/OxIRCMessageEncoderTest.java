@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.messages;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageEncoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class OxIRCMessageEncoderTest
+{
+  private static final OxIRCMessageEncoder ENCODER =
+    OxIRCMessageEncoder.INSTANCE;
+
+  private static List<OxIRCMessage> messages()
+  {
+    return List.of(
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix("")
+        .setCommand("PING")
+        .setTrailing("")
+        .build(),
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix(":x!y@00000001")
+        .setCommand("PRIVMSG")
+        .addParameters("#main")
+        .setTrailing(":Hello!")
+        .build(),
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix(":com.example")
+        .setCommand("353")
+        .addParameters("x", "=", "#main")
+        .setTrailing(":x y z")
+        .build(),
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix(":x!y@00000001")
+        .setCommand("PRIVMSG")
+        .addParameters("#main")
+        .setTrailing(":café ☃ 😀")
+        .build(),
+      OxIRCMessage.builder()
+        .setRawText("")
+        .putTags("a", "1")
+        .putTags("b", "")
+        .setPrefix("")
+        .setCommand("NOTICE")
+        .setTrailing(":x")
+        .build()
+    );
+  }
+
+  @Test
+  public void testSameAsFormat()
+  {
+    for (final var message : messages()) {
+      final var expected = (message.format() + "\r\n").getBytes(UTF_8);
+      assertEquals(expected.length, ENCODER.sizeOf(message));
+      assertArrayEquals(expected, ENCODER.encode(message));
+    }
+  }
+
+  @Test
+  public void testSameWithEncodedPrefix()
+  {
+    for (final var message : messages()) {
+      final var prefix = message.prefix().getBytes(UTF_8);
+      assertArrayEquals(
+        ENCODER.encode(message),
+        ENCODER.encode(message, prefix));
+    }
+  }
+
+  @Test
+  public void testTagValuesEscaped()
+  {
+    final var message =
+      OxIRCMessage.builder()
+        .setRawText("")
+        .putTags("k", "a;b c\\d\r\n")
+        .setPrefix("")
+        .setCommand("NOTICE")
+        .setTrailing(":x")
+        .build();
+
+    final var expected = "@k=a\\:b\\sc\\\\d\\r\\n NOTICE :x\r\n";
+    assertEquals(expected.length(), ENCODER.sizeOf(message));
+    assertEquals(expected, new String(ENCODER.encode(message), UTF_8));
+  }
+
+  @Test
+  public void testUnpairedSurrogate()
+  {
+    final var message =
+      OxIRCMessage.builder()
+        .setRawText("")
+        .setPrefix("")
+        .setCommand("NOTICE")
+        .setTrailing(":\ud83d")
+        .build();
+
+    final var expected = (message.format() + "\r\n").getBytes(UTF_8);
+    assertEquals(expected.length, ENCODER.sizeOf(message));
+    assertArrayEquals(expected, ENCODER.encode(message));
+  }
+
+  @Test
+  public void testEncodeIntoBuffer()
+  {
+    final var buffer = ByteBuffer.allocate(64);
+    buffer.put((byte) 'z');
+
+    final var message = messages().get(1);
+    ENCODER.encode(message, buffer);
+    assertEquals(1 + ENCODER.sizeOf(message), buffer.position());
+  }
+
+  @Test
+  public void testEncodeOverflow()
+  {
+    final var buffer = ByteBuffer.allocate(8);
+    buffer.put((byte) 'z');
+
+    assertThrows(BufferOverflowException.class, () -> {
+      ENCODER.encode(messages().get(1), buffer);
+    });
+    assertEquals(1, buffer.position());
+  }
+}
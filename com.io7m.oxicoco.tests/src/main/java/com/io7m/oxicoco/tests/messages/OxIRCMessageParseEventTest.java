@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.messages;
+
+import com.io7m.oxicoco.messages.OxIRCMessageByteParsers;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxIRCMessageParseEventTest
+{
+  private static final String EVENT_NAME =
+    "com.io7m.oxicoco.MessageParse";
+
+  private static List<RecordedEvent> record(
+    final Path directory,
+    final boolean enabled)
+    throws Exception
+  {
+    final var parser =
+      new OxIRCMessageByteParsers(List.of("PING", "PRIVMSG"))
+        .create();
+
+    final var file = directory.resolve("recording.jfr");
+    try (var recording = new Recording()) {
+      if (enabled) {
+        recording.enable(EVENT_NAME).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+      parser.parse("PRIVMSG #main :Hello.");
+      parser.parse("PING");
+      recording.stop();
+      recording.dump(file);
+    }
+
+    return RecordingFile.readAllEvents(file)
+      .stream()
+      .filter(e -> e.getEventType().getName().equals(EVENT_NAME))
+      .toList();
+  }
+
+  @Test
+  public void testDisabledByDefault(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    assertTrue(record(directory, false).isEmpty());
+  }
+
+  @Test
+  public void testRecorded(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var events = record(directory, true);
+    assertEquals(2, events.size());
+
+    assertEquals("PRIVMSG", events.get(0).getString("command"));
+    assertEquals(21, events.get(0).getInt("octets"));
+    assertEquals("PING", events.get(1).getString("command"));
+    assertEquals(4, events.get(1).getInt("octets"));
+  }
+}
@@ -16,116 +16,14 @@
 
 package com.io7m.oxicoco.tests.messages;
 
-import com.io7m.oxicoco.messages.OxIRCMessageParserType;
+import com.io7m.oxicoco.messages.OxIRCMessageParserFactoryType;
 import com.io7m.oxicoco.messages.OxIRCMessageParsers;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
-
-public final class OxIRCMessageParsersTest
+public final class OxIRCMessageParsersTest extends OxIRCMessageParsersContract
 {
-  private static final Logger LOG =
-    LoggerFactory.getLogger(OxIRCMessageParsersTest.class);
-
-  private OxIRCMessageParsers parsers;
-  private OxIRCMessageParserType parser;
-
-  @BeforeEach
-  public void setup()
-  {
-    this.parsers = new OxIRCMessageParsers();
-    this.parser = this.parsers.create();
-  }
-
-  @Test
-  public void testEmpty()
-  {
-    final var text = "   ";
-    final var message = this.parser.parse(text);
-    assertTrue(message.isEmpty());
-  }
-
-  @Test
-  public void testNOTICE0()
-  {
-    final var text = ":irc.example.com NOTICE * :*** Looking up your hostname...";
-    final var message = this.parser.parse(text).orElseThrow();
-
-    LOG.debug("message: {}", message);
-    assertEquals("NOTICE", message.command());
-    assertEquals("*", message.parameters().get(0));
-    assertEquals(":*** Looking up your hostname...", message.trailing());
-    assertEquals(":irc.example.com", message.prefix());
-    assertEquals(text, message.rawText());
-    LOG.debug("message.raw:    {}", message.rawText());
-    LOG.debug("message.format: {}", message.format());
-  }
-
-  @Test
-  public void testNOTICE1()
+  @Override
+  protected OxIRCMessageParserFactoryType parsers()
   {
-    final var text = ":irc.example.com NOTICE * :*** Could not resolve your hostname: Domain not found; using your IP address (2606:2800:220:1:248:1893:25c8:1946) instead.";
-    final var message = this.parser.parse(text).orElseThrow();
-
-    LOG.debug("message: {}", message);
-    assertEquals("NOTICE", message.command());
-    assertEquals("*", message.parameters().get(0));
-    assertEquals(":*** Could not resolve your hostname: Domain not found; using your IP address (2606:2800:220:1:248:1893:25c8:1946) instead.", message.trailing());
-    assertEquals(":irc.example.com", message.prefix());
-    assertEquals(text, message.rawText());
-    LOG.debug("message.raw:    {}", message.rawText());
-    LOG.debug("message.format: {}", message.format());
-  }
-
-  @Test
-  public void testCAPLS()
-  {
-    final var text = "CAP LS";
-    final var message = this.parser.parse(text).orElseThrow();
-
-    LOG.debug("message: {}", message);
-    assertEquals("CAP", message.command());
-    assertEquals("LS", message.parameters().get(0));
-    assertEquals("", message.trailing());
-    assertEquals("", message.prefix());
-    assertEquals(text, message.rawText());
-    LOG.debug("message.raw:    {}", message.rawText());
-    LOG.debug("message.format: {}", message.format());
-  }
-
-  @Test
-  public void testMOTD()
-  {
-    final var text = "MOTD";
-    final var message = this.parser.parse(text).orElseThrow();
-
-    LOG.debug("message: {}", message);
-    assertEquals("MOTD", message.command());
-    assertEquals(0, message.parameters().size());
-    assertEquals("", message.trailing());
-    assertEquals("", message.prefix());
-    assertEquals(text, message.rawText());
-    LOG.debug("message.raw:    {}", message.rawText());
-    LOG.debug("message.format: {}", message.format());
-  }
-
-  @Test
-  public void testMOTDLow()
-  {
-    final var text = "motd";
-    final var message = this.parser.parse(text).orElseThrow();
-
-    LOG.debug("message: {}", message);
-    assertEquals("MOTD", message.command());
-    assertEquals(0, message.parameters().size());
-    assertEquals("", message.trailing());
-    assertEquals("", message.prefix());
-    assertEquals(text, message.rawText());
-    LOG.debug("message.raw:    {}", message.rawText());
-    LOG.debug("message.format: {}", message.format());
+    return new OxIRCMessageParsers();
   }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.names;
+
+import com.io7m.oxicoco.names.OxCaseMapping;
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxNickName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class OxCaseMappingTest
+{
+  @Test
+  public void testASCII()
+  {
+    assertEquals("abc[]\\~", OxCaseMapping.ASCII.fold("ABC[]\\~"));
+    assertEquals("ascii", OxCaseMapping.ASCII.tokenName());
+  }
+
+  @Test
+  public void testRFC1459()
+  {
+    assertEquals("abc{}|^", OxCaseMapping.RFC1459.fold("ABC[]\\~"));
+    assertEquals("abc{}|^", OxCaseMapping.RFC1459.fold("abc{}|^"));
+    assertEquals("rfc1459", OxCaseMapping.RFC1459.tokenName());
+  }
+
+  @Test
+  public void testFoldedUnchanged()
+  {
+    for (final var mapping : OxCaseMapping.values()) {
+      final var text = "already_folded";
+      assertSame(text, mapping.fold(text));
+    }
+  }
+
+  @Test
+  public void testKeyOf()
+  {
+    assertEquals(
+      OxCaseMapping.RFC1459.keyOf(OxNickName.of("someone")),
+      OxCaseMapping.RFC1459.keyOf(OxNickName.of("SomeOne"))
+    );
+  }
+
+  @Test
+  public void testKeyOfInterned()
+  {
+    for (final var mapping : OxCaseMapping.values()) {
+      final var key = mapping.keyOf(OxNickName.of("SomeOne"));
+      assertSame(key, mapping.keyOf(OxNickName.of("SOMEONE")));
+      assertSame(key, mapping.keyOf("someone"));
+      assertSame(mapping, key.caseMapping());
+      assertEquals("someone", key.value());
+    }
+  }
+
+  @Test
+  public void testKeyOfCached()
+  {
+    final var name = OxChannelName.of("#Main");
+    for (final var mapping : OxCaseMapping.values()) {
+      assertSame(mapping.keyOf(name), mapping.keyOf(name));
+    }
+  }
+
+  @Test
+  public void testKeyOfMappingsDistinct()
+  {
+    final var name = OxNickName.of("nick");
+    assertNotEquals(
+      OxCaseMapping.ASCII.keyOf(name),
+      OxCaseMapping.RFC1459.keyOf(name)
+    );
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.names;
+
+import com.io7m.oxicoco.names.OxChannelNames;
+import com.io7m.oxicoco.names.OxNickNames;
+import com.io7m.oxicoco.names.OxServerNames;
+import com.io7m.oxicoco.names.OxTopics;
+import com.io7m.oxicoco.names.OxUserNames;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Differential tests that check that the name checkers accept exactly the
+ * strings accepted by the regular expressions that originally defined them.
+ */
+
+public final class OxNameCheckersTest
+{
+  private static final String ALPHABET =
+    "aAzZbY09_-.#:! \0\r\né☃😀😀\ud83d";
+
+  private static List<String> samples(
+    final long seed)
+  {
+    final var random = new Random(seed);
+    final var results = new ArrayList<String>();
+    results.add("");
+
+    final var codePoints = ALPHABET.codePoints().toArray();
+    for (int index = 0; index < 20_000; ++index) {
+      final var length = random.nextInt(40);
+      final var text = new StringBuilder(length);
+      for (int cp = 0; cp < length; ++cp) {
+        text.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+      }
+      results.add(text.toString());
+    }
+
+    /*
+     * Generate strings around the length limits, including strings that
+     * consist of surrogate pairs and unpaired surrogates.
+     */
+
+    for (final var length : new int[]{30, 31, 32, 33, 255, 256, 257, 300}) {
+      results.add("a".repeat(length));
+      results.add("#" + "a".repeat(length));
+      results.add("_" + "0".repeat(length));
+      results.add("😀".repeat(length));
+      results.add("\ud83d".repeat(length));
+      results.add("a.b".repeat(length));
+    }
+    return results;
+  }
+
+  private static DynamicTest differential(
+    final String name,
+    final String pattern,
+    final Predicate<String> checker)
+  {
+    return DynamicTest.dynamicTest(
+      String.format("testDifferential_%s", name),
+      () -> {
+        final var compiled = Pattern.compile(pattern);
+        for (final var text : samples(name.hashCode())) {
+          assertEquals(
+            Boolean.valueOf(compiled.matcher(text).matches()),
+            Boolean.valueOf(checker.test(text)),
+            () -> String.format("%s: '%s'", name, text)
+          );
+        }
+      }
+    );
+  }
+
+  @TestFactory
+  public Stream<DynamicTest> testDifferential()
+  {
+    return Stream.of(
+      differential(
+        "channel",
+        "#[A-Za-z0-9_]{1,31}",
+        OxChannelNames.INSTANCE::isValid),
+      differential(
+        "nick",
+        "[A-Za-z_][A-Za-z0-9_]{0,31}",
+        OxNickNames.INSTANCE::isValid),
+      differential(
+        "user",
+        "[A-Za-z_][A-Za-z0-9_]{0,31}",
+        OxUserNames.INSTANCE::isValid),
+      differential(
+        "server",
+        "[a-z][a-z0-9_-]*(\\.[a-z][a-z0-9_-]*)*",
+        OxServerNames.INSTANCE::isValid),
+      differential(
+        "topic",
+        "[^\0\r\n]{0,256}",
+        OxTopics.INSTANCE::isValid)
+    );
+  }
+
+  @Test
+  public void testExamples()
+  {
+    assertTrue(OxChannelNames.INSTANCE.isValid("#main"));
+    assertFalse(OxChannelNames.INSTANCE.isValid("#"));
+    assertTrue(OxNickNames.INSTANCE.isValid("_x0"));
+    assertFalse(OxNickNames.INSTANCE.isValid("0x"));
+    assertTrue(OxServerNames.INSTANCE.isValid("com.example"));
+    assertFalse(OxServerNames.INSTANCE.isValid("com..example"));
+    assertFalse(OxServerNames.INSTANCE.isValid("com.example."));
+    assertTrue(OxTopics.INSTANCE.isValid(""));
+    assertFalse(OxTopics.INSTANCE.isValid("a\nb"));
+  }
+
+  @Test
+  public void testCheckValid()
+  {
+    final var ex =
+      assertThrows(IllegalArgumentException.class, () -> {
+        OxNickNames.INSTANCE.checkValid("0x");
+      });
+    assertTrue(ex.getMessage().contains("0x"));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.names;
+
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.names.OxChannelNames;
+import com.io7m.oxicoco.names.OxNameInterner;
+import com.io7m.oxicoco.names.OxNickNames;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class OxNameInternerTest
+{
+  @Test
+  public void testInternSame()
+  {
+    final var name0 = OxNickNames.INSTANCE.intern("someone");
+    final var name1 = OxNickNames.INSTANCE.intern(new String("someone"));
+    assertSame(name0, name1);
+  }
+
+  @Test
+  public void testInternEqualToConstructed()
+  {
+    final var name = OxChannelNames.INSTANCE.intern("#main");
+    assertEquals(OxChannelName.of("#main"), name);
+    assertEquals(OxChannelName.of("#main").hashCode(), name.hashCode());
+  }
+
+  @Test
+  public void testInternInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxChannelNames.INSTANCE.intern("main");
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxNickNames.INSTANCE.intern("#main");
+    });
+  }
+
+  @Test
+  public void testInternSize()
+  {
+    final var interner = new OxNameInterner<>(OxChannelName::of);
+    final var name0 = interner.intern("#a");
+    final var name1 = interner.intern("#b");
+    interner.intern("#a");
+
+    assertEquals(2, interner.size());
+    assertEquals("#a", name0.value());
+    assertEquals("#b", name1.value());
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.names.OxCaseMapping;
+import com.io7m.oxicoco.names.OxChannelName;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannel;
+import com.io7m.oxicoco.server.vanilla.internal.OxChannelMap;
+import com.io7m.oxicoco.server.vanilla.internal.OxClientException;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerControllerType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.io7m.oxicoco.server.vanilla.internal.OxChannelJoinResultType.JoinStatus.CHANNEL_ALREADY_JOINED;
+import static com.io7m.oxicoco.server.vanilla.internal.OxChannelJoinResultType.JoinStatus.CHANNEL_JOINED_CREATED;
+import static com.io7m.oxicoco.server.vanilla.internal.OxChannelJoinResultType.JoinStatus.CHANNEL_JOINED_EXISTING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxChannelMapTest
+{
+  private OxServerControllerType controller;
+  private OxChannelMap channels;
+
+  private static OxServerClient client(
+    final int id)
+  {
+    final var client =
+      Mockito.mock(OxServerClient.class, Mockito.withSettings().stubOnly());
+    Mockito.when(client.id()).thenReturn(OxServerClientID.of(id));
+    return client;
+  }
+
+  private OxChannel channel(
+    final OxChannelName name)
+  {
+    return new OxChannel(this.controller, name);
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.controller =
+      Mockito.mock(OxServerControllerType.class);
+    this.channels =
+      new OxChannelMap(OxCaseMapping.RFC1459);
+  }
+
+  @Test
+  public void testJoinPart()
+    throws Exception
+  {
+    final var name = OxChannelName.of("#main");
+    final var a = client(1);
+    final var b = client(2);
+
+    final var r0 = this.channels.channelJoin(a, name, this::channel);
+    assertEquals(CHANNEL_JOINED_CREATED, r0.status());
+    assertEquals(Set.of(), r0.notifyUsers());
+
+    final var r1 = this.channels.channelJoin(b, name, this::channel);
+    assertEquals(CHANNEL_JOINED_EXISTING, r1.status());
+    assertEquals(Set.of(a.id()), r1.notifyUsers());
+
+    final var r2 = this.channels.channelJoin(b, name, this::channel);
+    assertEquals(CHANNEL_ALREADY_JOINED, r2.status());
+
+    assertEquals(Set.of(a.id(), b.id()), this.channels.channelClients(name));
+    assertEquals(Set.of(a.id(), b.id()), this.channels.clientsWatching(a));
+
+    final var p0 = this.channels.channelPart(a, name);
+    assertTrue(p0.parted());
+    assertEquals(Set.of(a.id(), b.id()), p0.notifyUsers());
+    assertEquals(Set.of(), this.channels.channelsFor(a));
+
+    final var p1 = this.channels.channelPart(a, name);
+    assertFalse(p1.parted());
+
+    assertThrows(OxClientException.class, () -> {
+      this.channels.channelPart(a, OxChannelName.of("#other"));
+    });
+  }
+
+  @Test
+  public void testJoinPartCaseMapped()
+    throws Exception
+  {
+    final var a = client(1);
+    final var b = client(2);
+
+    final var r0 =
+      this.channels.channelJoin(a, OxChannelName.of("#Main"), this::channel);
+    assertEquals(CHANNEL_JOINED_CREATED, r0.status());
+
+    final var r1 =
+      this.channels.channelJoin(b, OxChannelName.of("#MAIN"), this::channel);
+    assertEquals(CHANNEL_JOINED_EXISTING, r1.status());
+    assertEquals("#Main", r1.channel().name().value());
+    assertEquals(1, this.channels.channelCount());
+
+    assertEquals(
+      Set.of(a.id(), b.id()),
+      this.channels.channelClients(OxChannelName.of("#main")));
+
+    final var p0 = this.channels.channelPart(a, OxChannelName.of("#mAIN"));
+    assertTrue(p0.parted());
+    assertEquals(Set.of(), this.channels.channelsFor(a));
+    assertEquals(
+      Set.of(OxChannelName.of("#Main")),
+      this.channels.channelsFor(b));
+  }
+
+  @Test
+  public void testClientRemove()
+  {
+    final var a = client(1);
+    final var b = client(2);
+    final var c = client(3);
+
+    final var x = OxChannelName.of("#x");
+    final var y = OxChannelName.of("#y");
+    this.channels.channelJoin(a, x, this::channel);
+    this.channels.channelJoin(a, y, this::channel);
+    this.channels.channelJoin(b, x, this::channel);
+    this.channels.channelJoin(c, y, this::channel);
+
+    final var watching = this.channels.clientRemove(a);
+    assertEquals(Set.of(a.id(), b.id(), c.id()), watching);
+    assertEquals(Set.of(b.id()), this.channels.channelClients(x));
+    assertEquals(Set.of(c.id()), this.channels.channelClients(y));
+    assertEquals(Set.of(), this.channels.channelsFor(a));
+  }
+
+  @Test
+  public void testConcurrentJoinRemove()
+    throws Exception
+  {
+    final var threads = 8;
+    final var names = new ArrayList<OxChannelName>();
+    for (int index = 0; index < 32; ++index) {
+      names.add(OxChannelName.of("#c" + index));
+    }
+
+    final var executor = Executors.newFixedThreadPool(threads);
+    try {
+      final var start = new CountDownLatch(1);
+      final var futures = new ArrayList<Future<?>>();
+      for (int thread = 0; thread < threads; ++thread) {
+        final var client = client(thread);
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int round = 0; round < 100; ++round) {
+            for (final var name : names) {
+              this.channels.channelJoin(client, name, this::channel);
+            }
+            this.channels.clientsWatching(client);
+            this.channels.clientRemove(client);
+          }
+          for (final var name : names) {
+            this.channels.channelJoin(client, name, this::channel);
+          }
+          return null;
+        }));
+      }
+
+      start.countDown();
+      for (final var future : futures) {
+        future.get(30L, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    for (final var name : names) {
+      assertEquals(threads, this.channels.channelClients(name).size());
+    }
+  }
+}
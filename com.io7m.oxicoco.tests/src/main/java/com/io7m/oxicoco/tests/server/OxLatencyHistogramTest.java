@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.server.vanilla.internal.OxLatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxLatencyHistogramTest
+{
+  @Test
+  public void testEmpty()
+  {
+    final var histogram = new OxLatencyHistogram();
+    assertEquals(0L, histogram.count());
+    assertEquals(0L, histogram.totalNanos());
+    assertEquals(0L, histogram.percentileNanos(50.0));
+  }
+
+  @Test
+  public void testSmallExact()
+  {
+    final var histogram = new OxLatencyHistogram();
+    for (int index = 0; index < 8; ++index) {
+      histogram.record(index);
+    }
+
+    assertEquals(8L, histogram.count());
+    assertEquals(28L, histogram.totalNanos());
+    assertEquals(0L, histogram.percentileNanos(0.0));
+    assertEquals(3L, histogram.percentileNanos(50.0));
+    assertEquals(7L, histogram.percentileNanos(100.0));
+  }
+
+  @Test
+  public void testPercentilesBounded()
+  {
+    final var histogram = new OxLatencyHistogram();
+    for (int index = 1; index <= 1000; ++index) {
+      histogram.record(index * 1000L);
+    }
+
+    assertEquals(1000L, histogram.count());
+
+    final var checks = new double[][]{
+      {50.0, 500_000.0},
+      {99.0, 990_000.0},
+      {99.9, 999_000.0},
+    };
+
+    for (final var check : checks) {
+      final var estimate = histogram.percentileNanos(check[0]);
+      assertTrue(estimate >= check[1], "Estimate is an upper bound");
+      assertTrue(estimate <= check[1] * 1.125, "Estimate is within 12.5%");
+    }
+  }
+
+  @Test
+  public void testLarge()
+  {
+    final var histogram = new OxLatencyHistogram();
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.percentileNanos(100.0));
+  }
+
+  @Test
+  public void testPercentileInvalid()
+  {
+    final var histogram = new OxLatencyHistogram();
+    assertThrows(IllegalArgumentException.class, () -> {
+      histogram.percentileNanos(-1.0);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      histogram.percentileNanos(100.1);
+    });
+  }
+}
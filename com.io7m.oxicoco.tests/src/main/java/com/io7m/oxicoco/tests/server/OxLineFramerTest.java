@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.server.vanilla.internal.OxLineFramer;
+import com.io7m.oxicoco.server.vanilla.internal.OxLineReceiverType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class OxLineFramerTest
+{
+  private static final String TOO_LONG = "<too long>";
+
+  private Receiver receiver;
+
+  private static final class Receiver implements OxLineReceiverType
+  {
+    private final List<String> lines = new ArrayList<>();
+    private boolean receiving = true;
+
+    Receiver()
+    {
+
+    }
+
+    @Override
+    public boolean isReceivingLines()
+    {
+      return this.receiving;
+    }
+
+    @Override
+    public void onReceiveLine(
+      final byte[] data,
+      final int offset,
+      final int length)
+    {
+      this.lines.add(UTF_8.decode(ByteBuffer.wrap(data, offset, length)).toString());
+    }
+
+    @Override
+    public void onReceiveLineTooLong()
+    {
+      this.lines.add(TOO_LONG);
+    }
+  }
+
+  private void feed(
+    final OxLineFramer framer,
+    final String text)
+    throws IOException
+  {
+    final var data = text.getBytes(UTF_8);
+    var offset = 0;
+    while (offset < data.length) {
+      final var buffer = framer.buffer();
+      final var count = Math.min(buffer.remaining(), data.length - offset);
+      buffer.put(data, offset, count);
+      offset += count;
+      framer.process(this.receiver);
+    }
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.receiver = new Receiver();
+  }
+
+  @Test
+  public void testSplitLines()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    this.feed(framer, "NI");
+    this.feed(framer, "CK a\r\nPI");
+    this.feed(framer, "NG\r");
+    this.feed(framer, "\nMOTD\n");
+
+    assertEquals(List.of("NICK a", "PING", "MOTD"), this.receiver.lines);
+  }
+
+  @Test
+  public void testCarriageReturnOnly()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    this.feed(framer, "NICK a\rPING\r");
+    this.feed(framer, "\nMOTD\r\r\nVERSION\n");
+
+    assertEquals(
+      List.of("NICK a", "PING", "MOTD", "", "VERSION"),
+      this.receiver.lines);
+  }
+
+  @Test
+  public void testTooLongCarriageReturn()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    this.feed(framer, "x".repeat(OxLineFramer.LINE_LIMIT));
+    this.feed(framer, "\r");
+    this.feed(framer, "\nPING\r");
+
+    assertEquals(List.of(TOO_LONG, "PING"), this.receiver.lines);
+  }
+
+  @Test
+  public void testLimitExact()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    final var body = "x".repeat(OxLineFramer.LINE_LIMIT - 2);
+    this.feed(framer, body + "\r");
+    this.feed(framer, "\n");
+    this.feed(framer, body + "y\r\n");
+
+    assertEquals(List.of(body, TOO_LONG), this.receiver.lines);
+  }
+
+  @Test
+  public void testTooLongWithoutTerminator()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    for (int index = 0; index < 1000; ++index) {
+      this.feed(framer, "x".repeat(100));
+    }
+    this.feed(framer, "x\r\nPING\r\n");
+
+    assertEquals(List.of(TOO_LONG, "PING"), this.receiver.lines);
+  }
+
+  @Test
+  public void testTags()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(8191);
+    final var tags = "@" + "t".repeat(1000) + " ";
+    final var body = "x".repeat(OxLineFramer.LINE_LIMIT - 2);
+    this.feed(framer, tags + body + "\r\n");
+    this.feed(framer, "@" + "t".repeat(8191) + " PING\r\n");
+
+    assertEquals(List.of(tags + body, TOO_LONG), this.receiver.lines);
+  }
+
+  @Test
+  public void testSuspended()
+    throws IOException
+  {
+    final var framer = new OxLineFramer(0);
+    this.receiver.receiving = false;
+    this.feed(framer, "NICK a\r\nPING\r\nMO");
+    assertEquals(List.of(), this.receiver.lines);
+
+    this.receiver.receiving = true;
+    this.feed(framer, "TD\r\n");
+    assertEquals(List.of("NICK a", "PING", "MOTD"), this.receiver.lines);
+  }
+}
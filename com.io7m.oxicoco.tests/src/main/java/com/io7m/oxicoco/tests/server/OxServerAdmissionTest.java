@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerAdmission;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerAdmissionRefusal;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+
+import static com.io7m.oxicoco.server.vanilla.internal.OxServerAdmissionRefusal.CONNECTING_TOO_FAST;
+import static com.io7m.oxicoco.server.vanilla.internal.OxServerAdmissionRefusal.TOO_MANY_CONNECTIONS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerAdmissionTest
+{
+  private long time;
+
+  private static InetSocketAddress address(
+    final String text)
+    throws UnknownHostException
+  {
+    return new InetSocketAddress(InetAddress.getByName(text), 6667);
+  }
+
+  private OxServerAdmission admission(
+    final OxServerConfiguration.Builder builder)
+  {
+    return new OxServerAdmission(
+      builder.setServerName(OxServerName.of("com.example")).build(),
+      () -> this.time
+    );
+  }
+
+  @Test
+  public void testConnectionLimit()
+    throws Exception
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectionLimitPerAddress(2));
+
+    final var ticket0 = admission.admit(address("10.0.0.1"));
+    final var ticket1 = admission.admit(address("10.0.0.1"));
+    assertTrue(ticket0.isAdmitted());
+    assertTrue(ticket1.isAdmitted());
+    assertEquals(
+      Optional.of(TOO_MANY_CONNECTIONS),
+      admission.admit(address("10.0.0.1")).refusal());
+    assertTrue(admission.admit(address("10.0.0.2")).isAdmitted());
+
+    ticket0.release();
+    ticket0.release();
+    assertTrue(admission.admit(address("10.0.0.1")).isAdmitted());
+    assertEquals(
+      Optional.of(TOO_MANY_CONNECTIONS),
+      admission.admit(address("10.0.0.1")).refusal());
+  }
+
+  @Test
+  public void testConnectRate()
+    throws Exception
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectBurstPerAddress(3)
+          .setConnectRatePerAddress(2.0));
+
+    for (int index = 0; index < 3; ++index) {
+      admission.admit(address("10.0.0.1")).release();
+    }
+    assertEquals(
+      Optional.of(CONNECTING_TOO_FAST),
+      admission.admit(address("10.0.0.1")).refusal());
+
+    this.time += 500_000_000L;
+    assertTrue(admission.admit(address("10.0.0.1")).isAdmitted());
+    assertEquals(
+      Optional.of(CONNECTING_TOO_FAST),
+      admission.admit(address("10.0.0.1")).refusal());
+  }
+
+  @Test
+  public void testPrefixIPv4()
+    throws Exception
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectionLimitPerAddress(1)
+          .setConnectionLimitPrefixIPv4(24));
+
+    assertTrue(admission.admit(address("192.168.0.1")).isAdmitted());
+    assertEquals(
+      Optional.of(TOO_MANY_CONNECTIONS),
+      admission.admit(address("192.168.0.200")).refusal());
+    assertTrue(admission.admit(address("192.168.1.1")).isAdmitted());
+  }
+
+  @Test
+  public void testPrefixIPv6()
+    throws Exception
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectionLimitPerAddress(1));
+
+    assertTrue(admission.admit(address("2001:db8::1")).isAdmitted());
+    assertEquals(
+      Optional.of(TOO_MANY_CONNECTIONS),
+      admission.admit(address("2001:db8::ffff:2")).refusal());
+    assertTrue(admission.admit(address("2001:db8:0:1::1")).isAdmitted());
+  }
+
+  @Test
+  public void testExpiry()
+    throws Exception
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectBurstPerAddress(4)
+          .setConnectRatePerAddress(1.0));
+
+    final var ticket = admission.admit(address("10.0.0.1"));
+    assertEquals(1, admission.trackedPrefixes());
+
+    this.time += 1_000_000_000L;
+    ticket.release();
+    assertEquals(0, admission.trackedPrefixes());
+  }
+
+  @Test
+  public void testNonInternetAdmitted()
+  {
+    final var admission =
+      this.admission(
+        OxServerConfiguration.builder()
+          .setConnectionLimitPerAddress(1));
+
+    final var address = UnixDomainSocketAddress.of("/tmp/socket");
+    assertTrue(admission.admit(address).isAdmitted());
+    assertTrue(admission.admit(address).isAdmitted());
+    assertEquals(0, admission.trackedPrefixes());
+  }
+
+  @Test
+  public void testRefusalMessages()
+  {
+    for (final var refusal : OxServerAdmissionRefusal.values()) {
+      assertEquals("ERROR", refusal.message().message().command());
+    }
+  }
+
+  @Test
+  public void testConfigurationInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .setConnectionLimitPerAddress(0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .setConnectRatePerAddress(0.0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .setConnectionLimitPrefixIPv4(33)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .setConnectionLimitPrefixIPv6(129)
+        .build();
+    });
+  }
+}
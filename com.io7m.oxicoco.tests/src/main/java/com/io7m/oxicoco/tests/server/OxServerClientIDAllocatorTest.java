@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientIDAllocator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerClientIDAllocatorTest
+{
+  @Test
+  public void testUnique()
+  {
+    final var allocator =
+      OxServerClientIDAllocator.create(new Random(0x10000L));
+    final var ids = new HashSet<OxServerClientID>();
+
+    for (int index = 0; index < 100_000; ++index) {
+      assertTrue(ids.add(allocator.allocate()));
+    }
+  }
+
+  @Test
+  public void testReversible()
+  {
+    final var allocator =
+      OxServerClientIDAllocator.create(new Random(0x20000L));
+
+    for (int index = -1000; index < 1000; ++index) {
+      assertEquals(index, allocator.unscramble(allocator.scramble(index)));
+    }
+    assertEquals(
+      Integer.MIN_VALUE,
+      allocator.unscramble(allocator.scramble(Integer.MIN_VALUE)));
+    assertEquals(
+      Integer.MAX_VALUE,
+      allocator.unscramble(allocator.scramble(Integer.MAX_VALUE)));
+  }
+
+  @Test
+  public void testNotSequential()
+  {
+    final var allocator =
+      OxServerClientIDAllocator.create(new Random(0x30000L));
+
+    final var id0 = allocator.allocate().value();
+    final var id1 = allocator.allocate().value();
+    assertNotEquals(id0 + 1, id1);
+  }
+
+  @Test
+  public void testKeyed()
+  {
+    final var allocator0 =
+      OxServerClientIDAllocator.create(new Random(0x40000L));
+    final var allocator1 =
+      OxServerClientIDAllocator.create(new Random(0x50000L));
+
+    assertNotEquals(allocator0.allocate(), allocator1.allocate());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageParsers;
+import com.io7m.oxicoco.names.OxNickName;
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.names.OxUserName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.vanilla.internal.OxOutboundQueueStatistics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientTransportType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerControllerType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerMetrics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortMetrics;
+import com.io7m.oxicoco.server.vanilla.internal.OxUserID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class OxServerClientPrefixTest
+{
+  private OxServerControllerType controller;
+  private OxServerClient client;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.controller =
+      Mockito.mock(OxServerControllerType.class);
+
+    final var statistics =
+      new OxOutboundQueueStatistics();
+    final var transport =
+      Mockito.mock(OxServerClientTransportType.class);
+
+    Mockito.when(this.controller.outboundQueueStatistics())
+      .thenReturn(statistics);
+    Mockito.when(this.controller.metrics())
+      .thenReturn(new OxServerMetrics(
+        OxServerClient.commandNames(),
+        statistics));
+    Mockito.when(transport.portMetrics())
+      .thenReturn(new OxServerPortMetrics(
+        OxServerPortConfiguration.builder()
+          .setAddress(InetAddress.getLoopbackAddress())
+          .setPort(6667)
+          .setEnableTLS(false)
+          .build()));
+
+    this.client =
+      new OxServerClient(
+        OxServerConfiguration.builder()
+          .setServerName(OxServerName.of("com.example"))
+          .build(),
+        new OxIRCMessageParsers(),
+        this.controller,
+        OxServerClientID.of(0x2a),
+        transport
+      );
+  }
+
+  private static OxUserID userId(
+    final String nick,
+    final String user)
+  {
+    return OxUserID.builder()
+      .setNick(OxNickName.of(nick))
+      .setUser(OxUserName.of(user))
+      .setHost("0000002a")
+      .build();
+  }
+
+  @Test
+  public void testPrefixCached()
+    throws Exception
+  {
+    Mockito.when(this.controller.clientUserId(this.client))
+      .thenReturn(userId("x", "y"));
+
+    assertEquals("0000002a", this.client.host());
+    assertEquals(":x!y@0000002a", this.client.prefix());
+    assertSame(this.client.prefix(), this.client.prefix());
+    assertSame(this.client.userId(), this.client.userId());
+
+    Mockito.verify(this.controller, Mockito.times(1))
+      .clientUserId(this.client);
+  }
+
+  @Test
+  public void testEncodeFromUser()
+    throws Exception
+  {
+    Mockito.when(this.controller.clientUserId(this.client))
+      .thenReturn(userId("x", "y"));
+
+    final var encoded =
+      this.client.encodeFromUser(
+        OxIRCMessage.builder()
+          .setRawText("")
+          .setCommand("PRIVMSG")
+          .addParameters("#main")
+          .setTrailing(":Hello!")
+      );
+
+    assertEquals(":x!y@0000002a", encoded.message().prefix());
+    assertEquals(
+      ":x!y@0000002a PRIVMSG #main :Hello!\r\n",
+      StandardCharsets.UTF_8.decode(encoded.buffer()).toString());
+  }
+
+  @Test
+  public void testPrefixInvalidatedByUser()
+    throws Exception
+  {
+    Mockito.when(this.controller.clientUserId(this.client))
+      .thenReturn(userId("x", "y"))
+      .thenReturn(userId("x", "z"));
+
+    assertEquals(":x!y@0000002a", this.client.prefix());
+    this.client.setUser(OxUserName.of("z"));
+    assertEquals(":x!z@0000002a", this.client.prefix());
+    assertEquals(":x!z@0000002a", this.client.prefix());
+
+    Mockito.verify(this.controller, Mockito.times(2))
+      .clientUserId(this.client);
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageParsers;
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.api.OxSlowConsumerPolicy;
+import com.io7m.oxicoco.server.vanilla.internal.OxOutboundQueueStatistics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientTransportType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerControllerType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerMetrics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerClientQueueTest
+{
+  private static final int LIMIT = 8;
+
+  private static final OxServerPortConfiguration PORT =
+    OxServerPortConfiguration.builder()
+      .setAddress(InetAddress.getLoopbackAddress())
+      .setPort(6667)
+      .setEnableTLS(false)
+      .build();
+
+  private OxOutboundQueueStatistics statistics;
+  private OxServerControllerType controller;
+  private OxServerClientTransportType transport;
+
+  private static OxIRCMessage message(
+    final int index)
+  {
+    return OxIRCMessage.builder()
+      .setRawText("")
+      .setPrefix(":com.example")
+      .setCommand("NOTICE")
+      .setTrailing(":" + index)
+      .build();
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.statistics =
+      new OxOutboundQueueStatistics();
+    this.controller =
+      Mockito.mock(OxServerControllerType.class);
+    this.transport =
+      Mockito.mock(OxServerClientTransportType.class);
+
+    Mockito.when(this.controller.outboundQueueStatistics())
+      .thenReturn(this.statistics);
+    Mockito.when(this.controller.metrics())
+      .thenReturn(new OxServerMetrics(
+        OxServerClient.commandNames(),
+        this.statistics));
+    Mockito.when(this.transport.portMetrics())
+      .thenReturn(new OxServerPortMetrics(PORT));
+  }
+
+  private OxServerClient client(
+    final OxSlowConsumerPolicy policy)
+  {
+    final var configuration =
+      OxServerConfiguration.builder()
+        .setServerName(OxServerName.of("com.example"))
+        .setOutboundQueueLimitMessages(LIMIT)
+        .setSlowConsumerPolicy(policy)
+        .build();
+
+    return new OxServerClient(
+      configuration,
+      new OxIRCMessageParsers(),
+      this.controller,
+      OxServerClientID.of(1),
+      this.transport
+    );
+  }
+
+  @Test
+  public void testDisconnect()
+  {
+    final var client = this.client(OxSlowConsumerPolicy.DISCONNECT);
+    for (int index = 0; index <= LIMIT; ++index) {
+      client.enqueueMessage(message(index));
+    }
+
+    Mockito.verify(this.transport, Mockito.times(1))
+      .closeAfterFlush();
+
+    final var error = client.pollOutbound();
+    assertEquals("ERROR", error.message().command());
+    assertNull(client.pollOutbound());
+
+    client.enqueueMessage(message(100));
+    assertNull(client.pollOutbound());
+
+    assertEquals(1L, this.statistics.slowConsumerDisconnects());
+    assertEquals(LIMIT + 1L, this.statistics.messagesDropped());
+    assertEquals(0L, this.statistics.queuedMessages());
+  }
+
+  @Test
+  public void testDisconnectedNotDropped()
+  {
+    final var client = this.client(OxSlowConsumerPolicy.DISCONNECT);
+    for (int index = 0; index < LIMIT / 2; ++index) {
+      client.enqueueMessage(message(index));
+    }
+
+    client.onDisconnected();
+    assertNull(client.pollOutbound());
+
+    Mockito.when(this.transport.isClosed())
+      .thenReturn(Boolean.TRUE);
+    client.enqueueMessage(message(100));
+    assertNull(client.pollOutbound());
+
+    assertEquals(0L, this.statistics.messagesDropped());
+    assertEquals(0L, this.statistics.queuedMessages());
+  }
+
+  @Test
+  public void testDropOldest()
+  {
+    final var client = this.client(OxSlowConsumerPolicy.DROP_OLDEST);
+    for (int index = 0; index < LIMIT + 4; ++index) {
+      client.enqueueMessage(message(index));
+    }
+
+    assertEquals(4L, this.statistics.messagesDropped());
+    assertEquals((long) LIMIT, this.statistics.queuedMessages());
+
+    for (int index = 4; index < LIMIT + 4; ++index) {
+      assertEquals(message(index), client.pollOutbound().message());
+    }
+    assertNull(client.pollOutbound());
+    assertEquals(0L, this.statistics.queuedMessages());
+
+    Mockito.verify(this.transport, Mockito.never())
+      .closeAfterFlush();
+  }
+
+  @Test
+  public void testStopReading()
+  {
+    final var client = this.client(OxSlowConsumerPolicy.STOP_READING);
+    for (int index = 0; index <= LIMIT; ++index) {
+      client.enqueueMessage(message(index));
+    }
+
+    assertTrue(client.isReadingSuspended());
+    assertEquals(1L, this.statistics.readSuspensions());
+
+    while (client.isReadingSuspended()) {
+      client.pollOutbound();
+    }
+
+    assertEquals(LIMIT / 2L, this.statistics.queuedMessages());
+    Mockito.verify(this.transport, Mockito.times(2))
+      .onReadSuspensionChanged();
+    Mockito.verify(this.transport, Mockito.never())
+      .closeAfterFlush();
+  }
+
+  @Test
+  public void testStopReadingDisconnect()
+  {
+    final var client = this.client(OxSlowConsumerPolicy.STOP_READING);
+    for (int index = 0; index <= LIMIT * 2; ++index) {
+      client.enqueueMessage(message(index));
+    }
+
+    Mockito.verify(this.transport, Mockito.times(1))
+      .closeAfterFlush();
+    assertEquals(1L, this.statistics.slowConsumerDisconnects());
+    assertEquals("ERROR", client.pollOutbound().message().command());
+    assertNull(client.pollOutbound());
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientDestroyed;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerChannelCreated;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventBus;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerEventBusTest
+{
+  private ExecutorService executor;
+  private OxServerEventBus bus;
+
+  private static OxServerClientDestroyed destroyed(
+    final int id)
+  {
+    return OxServerClientDestroyed.of(OxServerClientID.of(id));
+  }
+
+  @BeforeEach
+  public void setup()
+  {
+    this.executor = Executors.newCachedThreadPool();
+    this.bus = new OxServerEventBus(this.executor);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.bus.close();
+    this.executor.shutdown();
+    this.executor.awaitTermination(5L, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testHasSubscribers()
+  {
+    assertFalse(this.bus.hasSubscribers(OxServerClientDestroyed.class));
+
+    final var subscription =
+      this.bus.subscribe(OxServerClientDestroyed.class, 16, e -> {
+      });
+
+    assertTrue(this.bus.hasSubscribers(OxServerClientDestroyed.class));
+    assertFalse(this.bus.hasSubscribers(OxServerChannelCreated.class));
+
+    subscription.close();
+    assertFalse(this.bus.hasSubscribers(OxServerClientDestroyed.class));
+  }
+
+  @Test
+  public void testHasSubscribersClosed()
+  {
+    this.bus.subscribe(OxServerEventType.class, 16, e -> {
+    });
+
+    assertTrue(this.bus.hasSubscribers(OxServerClientDestroyed.class));
+    assertTrue(this.bus.hasSubscribers(OxServerChannelCreated.class));
+
+    this.bus.close();
+    assertFalse(this.bus.hasSubscribers(OxServerClientDestroyed.class));
+    assertFalse(this.bus.hasSubscribers(OxServerChannelCreated.class));
+  }
+
+  @Test
+  public void testCapacityInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.bus.subscribe(OxServerEventType.class, 0, e -> {
+      });
+    });
+  }
+
+  @Test
+  public void testDeliveredInOrder()
+    throws Exception
+  {
+    final var count = 10_000;
+    final var latch = new CountDownLatch(count);
+    final var received =
+      Collections.synchronizedList(new ArrayList<Integer>());
+
+    this.bus.subscribe(OxServerClientDestroyed.class, count, e -> {
+      received.add(Integer.valueOf(e.clientId().value()));
+      latch.countDown();
+    });
+
+    for (int index = 0; index < count; ++index) {
+      this.bus.publish(destroyed(index));
+    }
+
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+
+    final var expected = new ArrayList<Integer>(count);
+    for (int index = 0; index < count; ++index) {
+      expected.add(Integer.valueOf(index));
+    }
+    assertEquals(expected, List.copyOf(received));
+  }
+
+  @Test
+  public void testDroppedWhenFull()
+    throws Exception
+  {
+    final var blocked = new CountDownLatch(1);
+    final var started = new CountDownLatch(1);
+    final var delivered = new CountDownLatch(5);
+
+    final var subscription =
+      this.bus.subscribe(OxServerClientDestroyed.class, 4, e -> {
+        started.countDown();
+        try {
+          blocked.await();
+        } catch (final InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        delivered.countDown();
+      });
+
+    this.bus.publish(destroyed(0));
+    assertTrue(started.await(10L, TimeUnit.SECONDS));
+
+    /*
+     * The receiver is blocked on the first event, so the ring can accept
+     * exactly four more events before it begins dropping.
+     */
+
+    for (int index = 1; index <= 10; ++index) {
+      this.bus.publish(destroyed(index));
+    }
+
+    assertEquals(6L, subscription.dropped());
+    blocked.countDown();
+    assertTrue(delivered.await(10L, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testReceiverExceptionIgnored()
+    throws Exception
+  {
+    final var latch = new CountDownLatch(2);
+
+    this.bus.subscribe(OxServerClientDestroyed.class, 16, e -> {
+      latch.countDown();
+      throw new IllegalStateException("Failed!");
+    });
+
+    this.bus.publish(destroyed(0));
+    this.bus.publish(destroyed(1));
+    assertTrue(latch.await(10L, TimeUnit.SECONDS));
+  }
+}
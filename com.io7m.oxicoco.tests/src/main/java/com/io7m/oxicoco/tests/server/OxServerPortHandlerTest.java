@@ -0,0 +1,227 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerAdmission;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientTransportType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerControllerType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortHandler;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mockito;
+
+import javax.net.ssl.SSLServerSocketFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerPortHandlerTest
+{
+  private static final int PORT_NUMBER = 6671;
+
+  private ExecutorService executor;
+  private OxServerControllerType controller;
+  private OxServerPortMetrics metrics;
+  private OxServerPortHandler handler;
+  private CompletableFuture<Void> running;
+
+  @BeforeEach
+  public void setup()
+  {
+    this.executor =
+      Executors.newCachedThreadPool();
+    this.controller =
+      Mockito.mock(OxServerControllerType.class);
+
+    Mockito.when(this.controller.clientCreate(Mockito.any()))
+      .thenAnswer(invocation -> Mockito.mock(OxServerClient.class));
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    if (this.handler != null) {
+      this.handler.close();
+    }
+    this.executor.shutdownNow();
+  }
+
+  private void start(
+    final int acceptors)
+    throws Exception
+  {
+    this.start(acceptors, OxServerConfiguration.builder()
+      .setServerName(OxServerName.of("com.example"))
+      .build());
+  }
+
+  private void start(
+    final int acceptors,
+    final OxServerConfiguration configuration)
+    throws Exception
+  {
+    final var port =
+      OxServerPortConfiguration.builder()
+        .setAddress(InetAddress.getLoopbackAddress())
+        .setPort(PORT_NUMBER)
+        .setEnableTLS(false)
+        .setAcceptorThreads(acceptors)
+        .setAcceptBacklog(64)
+        .build();
+
+    this.metrics =
+      new OxServerPortMetrics(port);
+    this.handler =
+      new OxServerPortHandler(
+        this.controller,
+        (SSLServerSocketFactory) SSLServerSocketFactory.getDefault(),
+        this.executor,
+        this.executor,
+        port,
+        this.metrics,
+        OxServerAdmission.create(configuration)
+      );
+
+    final var future = new CompletableFuture<Void>();
+    this.running =
+      CompletableFuture.runAsync(
+        () -> this.handler.start(future),
+        this.executor);
+    future.get(5L, TimeUnit.SECONDS);
+  }
+
+  @Test
+  @Timeout(10L)
+  public void testAcceptMany()
+    throws Exception
+  {
+    this.start(4);
+
+    final var sockets = new ArrayList<Socket>();
+    try {
+      for (int index = 0; index < 32; ++index) {
+        final var socket = new Socket();
+        socket.connect(new InetSocketAddress(
+          InetAddress.getLoopbackAddress(), PORT_NUMBER));
+        sockets.add(socket);
+      }
+
+      Mockito.verify(this.controller, Mockito.timeout(5_000L).times(32))
+        .clientCreate(Mockito.any(OxServerClientTransportType.class));
+      assertEquals(32L, this.metrics.accepts());
+    } finally {
+      for (final var socket : sockets) {
+        socket.close();
+      }
+    }
+  }
+
+  @Test
+  @Timeout(10L)
+  public void testRefuseOverLimit()
+    throws Exception
+  {
+    this.start(1, OxServerConfiguration.builder()
+      .setServerName(OxServerName.of("com.example"))
+      .setConnectionLimitPerAddress(2)
+      .build());
+
+    final var sockets = new ArrayList<Socket>();
+    try {
+      for (int index = 0; index < 3; ++index) {
+        final var socket = new Socket();
+        socket.connect(new InetSocketAddress(
+          InetAddress.getLoopbackAddress(), PORT_NUMBER));
+        sockets.add(socket);
+      }
+
+      final var refused = sockets.get(2);
+      final var text =
+        new String(
+          refused.getInputStream().readAllBytes(),
+          StandardCharsets.UTF_8);
+
+      assertEquals(
+        "ERROR :Closing Link: (Too many connections from your host)\r\n",
+        text);
+
+      Mockito.verify(this.controller, Mockito.timeout(5_000L).times(2))
+        .clientCreate(Mockito.any(OxServerClientTransportType.class));
+      assertEquals(2L, this.metrics.accepts());
+      assertEquals(1L, this.metrics.refusals());
+    } finally {
+      for (final var socket : sockets) {
+        socket.close();
+      }
+    }
+  }
+
+  @Test
+  @Timeout(10L)
+  public void testCloseWakesAcceptors()
+    throws Exception
+  {
+    this.start(2);
+
+    final var timeThen = System.nanoTime();
+    this.handler.close();
+    this.running.get(5L, TimeUnit.SECONDS);
+    final var elapsed = System.nanoTime() - timeThen;
+    assertTrue(
+      elapsed < TimeUnit.MILLISECONDS.toNanos(500L),
+      "Closing took " + elapsed + "ns");
+  }
+
+  @Test
+  public void testInvalidConfiguration()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerPortConfiguration.builder()
+        .setAddress(InetAddress.getLoopbackAddress())
+        .setPort(PORT_NUMBER)
+        .setEnableTLS(false)
+        .setAcceptorThreads(0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OxServerPortConfiguration.builder()
+        .setAddress(InetAddress.getLoopbackAddress())
+        .setPort(PORT_NUMBER)
+        .setEnableTLS(false)
+        .setAcceptBacklog(0)
+        .build();
+    });
+  }
+}
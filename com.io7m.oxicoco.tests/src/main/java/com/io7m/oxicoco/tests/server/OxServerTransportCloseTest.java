@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.messages.OxIRCMessage;
+import com.io7m.oxicoco.messages.OxIRCMessageParsers;
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.api.OxServerConfiguration;
+import com.io7m.oxicoco.server.api.OxServerPortConfiguration;
+import com.io7m.oxicoco.server.api.OxSlowConsumerPolicy;
+import com.io7m.oxicoco.server.vanilla.internal.OxOutboundQueueStatistics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerAdmission;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClient;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientID;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerClientTransportType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerControllerType;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventLoopGroup;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerEventLoopTransport;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerMetrics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerPortMetrics;
+import com.io7m.oxicoco.server.vanilla.internal.OxServerSocketTransport;
+import com.io7m.oxicoco.server.vanilla.internal.OxWriteBatchStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.mockito.Mockito;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public final class OxServerTransportCloseTest
+{
+  private static final int LIMIT = 8;
+  private static final int BUFFER_SIZE = 4096;
+
+  private static final OxServerConfiguration CONFIGURATION =
+    OxServerConfiguration.builder()
+      .setServerName(OxServerName.of("com.example"))
+      .setOutboundQueueLimitMessages(LIMIT)
+      .setSlowConsumerPolicy(OxSlowConsumerPolicy.DISCONNECT)
+      .build();
+
+  private static final OxServerPortConfiguration PORT =
+    OxServerPortConfiguration.builder()
+      .setAddress(InetAddress.getLoopbackAddress())
+      .setPort(6667)
+      .setEnableTLS(false)
+      .build();
+
+  private OxOutboundQueueStatistics statistics;
+  private OxServerControllerType controller;
+  private ServerSocketChannel listener;
+  private Socket peer;
+  private SocketChannel accepted;
+  private ExecutorService executor;
+  private OxServerEventLoopGroup eventLoops;
+
+  private static OxIRCMessage message(
+    final int index)
+  {
+    return OxIRCMessage.builder()
+      .setRawText("")
+      .setPrefix(":com.example")
+      .setCommand("NOTICE")
+      .setTrailing(":" + index + " " + "x".repeat(400))
+      .build();
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.statistics =
+      new OxOutboundQueueStatistics();
+    this.controller =
+      Mockito.mock(OxServerControllerType.class);
+
+    Mockito.when(this.controller.outboundQueueStatistics())
+      .thenReturn(this.statistics);
+    Mockito.when(this.controller.writeBatchStatistics())
+      .thenReturn(new OxWriteBatchStatistics());
+    Mockito.when(this.controller.metrics())
+      .thenReturn(new OxServerMetrics(
+        OxServerClient.commandNames(),
+        this.statistics));
+
+    this.executor = Executors.newCachedThreadPool();
+    this.eventLoops = OxServerEventLoopGroup.create(1, Thread::new);
+
+    this.listener = ServerSocketChannel.open();
+    this.listener.bind(
+      new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+    this.peer = new Socket();
+    this.peer.setReceiveBufferSize(BUFFER_SIZE);
+    this.peer.connect(this.listener.getLocalAddress());
+    this.peer.setSoTimeout(10_000);
+
+    this.accepted = this.listener.accept();
+    this.accepted.socket().setSendBufferSize(BUFFER_SIZE);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.peer.close();
+    this.accepted.close();
+    this.listener.close();
+    this.eventLoops.close();
+    this.executor.shutdownNow();
+  }
+
+  private void checkErrorDelivered(
+    final OxServerClientTransportType transport)
+    throws Exception
+  {
+    final var client =
+      new OxServerClient(
+        CONFIGURATION,
+        new OxIRCMessageParsers(),
+        this.controller,
+        OxServerClientID.of(1),
+        transport
+      );
+    transport.start(client);
+
+    /*
+     * The peer is not reading, and so the queue eventually overflows and
+     * the client is disconnected from this thread, which is neither of the
+     * transport's own threads.
+     */
+
+    for (int index = 0; index < 100_000; ++index) {
+      if (this.statistics.slowConsumerDisconnects() > 0L) {
+        break;
+      }
+      client.enqueueMessage(message(index));
+    }
+    assertEquals(1L, this.statistics.slowConsumerDisconnects());
+
+    final var text =
+      new String(
+        this.peer.getInputStream().readAllBytes(),
+        StandardCharsets.UTF_8);
+
+    assertTrue(
+      text.endsWith("(SendQ exceeded)\r\n"),
+      "Output must end with the ERROR line");
+    assertTrue(transport.isClosed());
+  }
+
+  @Test
+  @Timeout(30L)
+  public void testSocketTransport()
+    throws Exception
+  {
+    this.checkErrorDelivered(
+      new OxServerSocketTransport(
+        this.accepted.socket(),
+        this.executor,
+        new OxServerPortMetrics(PORT),
+        OxServerAdmission.create(CONFIGURATION)
+          .admit(this.accepted.getRemoteAddress())
+      ));
+  }
+
+  @Test
+  @Timeout(30L)
+  public void testEventLoopTransport()
+    throws Exception
+  {
+    this.checkErrorDelivered(
+      new OxServerEventLoopTransport(
+        this.accepted,
+        this.eventLoops.next(),
+        new OxServerPortMetrics(PORT),
+        OxServerAdmission.create(CONFIGURATION)
+          .admit(this.accepted.getRemoteAddress())
+      ));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2020 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.oxicoco.tests.server;
+
+import com.io7m.oxicoco.errors.OxIRCErrorCommandUnknown;
+import com.io7m.oxicoco.messages.OxIRCMessageEncoder;
+import com.io7m.oxicoco.names.OxServerName;
+import com.io7m.oxicoco.server.vanilla.internal.OxUnknownCommandReply;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class OxUnknownCommandReplyTest
+{
+  @Test
+  public void testSameAsError()
+  {
+    final var serverName =
+      OxServerName.of("com.example");
+    final var reply =
+      new OxUnknownCommandReply(serverName);
+
+    for (final var command : new String[]{"X", "WHOIS", "CAFÉ"}) {
+      final var expectedMessage =
+        OxIRCErrorCommandUnknown.of(command)
+          .toMessage(Optional.of(serverName));
+
+      final var encoded = reply.reply(command);
+      final var output = new ByteArrayOutputStream();
+      encoded.writeTo(output);
+
+      assertArrayEquals(
+        OxIRCMessageEncoder.INSTANCE.encode(expectedMessage),
+        output.toByteArray()
+      );
+      assertEquals(expectedMessage, encoded.message());
+    }
+  }
+}